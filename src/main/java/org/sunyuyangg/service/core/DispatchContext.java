@@ -0,0 +1,134 @@
+package org.sunyuyangg.service.core;
+
+import com.ibm.staf.service.STAFServiceInterfaceLevel30.RequestInfo;
+import org.springframework.lang.Nullable;
+import org.sunyuyangg.service.core.handler.HandlerMethod;
+import org.sunyuyangg.service.core.handler.ServiceRequest;
+import org.sunyuyangg.service.core.method.MappingInfo;
+import org.sunyuyangg.service.core.method.parser.CommandParseResult;
+
+/**
+ * Request-scoped state of a single dispatch, handed from the {@link HandlerMapping}
+ * to the {@link HandlerAdapter} and the {@link View}.
+ *
+ * <p>Registered handlers and mappings are shared by all STAF worker threads, so
+ * everything that belongs to one request (parse result, matched mapping, resolved
+ * handler, timing) lives here instead. Not thread-safe; confined to the thread
+ * dispatching the request.
+ */
+public class DispatchContext {
+
+    private final RequestInfo request;
+
+    private final long startTime = System.nanoTime();
+
+    @Nullable
+    private ServiceRequest serviceRequest;
+
+    @Nullable
+    private HandlerMethod handler;
+
+    private long handlerResolvedTime;
+
+    private long handlerInvokedTime;
+
+    private long renderedTime;
+
+    public DispatchContext(RequestInfo request) {
+        this.request = request;
+    }
+
+    /**
+     * Return the raw STAF request being dispatched.
+     */
+    public RequestInfo getRequest() {
+        return this.request;
+    }
+
+    /**
+     * Return the parse result and matched mapping, or {@code null} if no mapping matched yet.
+     */
+    @Nullable
+    public ServiceRequest getServiceRequest() {
+        return this.serviceRequest;
+    }
+
+    public void setServiceRequest(@Nullable ServiceRequest serviceRequest) {
+        this.serviceRequest = serviceRequest;
+    }
+
+    /**
+     * Return the mapping matched for this request, or {@code null}.
+     */
+    @Nullable
+    public MappingInfo getMapping() {
+        return (this.serviceRequest != null ? this.serviceRequest.getMapping() : null);
+    }
+
+    /**
+     * Return the value of the given {@link ReservedOptions reserved option}, or
+     * {@code null} if it is absent or the matched mapping declares that option itself.
+     */
+    @Nullable
+    public String getReservedOption(String name) {
+        MappingInfo mapping = getMapping();
+        if (mapping == null || !mapping.isReservedOption(name)) {
+            return null;
+        }
+        CommandParseResult parseResult = this.serviceRequest.getParseResult();
+        return (parseResult.optionTimes(name) > 0 ? parseResult.optionValue(name) : null);
+    }
+
+    /**
+     * Return the handler resolved for this request, or {@code null}.
+     */
+    @Nullable
+    public HandlerMethod getHandler() {
+        return this.handler;
+    }
+
+    public void setHandler(@Nullable HandlerMethod handler) {
+        this.handler = handler;
+        this.handlerResolvedTime = System.nanoTime();
+    }
+
+    public void markHandlerInvoked() {
+        this.handlerInvokedTime = System.nanoTime();
+    }
+
+    public void markRendered() {
+        this.renderedTime = System.nanoTime();
+    }
+
+    /**
+     * Return the nanoseconds spent resolving the handler, or -1 if not resolved.
+     */
+    public long getHandlerResolutionTime() {
+        return elapsed(this.startTime, this.handlerResolvedTime);
+    }
+
+    /**
+     * Return the nanoseconds spent invoking the handler, or -1 if not invoked.
+     */
+    public long getHandlerInvocationTime() {
+        return elapsed(this.handlerResolvedTime, this.handlerInvokedTime);
+    }
+
+    /**
+     * Return the nanoseconds spent rendering the result, or -1 if not rendered.
+     */
+    public long getRenderTime() {
+        return elapsed(this.handlerInvokedTime, this.renderedTime);
+    }
+
+    /**
+     * Return the nanoseconds elapsed since this dispatch started.
+     */
+    public long getElapsedTime() {
+        return System.nanoTime() - this.startTime;
+    }
+
+    private static long elapsed(long from, long to) {
+        return (from != 0 && to != 0 ? to - from : -1);
+    }
+}
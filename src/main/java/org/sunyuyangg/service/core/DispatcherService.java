@@ -8,6 +8,7 @@ import org.springframework.beans.factory.BeanFactoryUtils;
 import org.springframework.beans.factory.BeanInitializationException;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.context.ApplicationContext;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.core.annotation.AnnotationAwareOrderComparator;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.support.PropertiesLoaderUtils;
@@ -15,11 +16,20 @@ import org.springframework.lang.Nullable;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
 import org.sunyuyangg.service.core.adapter.ModelAndView;
+import org.sunyuyangg.service.core.annotation.ResponseFormat;
 import org.sunyuyangg.service.core.exception.NoHandlerFoundException;
 import org.sunyuyangg.service.core.handler.HandlerMethod;
+import org.sunyuyangg.service.core.result.FieldProjectionProcessor;
+import org.sunyuyangg.service.core.result.PaginationProcessor;
+import org.sunyuyangg.service.core.result.WhereFilterProcessor;
+import org.sunyuyangg.service.core.viewer.FormatViewResolver;
 
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.BaseStream;
 
 public class DispatcherService extends FrameworkService {
 
@@ -38,6 +48,32 @@ public class DispatcherService extends FrameworkService {
     @Nullable
     private View view;
 
+    /**
+     * ViewResolvers asked for the views of formats requested with the FORMAT option or {@link ResponseFormat}
+     */
+    private List<ViewResolver> viewResolvers = Collections.emptyList();
+
+    @Nullable
+    private FormatViewResolver formatViewResolver;
+
+    private final Map<String, View> registeredFormatViews = new LinkedHashMap<>();
+
+    /**
+     * Resolved views per handler method and upper-case requested format, "" for none
+     */
+    private final Map<Method, Map<String, View>> viewCache = new ConcurrentHashMap<>(64);
+
+    /**
+     * ResultProcessors applied in order to successful results before they are rendered
+     */
+    private List<ResultProcessor> resultProcessors = Collections.emptyList();
+
+    /**
+     * Handler mappings per route and handler adapters per handler, built from the strategies above
+     */
+    @Nullable
+    private volatile HandlerResolutionTable resolutionTable;
+
     private static final String DEFAULT_STRATEGIES_PATH = "/Dispatcher.properties";
 
     /**
@@ -57,6 +93,12 @@ public class DispatcherService extends FrameworkService {
     /** Throw a NoHandlerFoundException if no Handler was found to process this request? **/
     private boolean throwExceptionIfNoHandlerFound = false;
 
+    /** Maximum number of unknown routes remembered by the negative route cache, 0 to disable. **/
+    public static final int DEFAULT_NEGATIVE_ROUTE_CACHE_LIMIT = 256;
+
+    @Nullable
+    private NegativeRouteCache negativeRouteCache = new NegativeRouteCache(DEFAULT_NEGATIVE_ROUTE_CACHE_LIMIT);
+
     /**
      * Detect all HandlerMappings or just expect "handlerMapping" bean?
      */
@@ -96,10 +138,60 @@ public class DispatcherService extends FrameworkService {
             initHandlerMappings(context);
             initHandlerAdapters(context);
             initView(context);
+            initResultProcessors(context);
         } catch (Exception e) {
             Logger.error(e);
         }
+        HandlerResolutionTable resolutionTable;
+        try {
+            resolutionTable = refreshResolutionTable(getRegistryVersion());
+        } catch (Exception e) {
+            // Fail the initialization of the service rather than its requests
+            throw new BeanInitializationException("Could not prepare the handlers of service '" + getServiceName() + "'", e);
+        }
+        ObjectMapperRegistry mapperRegistry = ObjectMapperRegistry.getShared();
+        if (mapperRegistry.getProfile() == ObjectMapperRegistry.Profile.PERFORMANCE) {
+            mapperRegistry.prewarm(resolutionTable.getReturnTypes());
+        }
+    }
 
+    @Override
+    protected void onRefresh(ApplicationContext context) {
+        super.onRefresh(context);
+        if (this.handlerMappings != null && this.handlerAdapters != null) {
+            try {
+                refreshResolutionTable(getRegistryVersion());
+            } catch (Exception e) {
+                Logger.error(e);
+            }
+        }
+    }
+
+    private HandlerResolutionTable getResolutionTable(long registryVersion) throws Exception {
+        HandlerResolutionTable resolutionTable = this.resolutionTable;
+        if (resolutionTable == null || resolutionTable.getVersion() != registryVersion) {
+            resolutionTable = refreshResolutionTable(registryVersion);
+        }
+        return resolutionTable;
+    }
+
+    /**
+     * Rebuild the resolution table from the current strategies, e.g. after the
+     * handlers of a mapping changed, and release unregistered handlers from their adapters.
+     */
+    private synchronized HandlerResolutionTable refreshResolutionTable(long registryVersion) throws Exception {
+        HandlerResolutionTable resolutionTable = this.resolutionTable;
+        if (resolutionTable == null || resolutionTable.getVersion() != registryVersion) {
+            HandlerResolutionTable previous = resolutionTable;
+            resolutionTable = new HandlerResolutionTable(registryVersion,
+                    (this.handlerMappings != null ? this.handlerMappings : Collections.emptyList()),
+                    (this.handlerAdapters != null ? this.handlerAdapters : Collections.emptyList()));
+            this.resolutionTable = resolutionTable;
+            if (previous != null) {
+                previous.releaseRemovedHandlers(resolutionTable);
+            }
+        }
+        return resolutionTable;
     }
 
     private void initView(ApplicationContext context) throws Exception{
@@ -113,6 +205,97 @@ public class DispatcherService extends FrameworkService {
         if(view == null) {
             this.view = getDefaultStrategies(context, View.class).get(0);
         }
+        initViewResolvers(context);
+    }
+
+    private void initViewResolvers(ApplicationContext context) {
+        List<ViewResolver> viewResolvers = new ArrayList<>(
+                BeanFactoryUtils.beansOfTypeIncludingAncestors(context, ViewResolver.class, true, false).values());
+        AnnotationAwareOrderComparator.sort(viewResolvers);
+        FormatViewResolver formatViewResolver = FormatViewResolver.withDefaultFormats(this.view);
+        synchronized (this.registeredFormatViews) {
+            this.registeredFormatViews.forEach(formatViewResolver::registerView);
+            this.formatViewResolver = formatViewResolver;
+        }
+        viewResolvers.add(formatViewResolver);
+        this.viewResolvers = viewResolvers;
+        this.viewCache.clear();
+    }
+
+    private void initResultProcessors(ApplicationContext context) {
+        List<ResultProcessor> resultProcessors = new ArrayList<>(
+                BeanFactoryUtils.beansOfTypeIncludingAncestors(context, ResultProcessor.class, true, false).values());
+        addDefaultResultProcessor(resultProcessors, WhereFilterProcessor.class, WhereFilterProcessor::new);
+        addDefaultResultProcessor(resultProcessors, PaginationProcessor.class, PaginationProcessor::new);
+        addDefaultResultProcessor(resultProcessors, FieldProjectionProcessor.class, FieldProjectionProcessor::new);
+        AnnotationAwareOrderComparator.sort(resultProcessors);
+        this.resultProcessors = resultProcessors;
+    }
+
+    private static <T extends ResultProcessor> void addDefaultResultProcessor(
+            List<ResultProcessor> resultProcessors, Class<T> type, Supplier<T> factory) {
+        if (resultProcessors.stream().noneMatch(type::isInstance)) {
+            resultProcessors.add(factory.get());
+        }
+    }
+
+    /**
+     * Register the view rendering results in the given format, requested with the
+     * {@link ReservedOptions#FORMAT} option or declared with {@link ResponseFormat},
+     * replacing an existing one. Built-in formats are those of
+     * {@link FormatViewResolver#withDefaultFormats}; view resolver beans are asked first.
+     */
+    public void registerView(String format, View view) {
+        synchronized (this.registeredFormatViews) {
+            this.registeredFormatViews.put(format.toUpperCase(), view);
+            if (this.formatViewResolver != null) {
+                this.formatViewResolver.registerView(format, view);
+            }
+        }
+        this.viewCache.clear();
+    }
+
+    private View getView(DispatchContext context) throws Exception {
+        HandlerMethod handler = context.getHandler();
+        if (handler == null) {
+            return this.view;
+        }
+        String requestedFormat = context.getReservedOption(ReservedOptions.FORMAT);
+        String format = (requestedFormat != null ? requestedFormat.toUpperCase() : "");
+        Map<String, View> handlerViews = this.viewCache.get(handler.getMethod());
+        View view = (handlerViews != null ? handlerViews.get(format) : null);
+        if (view == null) {
+            view = resolveView(handler, format);
+            this.viewCache.computeIfAbsent(handler.getMethod(), method -> new ConcurrentHashMap<>(4)).put(format, view);
+        }
+        return view;
+    }
+
+    private View resolveView(HandlerMethod handler, String requestedFormat) throws Exception {
+        String format = requestedFormat;
+        if (format.isEmpty()) {
+            ResponseFormat responseFormat = handler.getMethodAnnotation(ResponseFormat.class);
+            if (responseFormat == null) {
+                responseFormat = AnnotatedElementUtils.findMergedAnnotation(handler.getBeanType(), ResponseFormat.class);
+            }
+            if (responseFormat == null) {
+                return this.view;
+            }
+            format = responseFormat.value().toUpperCase();
+        }
+        for (ViewResolver viewResolver : this.viewResolvers) {
+            View view = viewResolver.resolveView(format, handler);
+            if (view != null) {
+                return view;
+            }
+        }
+        String formats = (this.formatViewResolver != null ? this.formatViewResolver.getFormats().toString() : "[]");
+        if (!requestedFormat.isEmpty()) {
+            throw new IllegalArgumentException("Unknown " + ReservedOptions.FORMAT + " '" + requestedFormat +
+                    "', expected one of " + formats);
+        }
+        throw new IllegalStateException("No view registered for response format '" + format +
+                "' of " + handler.getMethod().toGenericString() + ", expected one of " + formats);
     }
 
     public void setDetectAllHandlerMappings(boolean detectAllHandlerMappings) {
@@ -220,6 +403,15 @@ public class DispatcherService extends FrameworkService {
         this.throwExceptionIfNoHandlerFound = throwExceptionIfNoHandlerFound;
     }
 
+    /**
+     * Set how many routes without handler are remembered, so that repeated
+     * requests for unknown commands go straight to the "no handler" response.
+     * Default is {@link #DEFAULT_NEGATIVE_ROUTE_CACHE_LIMIT}; 0 disables the cache.
+     */
+    public void setNegativeRouteCacheLimit(int negativeRouteCacheLimit) {
+        this.negativeRouteCache = (negativeRouteCacheLimit > 0 ? new NegativeRouteCache(negativeRouteCacheLimit) : null);
+    }
+
     private void logRequest(RequestInfo request) {
         Logger.info(request.request);
     }
@@ -248,26 +440,93 @@ public class DispatcherService extends FrameworkService {
     }
 
     protected void doDispatch(RequestInfo request, STAFResult response) throws Exception {
-        HandlerMethod mappedHandler = getHandle(request);
+        long registryVersion = getRegistryVersion();
+        NegativeRouteCache negativeRouteCache = this.negativeRouteCache;
+        if (negativeRouteCache != null && negativeRouteCache.contains(request.request, registryVersion)) {
+            noHandlerFound(request, response);
+            return;
+        }
+        HandlerResolutionTable resolutionTable = getResolutionTable(registryVersion);
+        DispatchContext context = new DispatchContext(request);
+        HandlerMethod mappedHandler = getHandle(resolutionTable, context);
         if (mappedHandler == null) {
+            if (negativeRouteCache != null && !hasRoute(request.request)) {
+                negativeRouteCache.add(request.request, registryVersion);
+            }
             noHandlerFound(request, response);
             return;
         }
+        context.setHandler(mappedHandler);
         // Determine handler adapter for the current request.
-        HandlerAdapter handlerAdapter = getHandlerAdapter(mappedHandler);
-        // Actually invoke the handler.
-        ModelAndView model = handlerAdapter.handle(mappedHandler.getServiceRequest(), response, mappedHandler);
-        this.view.render(model, response);
+        HandlerAdapter handlerAdapter = getHandlerAdapter(resolutionTable, mappedHandler);
+        // Actually invoke the handler, unless a result processor kept the result for this request.
+        List<ResultProcessor> resultProcessors = this.resultProcessors;
+        ModelAndView model = null;
+        int nextProcessor = 0;
+        while (model == null && nextProcessor < resultProcessors.size()) {
+            Object keptResult = resultProcessors.get(nextProcessor++).getKeptResult(context);
+            if (keptResult != null) {
+                model = new ModelAndView();
+                model.setModel(keptResult);
+                model.setRc(STAFResult.Ok);
+            }
+        }
+        if (model == null) {
+            model = handlerAdapter.handle(context, response, mappedHandler);
+            nextProcessor = 0;
+        }
+        context.markHandlerInvoked();
+        boolean rendered = false;
+        try {
+            processResult(model, context, resultProcessors.subList(nextProcessor, resultProcessors.size()));
+            getView(context).render(model, context, response);
+            rendered = (response.rc == model.getRc());
+        } finally {
+            if (!rendered && model.getModel() != null) {
+                discardResult(model.getModel(), context, resultProcessors);
+            }
+            // Release the resources of a stream result, e.g. the file or cursor it reads from
+            if (model.getModel() instanceof BaseStream) {
+                ((BaseStream<?, ?>) model.getModel()).close();
+            }
+        }
+        context.markRendered();
+        Logger.debug("Dispatched {} in {} ns (resolve {} ns, invoke {} ns, render {} ns)", request.request,
+                context.getElapsedTime(), context.getHandlerResolutionTime(),
+                context.getHandlerInvocationTime(), context.getRenderTime());
     }
 
-    private HandlerAdapter getHandlerAdapter(HandlerMethod handler) throws Exception{
-        if (this.handlerAdapters != null) {
-            for (HandlerAdapter adapter : this.handlerAdapters) {
-                if (adapter.supports(handler)) {
-                    return adapter;
-                }
+    private void processResult(ModelAndView model, DispatchContext context,
+                               List<ResultProcessor> resultProcessors) throws Exception {
+        Object result = model.getModel();
+        if (result == null || result instanceof String || model.getRc() != STAFResult.Ok) {
+            return;
+        }
+        for (ResultProcessor resultProcessor : resultProcessors) {
+            result = resultProcessor.process(result, context);
+            // Keep the latest result, for the processors to discard it if a later step fails
+            model.setModel(result);
+            if (result == null) {
+                break;
             }
         }
+    }
+
+    private void discardResult(Object result, DispatchContext context, List<ResultProcessor> resultProcessors) {
+        for (ResultProcessor resultProcessor : resultProcessors) {
+            try {
+                resultProcessor.discardResult(result, context);
+            } catch (RuntimeException ex) {
+                Logger.warn(ex, "Could not discard the result of {}", context.getRequest().request);
+            }
+        }
+    }
+
+    private HandlerAdapter getHandlerAdapter(HandlerResolutionTable resolutionTable, HandlerMethod handler) throws Exception{
+        HandlerAdapter adapter = resolutionTable.getHandlerAdapter(handler);
+        if (adapter != null) {
+            return adapter;
+        }
         throw new Exception("No adapter for handler [" + handler + "]: The Dispatcher configuration needs to include a HandlerAdapter that supports this handler");
     }
 
@@ -279,16 +538,35 @@ public class DispatcherService extends FrameworkService {
         setResponse(response, STAFResult.DoesNotExist, "No handler support the " + action + ", please use help command! ");
     }
 
-    @Nullable
-    private HandlerMethod getHandle(RequestInfo request) throws Exception{
+    private long getRegistryVersion() {
+        long version = 0;
+        if (this.handlerMappings != null) {
+            for (HandlerMapping mapping : this.handlerMappings) {
+                version += mapping.getRegistryVersion();
+            }
+        }
+        return version;
+    }
+
+    private boolean hasRoute(String request) {
         if (this.handlerMappings != null) {
             for (HandlerMapping mapping : this.handlerMappings) {
-                HandlerMethod handler = mapping.getHandler(request);
-                if (handler != null) {
-                    return handler;
+                if (mapping.hasRoute(request)) {
+                    return true;
                 }
             }
         }
+        return false;
+    }
+
+    @Nullable
+    private HandlerMethod getHandle(HandlerResolutionTable resolutionTable, DispatchContext context) throws Exception{
+        for (HandlerMapping mapping : resolutionTable.getHandlerMappings(context.getRequest().request)) {
+            HandlerMethod handler = mapping.getHandler(context);
+            if (handler != null) {
+                return handler;
+            }
+        }
         return null;
     }
 }
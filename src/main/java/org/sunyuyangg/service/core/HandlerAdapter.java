@@ -3,11 +3,26 @@ package org.sunyuyangg.service.core;
 
 import com.ibm.staf.STAFResult;
 import org.sunyuyangg.service.core.adapter.ModelAndView;
-import org.sunyuyangg.service.core.handler.ServiceRequest;
+import org.sunyuyangg.service.core.method.MappingInfo;
 
 public interface HandlerAdapter {
 
     boolean supports(Object handler);
 
-    ModelAndView handle(ServiceRequest request, STAFResult response, Object handler) throws Exception;
+    ModelAndView handle(DispatchContext context, STAFResult response, Object handler) throws Exception;
+
+    /**
+     * Prepare a supported handler registered for the given mapping before the
+     * first request, so that a handler this adapter cannot invoke fails at startup.
+     * <p>The default implementation does nothing.
+     */
+    default void prepare(Object handler, MappingInfo mapping) throws Exception {
+    }
+
+    /**
+     * Release what was prepared for a handler that is no longer registered.
+     * <p>The default implementation does nothing.
+     */
+    default void release(Object handler) {
+    }
 }
@@ -1,9 +1,42 @@
 package org.sunyuyangg.service.core;
 
 
-import com.ibm.staf.service.STAFServiceInterfaceLevel30.*;
+import org.springframework.lang.Nullable;
 import org.sunyuyangg.service.core.handler.HandlerMethod;
+import org.sunyuyangg.service.core.handler.MappingPathIndex;
+
+import java.util.Set;
 
 public interface HandlerMapping {
-    HandlerMethod getHandler(RequestInfo request) throws Exception;
+    HandlerMethod getHandler(DispatchContext context) throws Exception;
+
+    /**
+     * Whether this mapping has any handler for the route of the given request,
+     * regardless of the options that follow it. A miss for a request without
+     * route in any mapping may be cached by the {@link DispatcherService}.
+     * <p>The default implementation returns {@code true}, so misses are never cached.
+     */
+    default boolean hasRoute(String request) {
+        return true;
+    }
+
+    /**
+     * Return the routes this mapping has handlers for: the upper-cased leading two
+     * tokens joined with {@link MappingPathIndex#PATH_SEPARATOR}. The
+     * {@link DispatcherService} only asks this mapping for requests on these routes.
+     * <p>The default implementation returns {@code null}: the routes are unknown
+     * and this mapping is asked for every request.
+     */
+    @Nullable
+    default Set<String> getRoutes() {
+        return null;
+    }
+
+    /**
+     * Return a number that changes whenever the handlers of this mapping change,
+     * invalidating the routes and misses cached by the {@link DispatcherService}.
+     */
+    default long getRegistryVersion() {
+        return 0;
+    }
 }
@@ -0,0 +1,148 @@
+package org.sunyuyangg.service.core;
+
+import org.springframework.lang.Nullable;
+import org.sunyuyangg.service.core.handler.AbstractHandlerMethodMapping;
+import org.sunyuyangg.service.core.handler.HandlerMethod;
+import org.sunyuyangg.service.core.handler.MappingPathIndex;
+import org.sunyuyangg.service.core.method.MappingInfo;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolution table of the {@link DispatcherService}, built from its strategies
+ * for one registry version: the {@link HandlerMapping}s to ask per route, and
+ * the {@link HandlerAdapter} of each handler method.
+ *
+ * <p>Mappings that cannot enumerate their routes are asked for every request,
+ * in their configured order relative to the route owners. Adapters of handler
+ * methods registered later are memoized on first use.
+ */
+class HandlerResolutionTable {
+
+    private final long version;
+
+    private final MappingPathIndex<HandlerMapping> routes;
+
+    private final List<HandlerMapping> unroutedMappings;
+
+    private final List<HandlerAdapter> handlerAdapters;
+
+    private final Map<Method, HandlerAdapter> adapterLookup = new ConcurrentHashMap<>();
+
+    /**
+     * Adapters of the handler methods registered when the table was built
+     */
+    private final Map<HandlerMethod, HandlerAdapter> preparedHandlers = new LinkedHashMap<>();
+
+    private final Set<Type> returnTypes = new LinkedHashSet<>();
+
+    /**
+     * Build the table, preparing the handler adapter of every registered handler method.
+     *
+     * @throws Exception if an adapter rejects a handler method
+     */
+    HandlerResolutionTable(long version, List<HandlerMapping> handlerMappings, List<HandlerAdapter> handlerAdapters)
+            throws Exception {
+        this.version = version;
+        this.handlerAdapters = handlerAdapters;
+
+        Map<String, List<HandlerMapping>> routeLookup = new LinkedHashMap<>();
+        List<HandlerMapping> unroutedMappings = new ArrayList<>();
+        for (HandlerMapping mapping : handlerMappings) {
+            Set<String> mappingRoutes = mapping.getRoutes();
+            if (mappingRoutes == null) {
+                // Asked for every route, after the owners of the route registered before it
+                unroutedMappings.add(mapping);
+                routeLookup.values().forEach(mappings -> mappings.add(mapping));
+                continue;
+            }
+            for (String route : mappingRoutes) {
+                routeLookup.computeIfAbsent(route, key -> new ArrayList<>(unroutedMappings)).add(mapping);
+            }
+            if (mapping instanceof AbstractHandlerMethodMapping) {
+                for (Map.Entry<?, HandlerMethod> entry : ((AbstractHandlerMethodMapping<?>) mapping).getHandlerMethods().entrySet()) {
+                    HandlerMethod handlerMethod = entry.getValue();
+                    this.returnTypes.add(handlerMethod.getMethod().getGenericReturnType());
+                    HandlerAdapter adapter = findHandlerAdapter(handlerMethod);
+                    if (adapter != null) {
+                        if (entry.getKey() instanceof MappingInfo) {
+                            adapter.prepare(handlerMethod.createWithResolvedBean(), (MappingInfo) entry.getKey());
+                        }
+                        this.adapterLookup.put(handlerMethod.getMethod(), adapter);
+                        this.preparedHandlers.put(handlerMethod, adapter);
+                    }
+                }
+            }
+        }
+        this.routes = new MappingPathIndex<>(routeLookup);
+        this.unroutedMappings = Collections.unmodifiableList(unroutedMappings);
+    }
+
+    /**
+     * Return the registry version of the handler mappings this table was built for.
+     */
+    long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Return the generic return types of the handler methods registered when the table was built.
+     */
+    Set<Type> getReturnTypes() {
+        return Collections.unmodifiableSet(this.returnTypes);
+    }
+
+    /**
+     * Let the adapters release the handler methods of this table that are no
+     * longer registered in the given newer table.
+     */
+    void releaseRemovedHandlers(HandlerResolutionTable newer) {
+        this.preparedHandlers.forEach((handlerMethod, adapter) -> {
+            if (!newer.preparedHandlers.containsKey(handlerMethod)) {
+                adapter.release(handlerMethod);
+            }
+        });
+    }
+
+    /**
+     * Return the handler mappings to ask for the given request, in order.
+     */
+    List<HandlerMapping> getHandlerMappings(String request) {
+        List<HandlerMapping> mappings = this.routes.lookup(request);
+        return (mappings != null ? mappings : this.unroutedMappings);
+    }
+
+    /**
+     * Return the handler adapter supporting the given handler, or {@code null}.
+     */
+    @Nullable
+    HandlerAdapter getHandlerAdapter(HandlerMethod handler) {
+        HandlerAdapter adapter = this.adapterLookup.get(handler.getMethod());
+        if (adapter == null) {
+            adapter = findHandlerAdapter(handler);
+            if (adapter != null) {
+                this.adapterLookup.put(handler.getMethod(), adapter);
+            }
+        }
+        return adapter;
+    }
+
+    @Nullable
+    private HandlerAdapter findHandlerAdapter(HandlerMethod handler) {
+        for (HandlerAdapter adapter : this.handlerAdapters) {
+            if (adapter.supports(handler)) {
+                return adapter;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,144 @@
+package org.sunyuyangg.service.core;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded set of the routes (the upper-cased leading two tokens) for which
+ * no {@link HandlerMapping} has a handler, so repeated requests for unknown
+ * commands skip the handler lookup. Entries are only valid for the
+ * registry version of the handler mappings they were added in.
+ *
+ * <p>Routes are kept in a lock-free table with one route per slot, indexed by
+ * the case-folded hash of the route; a route added to an occupied slot evicts
+ * the route there. Routes keep their tokens apart, so a single token never
+ * matches a route of two. Lookups hash and compare the route tokens in place
+ * in the request string, so they neither allocate nor block.
+ */
+class NegativeRouteCache {
+
+    private final AtomicReferenceArray<Route> routes;
+
+    private final int mask;
+
+    NegativeRouteCache(int maxEntries) {
+        // At most maxEntries slots, as a power of two to index by mask
+        int capacity = Integer.highestOneBit(Math.max(maxEntries, 1));
+        this.routes = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Whether the route of the request is known to have no handler in the given registry version.
+     */
+    boolean contains(String request, long version) {
+        int hash = hash(request);
+        Route route = this.routes.get(hash & this.mask);
+        return (route != null && route.hash == hash && route.version == version && route.matches(request));
+    }
+
+    /**
+     * Remember that the route of the request has no handler in the given registry version.
+     */
+    void add(String request, long version) {
+        int hash = hash(request);
+        int index = hash & this.mask;
+        Route existing = this.routes.get(index);
+        // Keep a route of a newer registry version, added by a concurrent request
+        if (existing == null || existing.version <= version) {
+            this.routes.set(index, new Route(tokens(request), hash, version));
+        }
+    }
+
+    /**
+     * Hash the case-folded route tokens of the request in place. Whitespace never
+     * occurs within a token, so it marks the token boundary.
+     */
+    static int hash(String request) {
+        int hash = 0;
+        int length = request.length();
+        int index = 0;
+        for (int token = 0; token < 2; token++) {
+            index = skipWhitespace(request, index, length);
+            if (index == length) {
+                break;
+            }
+            if (token > 0) {
+                hash = 31 * hash + ' ';
+            }
+            while (index < length && !Character.isWhitespace(request.charAt(index))) {
+                hash = 31 * hash + Character.toUpperCase(request.charAt(index++));
+            }
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Return the upper-cased route tokens of the request: one or two, or none for a blank request.
+     */
+    static String[] tokens(String request) {
+        String[] tokens = new String[2];
+        int count = 0;
+        int length = request.length();
+        int index = skipWhitespace(request, 0, length);
+        while (count < 2 && index < length) {
+            int start = index;
+            while (index < length && !Character.isWhitespace(request.charAt(index))) {
+                index++;
+            }
+            tokens[count++] = request.substring(start, index).toUpperCase();
+            index = skipWhitespace(request, index, length);
+        }
+        return (count == 2 ? tokens : Arrays.copyOf(tokens, count));
+    }
+
+    private static int skipWhitespace(String request, int index, int length) {
+        while (index < length && Character.isWhitespace(request.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+
+    private static final class Route {
+
+        /**
+         * The upper-cased route tokens
+         */
+        final String[] tokens;
+
+        final int hash;
+
+        final long version;
+
+        Route(String[] tokens, int hash, long version) {
+            this.tokens = tokens;
+            this.hash = hash;
+            this.version = version;
+        }
+
+        /**
+         * Whether the route tokens of the request are these tokens, compared token by token in place.
+         */
+        boolean matches(String request) {
+            int length = request.length();
+            int index = skipWhitespace(request, 0, length);
+            for (String token : this.tokens) {
+                if (index == length) {
+                    return false;
+                }
+                for (int i = 0; i < token.length(); i++, index++) {
+                    if (index == length || token.charAt(i) != Character.toUpperCase(request.charAt(index))) {
+                        return false;
+                    }
+                }
+                if (index < length && !Character.isWhitespace(request.charAt(index))) {
+                    return false;
+                }
+                index = skipWhitespace(request, index, length);
+            }
+            // No further route token
+            return (this.tokens.length == 2 || index == length);
+        }
+    }
+}
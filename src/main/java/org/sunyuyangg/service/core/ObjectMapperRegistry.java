@@ -0,0 +1,173 @@
+package org.sunyuyangg.service.core;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.pmw.tinylog.Logger;
+import org.springframework.beans.BeanUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Holder of the {@link ObjectMapper} shared by the views, argument resolvers and
+ * clients of a service, created on first use according to a {@link Profile}.
+ *
+ * <p>The shared registry takes its profile from the {@value #PROFILE_PROPERTY}
+ * system property; profile and mapper must be configured before the service starts,
+ * as components keep the mapper they were created with.
+ */
+public class ObjectMapperRegistry {
+
+    /**
+     * System property naming the profile of the shared registry, e.g. {@code performance}.
+     */
+    public static final String PROFILE_PROPERTY = "staf.service.jackson.profile";
+
+    private static final String[] BYTECODE_MODULES = {
+            "com.fasterxml.jackson.module.blackbird.BlackbirdModule",
+            "com.fasterxml.jackson.module.afterburner.AfterburnerModule"
+    };
+
+    private static final ObjectMapperRegistry shared = new ObjectMapperRegistry(Profile.fromProperty());
+
+    public enum Profile {
+
+        /**
+         * Reflection-based serialization.
+         */
+        DEFAULT,
+
+        /**
+         * Serialization through generated bytecode, if the Blackbird or Afterburner
+         * module is on the classpath, with the serializers of handler method
+         * return types created at startup.
+         */
+        PERFORMANCE;
+
+        static Profile fromProperty() {
+            return forName(System.getProperty(PROFILE_PROPERTY));
+        }
+
+        /**
+         * Return the profile of the given case-insensitive name, or {@link #DEFAULT}
+         * if the name is {@code null} or names no profile.
+         */
+        static Profile forName(@Nullable String name) {
+            if (name == null) {
+                return DEFAULT;
+            }
+            for (Profile profile : values()) {
+                if (profile.name().equalsIgnoreCase(name.trim())) {
+                    return profile;
+                }
+            }
+            Logger.warn("Unknown {} '{}', expected one of {}, using {}", PROFILE_PROPERTY, name,
+                    Arrays.toString(values()), DEFAULT);
+            return DEFAULT;
+        }
+    }
+
+    private volatile Profile profile;
+
+    @Nullable
+    private volatile ObjectMapper objectMapper;
+
+    public ObjectMapperRegistry(Profile profile) {
+        Assert.notNull(profile, "Profile must not be null");
+        this.profile = profile;
+    }
+
+    /**
+     * Return the registry shared by the components of all services.
+     */
+    public static ObjectMapperRegistry getShared() {
+        return shared;
+    }
+
+    public Profile getProfile() {
+        return this.profile;
+    }
+
+    /**
+     * Set the profile; the next call of {@link #getObjectMapper()} creates a new mapper.
+     */
+    public synchronized void setProfile(Profile profile) {
+        Assert.notNull(profile, "Profile must not be null");
+        this.profile = profile;
+        this.objectMapper = null;
+    }
+
+    /**
+     * Replace the mapper, e.g. with one configured by the application.
+     */
+    public void setObjectMapper(ObjectMapper objectMapper) {
+        Assert.notNull(objectMapper, "ObjectMapper must not be null");
+        this.objectMapper = objectMapper;
+    }
+
+    public ObjectMapper getObjectMapper() {
+        ObjectMapper objectMapper = this.objectMapper;
+        if (objectMapper == null) {
+            synchronized (this) {
+                objectMapper = this.objectMapper;
+                if (objectMapper == null) {
+                    objectMapper = createObjectMapper(this.profile);
+                    this.objectMapper = objectMapper;
+                }
+            }
+        }
+        return objectMapper;
+    }
+
+    /**
+     * Create the serializers of the given types up front, so that the first
+     * request returning them is not slowed down by introspection.
+     */
+    public void prewarm(Collection<? extends Type> types) {
+        ObjectMapper objectMapper = getObjectMapper();
+        for (Type type : types) {
+            prewarm(objectMapper, objectMapper.getTypeFactory().constructType(type));
+        }
+    }
+
+    private void prewarm(ObjectMapper objectMapper, @Nullable JavaType type) {
+        if (type == null || type.isPrimitive() || type.hasRawClass(Object.class) || type.hasRawClass(Void.class)) {
+            return;
+        }
+        if (!objectMapper.canSerialize(type.getRawClass())) {
+            Logger.debug("No serializer for {}", type);
+        }
+        prewarm(objectMapper, type.getKeyType());
+        prewarm(objectMapper, type.getContentType());
+    }
+
+    protected ObjectMapper createObjectMapper(Profile profile) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        objectMapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+        objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
+        if (profile == Profile.PERFORMANCE && !registerBytecodeModule(objectMapper)) {
+            Logger.warn("Neither Blackbird nor Afterburner is on the classpath, serializing through reflection");
+        }
+        return objectMapper;
+    }
+
+    private static boolean registerBytecodeModule(ObjectMapper objectMapper) {
+        ClassLoader classLoader = ObjectMapperRegistry.class.getClassLoader();
+        for (String moduleClassName : BYTECODE_MODULES) {
+            if (ClassUtils.isPresent(moduleClassName, classLoader)) {
+                Class<?> moduleClass = ClassUtils.resolveClassName(moduleClassName, classLoader);
+                objectMapper.registerModule((Module) BeanUtils.instantiateClass(moduleClass));
+                return true;
+            }
+        }
+        return false;
+    }
+}
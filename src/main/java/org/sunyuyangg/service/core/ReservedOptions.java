@@ -0,0 +1,51 @@
+package org.sunyuyangg.service.core;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Names of the options the framework adds to every option mapping that does
+ * not declare an option of the same name itself. Reserved options are optional,
+ * take one value, are left out of the help text and are not bound to handler
+ * method parameters; see {@link DispatchContext#getReservedOption(String)}.
+ */
+public abstract class ReservedOptions {
+
+    /**
+     * Name of the format to render the result in, e.g. {@code JSON}, {@code STAF} or {@code CSV}.
+     */
+    public static final String FORMAT = "FORMAT";
+
+    /**
+     * Comma-separated property paths to render of the result, e.g. {@code name,size.total}.
+     */
+    public static final String FIELDS = "FIELDS";
+
+    /**
+     * Condition the elements of a collection result must match to be rendered,
+     * e.g. {@code size >= 4 and name != 'dev1'}. Like any option value, an
+     * expression of several tokens must be passed as one value, quoted as in
+     * {@code WHERE "size >= 4"} or length delimited as in {@code WHERE :9:size >= 4}.
+     */
+    public static final String WHERE = "WHERE";
+
+    /**
+     * Maximum number of elements of a collection result to render; the rest is
+     * kept for later requests under the cursor rendered with the page.
+     */
+    public static final String PAGESIZE = "PAGESIZE";
+
+    /**
+     * Cursor of the next page of a result paged with {@link #PAGESIZE}, as rendered with the previous page.
+     */
+    public static final String CURSOR = "CURSOR";
+
+    /**
+     * The reserved options added by default.
+     */
+    public static final List<String> DEFAULTS = Collections.unmodifiableList(Arrays.asList(FORMAT, FIELDS, WHERE, PAGESIZE, CURSOR));
+
+    private ReservedOptions() {
+    }
+}
@@ -0,0 +1,37 @@
+package org.sunyuyangg.service.core;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Strategy transforming the successful result of a handler before it is
+ * rendered by the {@link View}, e.g. driven by {@link ReservedOptions reserved
+ * options} of the request. Processors are applied in their
+ * {@link org.springframework.core.Ordered order}; string results are not processed.
+ */
+public interface ResultProcessor {
+
+    /**
+     * Return the result to render instead of the given one, or the given result unchanged.
+     */
+    @Nullable
+    Object process(Object result, DispatchContext context) throws Exception;
+
+    /**
+     * Return a result kept by this processor for an earlier request, e.g. the
+     * next page of a paged result, to render without invoking the handler, or
+     * {@code null} to invoke it. A kept result is only passed to the processors
+     * ordered after this one.
+     */
+    @Nullable
+    default Object getKeptResult(DispatchContext context) throws Exception {
+        return null;
+    }
+
+    /**
+     * Release whatever this processor kept for the given result, e.g. the
+     * remainder of a paged result, as a later processor or the {@link View}
+     * failed on it and the requester never receives it.
+     */
+    default void discardResult(Object result, DispatchContext context) {
+    }
+}
@@ -1,25 +1,14 @@
 package org.sunyuyangg.service.core;
 
-import com.fasterxml.jackson.core.JsonFactory;
-import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 
 public class Util {
 
-    private static ObjectMapper objectMapper;
-
+    /**
+     * Return the mapper of the shared {@link ObjectMapperRegistry}.
+     */
     public static ObjectMapper objectMapper() {
-        if(objectMapper == null) {
-            JsonFactory jsonFactory = new JsonFactory();
-            jsonFactory.enable(JsonParser.Feature.ALLOW_SINGLE_QUOTES);
-            objectMapper = new ObjectMapper();
-            objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-            objectMapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
-            objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
-        }
-        return objectMapper;
+        return ObjectMapperRegistry.getShared().getObjectMapper();
     }
 
     public static String getActionStr(String request) {
@@ -5,5 +5,5 @@ import com.ibm.staf.STAFResult;
 import org.sunyuyangg.service.core.adapter.ModelAndView;
 
 public interface View {
-    void render(ModelAndView model, STAFResult response);
+    void render(ModelAndView model, DispatchContext context, STAFResult response);
 }
@@ -0,0 +1,21 @@
+package org.sunyuyangg.service.core;
+
+import org.springframework.lang.Nullable;
+import org.sunyuyangg.service.core.handler.HandlerMethod;
+
+/**
+ * Strategy resolving the {@link View} that renders the results of a handler in
+ * a named format, requested with the {@link ReservedOptions#FORMAT} option or
+ * declared with {@link org.sunyuyangg.service.core.annotation.ResponseFormat}.
+ * Resolvers are asked in order; the first view returned is used and cached
+ * per handler and format.
+ */
+public interface ViewResolver {
+
+    /**
+     * Return the view for the given upper-case format and handler, or {@code null}
+     * to let the next resolver decide.
+     */
+    @Nullable
+    View resolveView(String format, HandlerMethod handler) throws Exception;
+}
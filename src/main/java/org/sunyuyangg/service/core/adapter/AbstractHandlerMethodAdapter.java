@@ -2,9 +2,9 @@ package org.sunyuyangg.service.core.adapter;
 
 
 import com.ibm.staf.STAFResult;
+import org.sunyuyangg.service.core.DispatchContext;
 import org.sunyuyangg.service.core.HandlerAdapter;
 import org.sunyuyangg.service.core.handler.HandlerMethod;
-import org.sunyuyangg.service.core.handler.ServiceRequest;
 
 public abstract class AbstractHandlerMethodAdapter implements HandlerAdapter {
 
@@ -16,9 +16,9 @@ public abstract class AbstractHandlerMethodAdapter implements HandlerAdapter {
     protected abstract boolean supportsInternal(HandlerMethod handlerMethod);
 
     @Override
-    public ModelAndView handle(ServiceRequest request, STAFResult response, Object handler) throws Exception {
-        return handleInternal(request, response, (HandlerMethod) handler);
+    public ModelAndView handle(DispatchContext context, STAFResult response, Object handler) throws Exception {
+        return handleInternal(context, response, (HandlerMethod) handler);
     }
 
-    protected abstract ModelAndView handleInternal(ServiceRequest request, STAFResult response, HandlerMethod handlerMethod) throws Exception;
+    protected abstract ModelAndView handleInternal(DispatchContext context, STAFResult response, HandlerMethod handlerMethod) throws Exception;
 }
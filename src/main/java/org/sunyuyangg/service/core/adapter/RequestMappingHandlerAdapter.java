@@ -9,13 +9,19 @@ import org.springframework.beans.factory.BeanFactoryAware;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.lang.Nullable;
+import org.sunyuyangg.service.core.DispatchContext;
+import org.sunyuyangg.service.core.handler.ArgumentBindingPlan;
 import org.sunyuyangg.service.core.handler.HandlerMethod;
 import org.sunyuyangg.service.core.handler.ServiceInvocableHandlerMethod;
 import org.sunyuyangg.service.core.handler.ServiceRequest;
+import org.sunyuyangg.service.core.method.MappingInfo;
 import org.sunyuyangg.service.core.support.*;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter
@@ -25,6 +31,10 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter
     private ConfigurableBeanFactory beanFactory;
     private HandlerMethodArgumentResolverComposite argumentResolvers;
     private List<HandlerMethodArgumentResolver> customArgumentResolvers;
+    @Nullable
+    private Path fileOptionRootDirectory;
+    private final Map<HandlerMethod, ArgumentBindingPlan> argumentBindingPlanCache = new ConcurrentHashMap<>(64);
+    private final Map<HandlerMethod, ServiceInvocableHandlerMethod> invocableHandlerMethodCache = new ConcurrentHashMap<>(64);
 
     @Override
     protected boolean supportsInternal(HandlerMethod handlerMethod) {
@@ -58,15 +68,21 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter
      */
     private List<HandlerMethodArgumentResolver> getDefaultArgumentResolvers() {
         List<HandlerMethodArgumentResolver> resolvers = new ArrayList<>();
+        // Annotation-based argument resolution
+        resolvers.add(new FileHandlerMethodArgumentResolver(getFileOptionRootDirectory()));
+        resolvers.add(new JsonHandlerMethodArgumentResolver(false));
+        resolvers.add(new MarshalledHandlerMethodArgumentResolver());
+        // Type-based argument resolution
         resolvers.add(new PrimaryHandlerMethodArgumentResolver());
         resolvers.add(new StringHandlerMethodArgumentResolver());
         resolvers.add(new OptionTimesHandlerMethodArgumentResolver());
-        resolvers.add(new JsonHandlerMethodArgumentResolver());
         resolvers.add(new EnumHandlerMethodArgumentResolver());
         // Custom arguments
         if (getCustomArgumentResolvers() != null) {
             resolvers.addAll(getCustomArgumentResolvers());
         }
+        // Catch-all
+        resolvers.add(new JsonHandlerMethodArgumentResolver(true));
         return resolvers;
     }
 
@@ -83,24 +99,93 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter
     }
 
 
+    /**
+     * Set the directory that the paths of {@link org.sunyuyangg.service.core.annotation.FileOption}
+     * parameters are resolved against. Default is none, rejecting all file options.
+     */
+    public void setFileOptionRootDirectory(@Nullable Path fileOptionRootDirectory) {
+        this.fileOptionRootDirectory = fileOptionRootDirectory;
+    }
+
+    @Nullable
+    public Path getFileOptionRootDirectory() {
+        return this.fileOptionRootDirectory;
+    }
+
     @Override
-    protected ModelAndView handleInternal(ServiceRequest request, STAFResult response, HandlerMethod handlerMethod) throws Exception {
+    protected ModelAndView handleInternal(DispatchContext context, STAFResult response, HandlerMethod handlerMethod) throws Exception {
         ModelAndView mav;
-        mav = invokeHandlerMethod(request, response, handlerMethod);
+        mav = invokeHandlerMethod(context, response, handlerMethod);
         return mav;
     }
 
-    private ModelAndView invokeHandlerMethod(ServiceRequest request, STAFResult response, HandlerMethod handlerMethod) throws Exception {
+    /**
+     * Compile the argument binding plan of the handler method, failing for
+     * parameters an argument resolver rejects, e.g. a primitive type without converter.
+     */
+    @Override
+    public void prepare(Object handler, MappingInfo mapping) throws Exception {
+        getInvocableHandlerMethod((HandlerMethod) handler, mapping);
+    }
 
-        ServiceInvocableHandlerMethod invocableMethod = createInvocableHandlerMethod(handlerMethod);
-        if (this.argumentResolvers != null) {
-            invocableMethod.setHandlerMethodArgumentResolvers(this.argumentResolvers);
+    private ModelAndView invokeHandlerMethod(DispatchContext context, STAFResult response, HandlerMethod handlerMethod) throws Exception {
+        ServiceRequest<?> request = context.getServiceRequest();
+        ServiceInvocableHandlerMethod invocableMethod = getInvocableHandlerMethod(handlerMethod, request.getMapping());
+        if (invocableMethod.getArgumentBindingPlan().isLocalRequestRequired() && !context.getRequest().isLocalRequest) {
+            throw new Exception("Options bound from files are only accepted from the local machine");
         }
         ModelAndView modelAndView = new ModelAndView();
         invocableMethod.invokeAndHandle(request, modelAndView);
         return modelAndView;
     }
 
+    @Override
+    public void release(Object handler) {
+        if (handler instanceof HandlerMethod) {
+            this.argumentBindingPlanCache.remove(handler);
+            this.invocableHandlerMethodCache.remove(handler);
+        }
+    }
+
+    /**
+     * Return the invocable for the given handler method, with resolvers and argument
+     * binding plan in place. The invocable of a singleton bean is created once per
+     * registered handler method and shared by all requests; for other beans, e.g.
+     * prototypes, a new invocable targets the bean resolved for the request, and
+     * only the binding plan is cached.
+     */
+    ServiceInvocableHandlerMethod getInvocableHandlerMethod(HandlerMethod handlerMethod, MappingInfo mapping) {
+        HandlerMethod registered = (handlerMethod.getResolvedFromHandlerMethod() != null ?
+                handlerMethod.getResolvedFromHandlerMethod() : handlerMethod);
+        ServiceInvocableHandlerMethod invocableMethod = this.invocableHandlerMethodCache.get(registered);
+        if (invocableMethod != null && invocableMethod.getBean() == handlerMethod.getBean() &&
+                invocableMethod.getArgumentBindingPlan().getMapping() == mapping) {
+            return invocableMethod;
+        }
+        invocableMethod = createInvocableHandlerMethod(handlerMethod);
+        if (this.argumentResolvers != null) {
+            invocableMethod.setHandlerMethodArgumentResolvers(this.argumentResolvers);
+        }
+        ArgumentBindingPlan plan = this.argumentBindingPlanCache.get(registered);
+        if (plan == null || plan.getMapping() != mapping) {
+            // Not compiled yet, or compiled for a mapping since registered again
+            plan = invocableMethod.createArgumentBindingPlan(mapping);
+            this.argumentBindingPlanCache.put(registered, plan);
+        }
+        invocableMethod.setArgumentBindingPlan(plan);
+        if (isSingleton(registered)) {
+            this.invocableHandlerMethodCache.put(registered, invocableMethod);
+        }
+        return invocableMethod;
+    }
+
+    /**
+     * Whether every request of the registered handler method resolves the same bean.
+     */
+    private boolean isSingleton(HandlerMethod registered) {
+        Object bean = registered.getBean();
+        return (!(bean instanceof String) || (this.beanFactory != null && this.beanFactory.isSingleton((String) bean)));
+    }
 
     private ServiceInvocableHandlerMethod createInvocableHandlerMethod(HandlerMethod handlerMethod) {
         return new ServiceInvocableHandlerMethod(handlerMethod);
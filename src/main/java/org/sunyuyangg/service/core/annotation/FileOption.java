@@ -0,0 +1,23 @@
+package org.sunyuyangg.service.core.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Bind the handler method parameter from the file its option refers to,
+ * optionally prefixed with {@code FILE:}, instead of from the option value itself.
+ * The file is memory-mapped, so large inputs are not copied through the request.
+ *
+ * <p>Paths are resolved against the root directory configured with
+ * {@code RequestMappingHandlerAdapter#setFileOptionRootDirectory}, without which
+ * file options are rejected, and only requests from the local machine are accepted.
+ */
+@Target({ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface FileOption {
+
+    /**
+     * The charset of the file, used for {@code Reader} parameters.
+     */
+    String charset() default "UTF-8";
+}
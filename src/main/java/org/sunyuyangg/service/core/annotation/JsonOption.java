@@ -0,0 +1,14 @@
+package org.sunyuyangg.service.core.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Bind the handler method parameter from the JSON value of its option, even
+ * when its type would otherwise be bound as a plain value, e.g. a {@code List}
+ * read from one JSON array instead of a repeated option.
+ */
+@Target({ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface JsonOption {
+}
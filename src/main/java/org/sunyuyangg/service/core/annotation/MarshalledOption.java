@@ -0,0 +1,14 @@
+package org.sunyuyangg.service.core.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Bind the handler method parameter from the STAF marshalled value
+ * ({@code @SDT/...}) of its option, mapping map class instances to beans
+ * property by property.
+ */
+@Target({ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface MarshalledOption {
+}
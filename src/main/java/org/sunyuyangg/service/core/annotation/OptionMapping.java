@@ -15,6 +15,12 @@ public @interface OptionMapping {
 
     boolean caseSensitive() default false;
 
+    /**
+     * The options of the command. Requests are routed by their first two tokens,
+     * which must be the handler name (e.g. {@code QUERY} for {@code QueryController})
+     * followed by the first option declared here; the other options may follow
+     * in any order. A mapping must declare at least one option.
+     */
     Option[] options();
 
     OptionGroup[] optionGroup() ;
@@ -0,0 +1,16 @@
+package org.sunyuyangg.service.core.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Bind the handler method parameter from all values of its repeated option,
+ * e.g. {@code ID 1 ID 2} into a {@code long[]}, a {@code Set<Integer>} or, from
+ * {@code KEY=VALUE} values, a {@code Map}. Only {@code List} parameters are
+ * bound this way without the annotation; arrays, other collections and maps
+ * are otherwise read from the JSON value of their option.
+ */
+@Target({ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface OptionTimes {
+}
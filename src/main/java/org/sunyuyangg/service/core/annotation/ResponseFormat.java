@@ -0,0 +1,19 @@
+package org.sunyuyangg.service.core.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Select the format the result of a handler method is rendered in, by the
+ * name of a view registered with the dispatcher, e.g. {@link #STAF}.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ResponseFormat {
+
+    String JSON = "JSON";
+
+    String STAF = "STAF";
+
+    String value();
+}
@@ -1,11 +1,11 @@
 package org.sunyuyangg.service.core.handler;
 
 
-import com.ibm.staf.service.STAFServiceInterfaceLevel30.*;
 import org.springframework.beans.factory.BeanNameAware;
 import org.springframework.context.support.ApplicationObjectSupport;
 import org.springframework.core.Ordered;
 import org.springframework.lang.Nullable;
+import org.sunyuyangg.service.core.DispatchContext;
 import org.sunyuyangg.service.core.HandlerMapping;
 
 public abstract class AbstractHandlerMapping extends ApplicationObjectSupport implements HandlerMapping, Ordered, BeanNameAware {
@@ -20,8 +20,8 @@ public abstract class AbstractHandlerMapping extends ApplicationObjectSupport im
 
 
     @Override
-    public HandlerMethod getHandler(RequestInfo request) throws Exception {
-        Object handler = getHandlerInternal(request);
+    public HandlerMethod getHandler(DispatchContext context) throws Exception {
+        Object handler = getHandlerInternal(context);
         if (handler == null) {
             handler = getDefaultHandler();
         }
@@ -38,7 +38,11 @@ public abstract class AbstractHandlerMapping extends ApplicationObjectSupport im
         return (HandlerMethod) handler;
     }
 
-    abstract protected Object getHandlerInternal(RequestInfo request) throws Exception;
+    /**
+     * Look up a handler for the request of the given context, binding the
+     * request-scoped parse result to the context rather than to the handler.
+     */
+    abstract protected Object getHandlerInternal(DispatchContext context) throws Exception;
 
     /**
      * Set the default handler for this handler mapping.
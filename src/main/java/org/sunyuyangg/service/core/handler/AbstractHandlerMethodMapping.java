@@ -8,14 +8,11 @@ import org.springframework.beans.factory.InitializingBean;
 import org.springframework.core.MethodIntrospector;
 import org.springframework.lang.Nullable;
 import org.springframework.util.*;
-import org.sunyuyangg.service.core.method.OptionMappingInfo;
-import org.sunyuyangg.service.core.method.OptionMappingServiceRequest;
+import org.sunyuyangg.service.core.DispatchContext;
 
 import java.lang.reflect.Method;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.ReentrantLock;
 
 public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMapping implements InitializingBean {
 
@@ -70,12 +67,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
      * Return a (read-only) map with all mappings and HandlerMethod's.
      */
     public Map<T, HandlerMethod> getHandlerMethods() {
-        this.mappingRegistry.acquireReadLock();
-        try {
-            return Collections.unmodifiableMap(this.mappingRegistry.getMappings());
-        } finally {
-            this.mappingRegistry.releaseReadLock();
-        }
+        return this.mappingRegistry.getSnapshot().getMappings();
     }
 
     /**
@@ -107,36 +99,43 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
     }
 
     @Override
-    protected Object getHandlerInternal(STAFServiceInterfaceLevel30.RequestInfo request) throws Exception {
-        String lookupPath = getMappingPath(request);
-        this.mappingRegistry.acquireReadLock();
-        try {
-            HandlerMethod handlerMethod = lookupHandlerMethod(lookupPath, request);
-            return (handlerMethod != null ? handlerMethod.createWithResolvedBean() : null);
-        } finally {
-            this.mappingRegistry.releaseReadLock();
-        }
+    public boolean hasRoute(String request) {
+        return (getDefaultHandler() != null || this.mappingRegistry.getSnapshot().getRouteByRequest(request) != null);
     }
 
+    @Override
+    @Nullable
+    public Set<String> getRoutes() {
+        return (getDefaultHandler() == null ? this.mappingRegistry.getSnapshot().getPaths() : null);
+    }
 
-    private String getMappingPath(STAFServiceInterfaceLevel30.RequestInfo requestInfo) throws Exception {
-        String[] commands = requestInfo.request.split(" ");
-        if (commands.length < 2) {
-            throw new Exception("request format is wrong!");
-        }
-        return Arrays.asList(commands).stream().limit(2).map(String::toUpperCase).collect(Collectors.joining("#"));
+    @Override
+    public long getRegistryVersion() {
+        return this.mappingRegistry.getSnapshot().getVersion();
     }
 
-    private HandlerMethod lookupHandlerMethod(String lookupPath, STAFServiceInterfaceLevel30.RequestInfo request) throws Exception {
-        List<Match> matches = new ArrayList<>();
-        List<T> directPathMatches = this.mappingRegistry.getMappingsByPath(lookupPath);
-        if (directPathMatches != null) {
-            addMatchingMappings(directPathMatches, matches, request);
+    @Override
+    protected Object getHandlerInternal(DispatchContext context) throws Exception {
+        HandlerMethod handlerMethod = lookupHandlerMethod(this.mappingRegistry.getSnapshot(), context);
+        return (handlerMethod != null ? handlerMethod.createWithResolvedBean() : null);
+    }
+
+    private HandlerMethod lookupHandlerMethod(RegistrySnapshot<T> snapshot, DispatchContext context) throws Exception {
+        STAFServiceInterfaceLevel30.RequestInfo request = context.getRequest();
+        MappingPathIndex.Route<T> route = snapshot.getRouteByRequest(request.request);
+        if (route == null) {
+            // No route for the leading tokens: don't parse the request against every mapping
+            return handleNoMatch(snapshot.getMappings().keySet(), request);
         }
 
-        if (matches.isEmpty()) {
-            // No choice but to go through all mappings...
-            addMatchingMappings(this.mappingRegistry.getMappings().keySet(), matches, request);
+        List<Match> matches = new ArrayList<>();
+        List<T> candidates = route.getCandidates(request.request);
+        Exception failure = addMatchingMappings(candidates, matches, request, snapshot, null);
+        if (matches.isEmpty() && candidates.size() < route.getMappings().size()) {
+            // Candidate selection is a heuristic (an option name may also be a value or an argument),
+            // so give the mappings it ruled out a chance before reporting no match
+            Exception otherFailure = addMatchingMappings(route.getMappings(), matches, request, snapshot, candidates);
+            failure = (failure != null ? failure : otherFailure);
         }
 
         if (!matches.isEmpty()) {
@@ -152,12 +151,13 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
                 throw new IllegalStateException(
                         "Ambiguous handler methods mapped for '" + path + "': {" + m1 + ", " + m2 + "}");
             }
-            // todo
-            ServiceRequest serviceRequest = new OptionMappingServiceRequest((OptionMappingInfo) bestMatch.mapping);
-            bestMatch.handlerMethod.setServiceRequest(serviceRequest);
+            context.setServiceRequest(bestMatch.serviceRequest);
             return bestMatch.handlerMethod;
+        } else if (failure != null) {
+            // Report why the most likely mapping rejected the request
+            throw failure;
         } else {
-            return handleNoMatch(this.mappingRegistry.getMappings().keySet(), request);
+            return handleNoMatch(snapshot.getMappings().keySet(), request);
         }
     }
 
@@ -166,17 +166,49 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
         return null;
     }
 
-    private void addMatchingMappings(Collection<T> mappings, List<Match> matches, STAFServiceInterfaceLevel30.RequestInfo request) throws Exception {
+    /**
+     * Match the request against the given mappings, skipping the excluded ones.
+     *
+     * @return the first exception thrown by a mapping rejecting the request, or {@code null}
+     */
+    @Nullable
+    private Exception addMatchingMappings(Collection<T> mappings, List<Match> matches, STAFServiceInterfaceLevel30.RequestInfo request,
+                                         RegistrySnapshot<T> snapshot, @Nullable Collection<T> excluded) {
+        Exception failure = null;
         for (T mapping : mappings) {
-            T match = getMatchingMapping(mapping, request);
-            if (match != null) {
-                matches.add(new Match(match, this.mappingRegistry.getMappings().get(mapping)));
+            if (excluded != null && excluded.contains(mapping)) {
+                continue;
+            }
+            try {
+                ServiceRequest match = getMatchingMapping(mapping, request);
+                if (match != null) {
+                    matches.add(new Match(mapping, match, snapshot.getMappings().get(mapping)));
+                }
+            } catch (Exception ex) {
+                // A rejected request must not stop the other mappings of the route from matching
+                if (failure == null) {
+                    failure = ex;
+                }
             }
         }
+        return failure;
     }
 
-    protected abstract T getMatchingMapping(T mapping, STAFServiceInterfaceLevel30.RequestInfo request) throws Exception;
+    /**
+     * Check if the mapping matches the request and return the request-scoped
+     * match (parse result and mapping), or {@code null} if it does not match.
+     * The mapping itself is shared and must not be modified.
+     */
+    @Nullable
+    protected abstract ServiceRequest getMatchingMapping(T mapping, STAFServiceInterfaceLevel30.RequestInfo request) throws Exception;
+
 
+    /**
+     * Return the internal mapping registry. Provided for testing purposes.
+     */
+    MappingRegistry getMappingRegistry() {
+        return this.mappingRegistry;
+    }
 
     protected void registerHandlerMethod(Object handler, Method method, T mapping) {
         this.mappingRegistry.register(mapping, handler, method);
@@ -203,10 +235,24 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
     protected abstract boolean isHandler(Class<?> beanType);
 
     /**
-     * Extract and return the URL paths contained in a mapping.
+     * Extract and return the route path contained in a mapping: its leading
+     * tokens joined with {@link MappingPathIndex#PATH_SEPARATOR}.
      */
     protected abstract String getMappingPath(T mapping);
 
+    /**
+     * Compile the selector narrowing down the candidates of a route shared by
+     * the given mappings. Invoked whenever the registry changes.
+     * <p>The default implementation returns {@code null}: every mapping of the route is tried.
+     *
+     * @param mappings the mappings of one route, in registration order
+     * @return the selector, or {@code null} to try all mappings
+     */
+    @Nullable
+    protected MappingCandidateSelector<T> createCandidateSelector(List<T> mappings) {
+        return null;
+    }
+
     public void setDetectHandlerMethodsInAncestorContexts(boolean detectHandlerMethodsInAncestorContexts) {
         this.detectHandlerMethodsInAncestorContexts = detectHandlerMethodsInAncestorContexts;
     }
@@ -247,6 +293,9 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
      * A registry that maintains all mappings to handler methods, exposing methods
      * to perform lookups and providing concurrent access.
      *
+     * <p>Readers never lock: every registration change builds a new immutable
+     * {@link RegistrySnapshot} and publishes it through a volatile reference.
+     *
      * <p>Package-private for testing purposes.
      */
     class MappingRegistry {
@@ -257,46 +306,51 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
         private final Map<T, HandlerMethod> mappingLookup = new LinkedHashMap<>();
 
-        private final Map<String, List<HandlerMethod>> nameLookup = new ConcurrentHashMap<>();
+        private final Map<String, List<HandlerMethod>> nameLookup = new HashMap<>();
+
+        private final ReentrantLock writeLock = new ReentrantLock();
 
-        private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+        private long version;
+
+        private volatile RegistrySnapshot<T> snapshot = new RegistrySnapshot<>(0,
+                MappingPathIndex.empty(), Collections.emptyMap(), Collections.emptyMap());
 
         /**
-         * Return all mappings and handler methods. Not thread-safe.
-         *
-         * @see #acquireReadLock()
+         * Return the current immutable view of the registry. Thread-safe for concurrent use.
          */
-        public Map<T, HandlerMethod> getMappings() {
-            return this.mappingLookup;
-        }
-
-        public List<T> getMappingsByPath(String path) {
-            return this.pathLookup.get(path);
+        public RegistrySnapshot<T> getSnapshot() {
+            return this.snapshot;
         }
 
         /**
-         * Return handler methods by mapping name. Thread-safe for concurrent use.
+         * Return all mappings and handler methods. Thread-safe for concurrent use.
          */
-        public List<HandlerMethod> getHandlerMethodsByMappingName(String mappingName) {
-            return this.nameLookup.get(mappingName);
+        public Map<T, HandlerMethod> getMappings() {
+            return this.snapshot.getMappings();
+        }
+
+        public List<T> getMappingsByPath(String path) {
+            return this.snapshot.getMappingsByPath(path);
         }
 
         /**
-         * Acquire the read lock when using getMappings and getMappingsByUrl.
+         * Return the mappings routed by the leading tokens of the given request,
+         * or {@code null} if there is no such route.
          */
-        public void acquireReadLock() {
-            this.readWriteLock.readLock().lock();
+        @Nullable
+        public List<T> getMappingsByRequest(String request) {
+            return this.snapshot.getMappingsByRequest(request);
         }
 
         /**
-         * Release the read lock after using getMappings and getMappingsByUrl.
+         * Return handler methods by mapping name. Thread-safe for concurrent use.
          */
-        public void releaseReadLock() {
-            this.readWriteLock.readLock().unlock();
+        public List<HandlerMethod> getHandlerMethodsByMappingName(String mappingName) {
+            return this.snapshot.getHandlerMethodsByMappingName(mappingName);
         }
 
         public void register(T mapping, Object handler, Method method) {
-            this.readWriteLock.writeLock().lock();
+            this.writeLock.lock();
             try {
                 HandlerMethod handlerMethod = createHandlerMethod(mapping, handler, method);
                 assertUniqueMethodMapping(handlerMethod, mapping);
@@ -314,8 +368,9 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
                 registerHelp(mapping);
 
                 this.registry.put(mapping, new MappingRegistration<>(mapping, handlerMethod, name));
+                publishSnapshot();
             } finally {
-                this.readWriteLock.writeLock().unlock();
+                this.writeLock.unlock();
             }
         }
 
@@ -344,11 +399,11 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
             List<HandlerMethod> newList = new ArrayList<>(oldList.size() + 1);
             newList.addAll(oldList);
             newList.add(handlerMethod);
-            this.nameLookup.put(name, newList);
+            this.nameLookup.put(name, Collections.unmodifiableList(newList));
         }
 
         public void unregister(T mapping) {
-            this.readWriteLock.writeLock().lock();
+            this.writeLock.lock();
             try {
                 MappingRegistration<T> definition = this.registry.remove(mapping);
                 if (definition == null) {
@@ -356,10 +411,20 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
                 }
 
                 this.mappingLookup.remove(definition.getMapping());
+                removeMappingPath(definition.getMapping());
 
                 removeMappingName(definition);
+                publishSnapshot();
             } finally {
-                this.readWriteLock.writeLock().unlock();
+                this.writeLock.unlock();
+            }
+        }
+
+        private void removeMappingPath(T mapping) {
+            String path = getMappingPath(mapping);
+            List<T> mappings = this.pathLookup.get(path);
+            if (mappings != null && mappings.remove(mapping) && mappings.isEmpty()) {
+                this.pathLookup.remove(path);
             }
         }
 
@@ -383,7 +448,76 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
                     newList.add(current);
                 }
             }
-            this.nameLookup.put(name, newList);
+            this.nameLookup.put(name, Collections.unmodifiableList(newList));
+        }
+
+        /**
+         * Build a new snapshot from the current registrations and publish it.
+         * Must be called while holding the write lock.
+         */
+        private void publishSnapshot() {
+            MappingPathIndex<T> pathIndex = new MappingPathIndex<>(this.pathLookup,
+                    mappings -> createCandidateSelector(mappings));
+            this.snapshot = new RegistrySnapshot<>(++this.version, pathIndex,
+                    new LinkedHashMap<>(this.mappingLookup), new HashMap<>(this.nameLookup));
+        }
+    }
+
+    /**
+     * An immutable view of the {@link MappingRegistry}: path index,
+     * mapping to HandlerMethod lookup and name lookup, all from the same registration state.
+     */
+    protected static class RegistrySnapshot<T> {
+
+        private final long version;
+
+        private final MappingPathIndex<T> pathIndex;
+
+        private final Map<T, HandlerMethod> mappingLookup;
+
+        private final Map<String, List<HandlerMethod>> nameLookup;
+
+        RegistrySnapshot(long version, MappingPathIndex<T> pathIndex, Map<T, HandlerMethod> mappingLookup,
+                         Map<String, List<HandlerMethod>> nameLookup) {
+            this.version = version;
+            this.pathIndex = pathIndex;
+            this.mappingLookup = Collections.unmodifiableMap(mappingLookup);
+            this.nameLookup = Collections.unmodifiableMap(nameLookup);
+        }
+
+        /**
+         * Return the number of registry changes this snapshot reflects.
+         */
+        public long getVersion() {
+            return this.version;
+        }
+
+        public Map<T, HandlerMethod> getMappings() {
+            return this.mappingLookup;
+        }
+
+        public Set<String> getPaths() {
+            return this.pathIndex.getPaths();
+        }
+
+        @Nullable
+        public List<T> getMappingsByPath(String path) {
+            return this.pathIndex.get(path);
+        }
+
+        @Nullable
+        public List<T> getMappingsByRequest(String request) {
+            return this.pathIndex.lookup(request);
+        }
+
+        @Nullable
+        public MappingPathIndex.Route<T> getRouteByRequest(String request) {
+            return this.pathIndex.getRoute(request);
+        }
+
+        @Nullable
+        public List<HandlerMethod> getHandlerMethodsByMappingName(String mappingName) {
+            return this.nameLookup.get(mappingName);
         }
     }
 
@@ -427,10 +561,13 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
         public final T mapping;
 
+        public final ServiceRequest serviceRequest;
+
         public final HandlerMethod handlerMethod;
 
-        public Match(T mapping, HandlerMethod handlerMethod) {
+        public Match(T mapping, ServiceRequest serviceRequest, HandlerMethod handlerMethod) {
             this.mapping = mapping;
+            this.serviceRequest = serviceRequest;
             this.handlerMethod = handlerMethod;
         }
 
@@ -0,0 +1,167 @@
+package org.sunyuyangg.service.core.handler;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.lang.Nullable;
+import org.sunyuyangg.service.core.annotation.FileOption;
+import org.sunyuyangg.service.core.method.MappingInfo;
+import org.sunyuyangg.service.core.method.parser.CommandParseResult;
+import org.sunyuyangg.service.core.support.HandlerMethodArgumentResolver;
+import org.sunyuyangg.service.core.support.HandlerMethodArgumentResolverComposite;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * How the arguments of one {@link HandlerMethod} are bound, compiled once from
+ * its parameters, its mapping and the configured argument resolvers.
+ *
+ * <p>Each parameter slot has its name discovered up front and either a fixed
+ * resolver, when the resolver found first only depends on the parameter
+ * (see {@link HandlerMethodArgumentResolver#isParameterBased()}) and is then
+ * {@link HandlerMethodArgumentResolver#bindTo bound} to it, or the ordered
+ * resolvers to ask per request. Nullable parameters are recorded in a bitmask,
+ * together with their default value: {@code null}, or zero for primitive types.
+ * It is bound when their option is absent, without asking a resolver, except for
+ * strings and containers, which resolvers bind to empty values, and when no
+ * resolver applies. Parameters bound
+ * from files restrict the handler method to local requests.
+ */
+public class ArgumentBindingPlan {
+
+    private final MappingInfo mapping;
+
+    private final MethodParameter[] parameters;
+
+    private final String[] parameterNames;
+
+    @Nullable
+    private final HandlerMethodArgumentResolver[] resolvers;
+
+    private final HandlerMethodArgumentResolver[][] candidates;
+
+    private final BitSet nullable;
+
+    private final BitSet defaultIfAbsent;
+
+    private final Object[] defaultValues;
+
+    private final boolean localRequestRequired;
+
+    public ArgumentBindingPlan(HandlerMethod handlerMethod, MappingInfo mapping,
+                               HandlerMethodArgumentResolverComposite argumentResolvers,
+                               ParameterNameDiscoverer parameterNameDiscoverer) {
+        this.mapping = mapping;
+        this.parameters = handlerMethod.getMethodParameters();
+        int count = this.parameters.length;
+        this.parameterNames = new String[count];
+        this.resolvers = new HandlerMethodArgumentResolver[count];
+        this.candidates = new HandlerMethodArgumentResolver[count][];
+        this.nullable = new BitSet(count);
+        this.defaultIfAbsent = new BitSet(count);
+        this.defaultValues = new Object[count];
+        List<HandlerMethodArgumentResolver> configured = argumentResolvers.getResolvers();
+        boolean fileOptions = false;
+        for (int i = 0; i < count; i++) {
+            MethodParameter parameter = this.parameters[i];
+            parameter.initParameterNameDiscovery(parameterNameDiscoverer);
+            this.parameterNames[i] = parameter.getParameterName();
+            fileOptions |= parameter.hasParameterAnnotation(FileOption.class);
+
+            List<HandlerMethodArgumentResolver> perRequest = new ArrayList<>();
+            for (HandlerMethodArgumentResolver resolver : configured) {
+                if (!resolver.isParameterBased()) {
+                    perRequest.add(resolver);
+                } else if (resolver.supportsParameter(parameter, null)) {
+                    if (perRequest.isEmpty()) {
+                        this.resolvers[i] = resolver.bindTo(parameter);
+                    } else {
+                        perRequest.add(resolver);
+                    }
+                    break;
+                }
+            }
+            this.candidates[i] = perRequest.toArray(new HandlerMethodArgumentResolver[0]);
+
+            if (mapping.isNullable(this.parameterNames[i])) {
+                this.nullable.set(i);
+                Class<?> type = parameter.getParameterType();
+                this.defaultValues[i] = (type.isPrimitive() && type != void.class ? Array.get(Array.newInstance(type, 1), 0) : null);
+                if (type != String.class && !type.isArray() && !Collection.class.isAssignableFrom(type) &&
+                        !Map.class.isAssignableFrom(type)) {
+                    this.defaultIfAbsent.set(i);
+                }
+            }
+        }
+        this.localRequestRequired = fileOptions;
+    }
+
+    /**
+     * Return the mapping this plan was compiled for.
+     */
+    public MappingInfo getMapping() {
+        return this.mapping;
+    }
+
+    public int getParameterCount() {
+        return this.parameters.length;
+    }
+
+    public MethodParameter getParameter(int index) {
+        return this.parameters[index];
+    }
+
+    public String getParameterName(int index) {
+        return this.parameterNames[index];
+    }
+
+    /**
+     * Return the resolver for the given slot and request, or {@code null} if none supports it.
+     */
+    @Nullable
+    public HandlerMethodArgumentResolver getResolver(int index, CommandParseResult parseResult) {
+        HandlerMethodArgumentResolver resolver = this.resolvers[index];
+        if (resolver != null) {
+            return resolver;
+        }
+        for (HandlerMethodArgumentResolver candidate : this.candidates[index]) {
+            if (candidate.supportsParameter(this.parameters[index], parseResult)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    public boolean isNullable(int index) {
+        return this.nullable.get(index);
+    }
+
+    /**
+     * Whether the handler method only accepts requests from the local machine,
+     * as it has {@link FileOption} parameters read from the local file system.
+     */
+    public boolean isLocalRequestRequired() {
+        return this.localRequestRequired;
+    }
+
+    /**
+     * Whether the given slot is bound to its {@link #getDefaultValue default value}
+     * when its option is absent, before asking a resolver.
+     */
+    public boolean isDefaultIfAbsent(int index) {
+        return this.defaultIfAbsent.get(index);
+    }
+
+    /**
+     * Return the value of a nullable slot whose option is absent or without
+     * resolver: {@code null}, or the default value of a primitive type.
+     */
+    @Nullable
+    public Object getDefaultValue(int index) {
+        return this.defaultValues[index];
+    }
+}
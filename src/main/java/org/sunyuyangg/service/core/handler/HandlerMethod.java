@@ -33,12 +33,12 @@ public class HandlerMethod {
 
     private final Method method;
 
-    private ServiceRequest serviceRequest;
-
     private final Method bridgedMethod;
 
     private final MethodParameter[] parameters;
 
+    private final HandlerMethodInvoker invoker;
+
     @Nullable
     private int responseStatus;
 
@@ -48,6 +48,12 @@ public class HandlerMethod {
     @Nullable
     private HandlerMethod resolvedFromHandlerMethod;
 
+    /**
+     * The copy returned by {@link #createWithResolvedBean()} if the bean is a singleton
+     */
+    @Nullable
+    private volatile HandlerMethod resolvedHandlerMethod;
+
 
 
     /**
@@ -62,6 +68,7 @@ public class HandlerMethod {
         this.method = method;
         this.bridgedMethod = BridgeMethodResolver.findBridgedMethod(method);
         this.parameters = initMethodParameters();
+        this.invoker = HandlerMethodInvoker.forMethod(this.bridgedMethod);
         evaluateResponseStatus();
     }
 
@@ -79,6 +86,7 @@ public class HandlerMethod {
         this.method = bean.getClass().getMethod(methodName, parameterTypes);
         this.bridgedMethod = BridgeMethodResolver.findBridgedMethod(this.method);
         this.parameters = initMethodParameters();
+        this.invoker = HandlerMethodInvoker.forMethod(this.bridgedMethod);
         evaluateResponseStatus();
     }
 
@@ -101,6 +109,7 @@ public class HandlerMethod {
         this.method = method;
         this.bridgedMethod = BridgeMethodResolver.findBridgedMethod(method);
         this.parameters = initMethodParameters();
+        this.invoker = HandlerMethodInvoker.forMethod(this.bridgedMethod);
         evaluateResponseStatus();
     }
 
@@ -110,12 +119,12 @@ public class HandlerMethod {
     protected HandlerMethod(HandlerMethod handlerMethod) {
         Assert.notNull(handlerMethod, "HandlerMethod is required");
         this.bean = handlerMethod.bean;
-        this.serviceRequest = handlerMethod.serviceRequest;
         this.beanFactory = handlerMethod.beanFactory;
         this.beanType = handlerMethod.beanType;
         this.method = handlerMethod.method;
         this.bridgedMethod = handlerMethod.bridgedMethod;
         this.parameters = handlerMethod.parameters;
+        this.invoker = handlerMethod.invoker;
         this.responseStatus = handlerMethod.responseStatus;
         this.responseStatusReason = handlerMethod.responseStatusReason;
         this.resolvedFromHandlerMethod = handlerMethod.resolvedFromHandlerMethod;
@@ -128,12 +137,12 @@ public class HandlerMethod {
         Assert.notNull(handlerMethod, "HandlerMethod is required");
         Assert.notNull(handler, "Handler object is required");
         this.bean = handler;
-        this.serviceRequest = handlerMethod.serviceRequest;
         this.beanFactory = handlerMethod.beanFactory;
         this.beanType = handlerMethod.beanType;
         this.method = handlerMethod.method;
         this.bridgedMethod = handlerMethod.bridgedMethod;
         this.parameters = handlerMethod.parameters;
+        this.invoker = handlerMethod.invoker;
         this.responseStatus = handlerMethod.responseStatus;
         this.responseStatusReason = handlerMethod.responseStatusReason;
         this.resolvedFromHandlerMethod = handlerMethod;
@@ -154,14 +163,6 @@ public class HandlerMethod {
     private void evaluateResponseStatus() {
     }
 
-    public ServiceRequest getServiceRequest() {
-        return serviceRequest;
-    }
-
-    public void setServiceRequest(ServiceRequest serviceRequest) {
-        this.serviceRequest = serviceRequest;
-    }
-
     /**
      * Return the bean for this handler method.
      */
@@ -193,6 +194,14 @@ public class HandlerMethod {
         return this.bridgedMethod;
     }
 
+    /**
+     * Return the invoker of the bridged method, prepared once when this handler
+     * method was registered.
+     */
+    protected HandlerMethodInvoker getInvoker() {
+        return this.invoker;
+    }
+
     /**
      * Return the method parameters for this handler method.
      */
@@ -270,15 +279,26 @@ public class HandlerMethod {
     /**
      * If the provided instance contains a bean name rather than an object instance,
      * the bean name is resolved before a {@link HandlerMethod} is created and returned.
+     * <p>The copy is created once and reused if the bean is a singleton.
      */
     public HandlerMethod createWithResolvedBean() {
+        HandlerMethod resolved = this.resolvedHandlerMethod;
+        if (resolved != null) {
+            return resolved;
+        }
         Object handler = this.bean;
+        boolean singleton = true;
         if (this.bean instanceof String) {
             Assert.state(this.beanFactory != null, "Cannot resolve bean name without BeanFactory");
             String beanName = (String) this.bean;
             handler = this.beanFactory.getBean(beanName);
+            singleton = this.beanFactory.isSingleton(beanName);
+        }
+        resolved = new HandlerMethod(this, handler);
+        if (singleton) {
+            this.resolvedHandlerMethod = resolved;
         }
-        return new HandlerMethod(this, handler);
+        return resolved;
     }
 
     /**
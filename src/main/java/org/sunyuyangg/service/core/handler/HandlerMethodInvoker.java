@@ -0,0 +1,130 @@
+package org.sunyuyangg.service.core.handler;
+
+import org.pmw.tinylog.Logger;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Invokes a handler method on a bean. Created once per {@link HandlerMethod}
+ * and shared by the copies resolved for each request.
+ *
+ * <p>{@link #forMethod(Method)} prepares a {@link MethodHandle} adapted to a
+ * {@code (Object bean, Object[] args)} signature, so requests skip the access
+ * checks and argument copying of {@link Method#invoke}. Reflection is used if
+ * no handle can be obtained for the method.
+ *
+ * <p>Both variants have the contract of {@link Method#invoke}: arguments that
+ * do not fit the method raise an {@link IllegalArgumentException}, and anything
+ * thrown by the method itself is wrapped in an {@link InvocationTargetException}.
+ */
+public abstract class HandlerMethodInvoker {
+
+    protected final Method method;
+
+    protected HandlerMethodInvoker(Method method) {
+        this.method = method;
+    }
+
+    /**
+     * Create the invoker of the given method, preferring a method handle.
+     */
+    public static HandlerMethodInvoker forMethod(Method method) {
+        try {
+            return new MethodHandleInvoker(method);
+        } catch (IllegalAccessException | RuntimeException ex) {
+            Logger.debug("Falling back to reflection for {}: {}", method.toGenericString(), ex);
+            return new ReflectiveInvoker(method);
+        }
+    }
+
+    /**
+     * Invoke the method on the given bean, ignored for static methods.
+     */
+    public abstract Object invoke(Object bean, Object[] args)
+            throws IllegalAccessException, IllegalArgumentException, InvocationTargetException;
+
+    public Method getMethod() {
+        return this.method;
+    }
+
+
+    /**
+     * {@link HandlerMethodInvoker} calling {@link Method#invoke}.
+     */
+    private static class ReflectiveInvoker extends HandlerMethodInvoker {
+
+        public ReflectiveInvoker(Method method) {
+            super(method);
+            ReflectionUtils.makeAccessible(method);
+        }
+
+        @Override
+        public Object invoke(Object bean, Object[] args)
+                throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
+            return this.method.invoke(bean, args);
+        }
+    }
+
+
+    /**
+     * {@link HandlerMethodInvoker} calling a spreading {@link MethodHandle}.
+     * Arguments are checked up front, so whatever the handle throws comes from the method.
+     */
+    private static class MethodHandleInvoker extends HandlerMethodInvoker {
+
+        private final MethodHandle handle;
+
+        private final boolean isStatic;
+
+        private final Class<?>[] parameterTypes;
+
+        private final Class<?>[] wrapperTypes;
+
+        public MethodHandleInvoker(Method method) throws IllegalAccessException {
+            super(method);
+            ReflectionUtils.makeAccessible(method);
+            this.isStatic = Modifier.isStatic(method.getModifiers());
+            this.parameterTypes = method.getParameterTypes();
+            this.wrapperTypes = new Class<?>[this.parameterTypes.length];
+            for (int i = 0; i < this.parameterTypes.length; i++) {
+                this.wrapperTypes[i] = ClassUtils.resolvePrimitiveIfNecessary(this.parameterTypes[i]);
+            }
+            MethodHandle handle = MethodHandles.lookup().unreflect(method);
+            if (this.isStatic) {
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+            int count = this.parameterTypes.length;
+            this.handle = handle.asType(MethodType.genericMethodType(count + 1)).asSpreader(Object[].class, count);
+        }
+
+        @Override
+        public Object invoke(Object bean, Object[] args)
+                throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
+            if (!this.isStatic && !this.method.getDeclaringClass().isInstance(bean)) {
+                throw new IllegalArgumentException("object is not an instance of declaring class");
+            }
+            if (args.length != this.parameterTypes.length) {
+                throw new IllegalArgumentException("wrong number of arguments");
+            }
+            for (int i = 0; i < args.length; i++) {
+                Object arg = args[i];
+                if (arg == null ? this.parameterTypes[i].isPrimitive() : !this.wrapperTypes[i].isInstance(arg)) {
+                    // Leave widening conversions and error reporting to reflection
+                    return this.method.invoke(bean, args);
+                }
+            }
+            try {
+                return (Object) this.handle.invokeExact(bean, args);
+            } catch (Throwable ex) {
+                throw new InvocationTargetException(ex);
+            }
+        }
+    }
+}
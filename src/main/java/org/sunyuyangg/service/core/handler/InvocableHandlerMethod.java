@@ -4,9 +4,11 @@ import org.pmw.tinylog.Logger;
 import org.springframework.core.DefaultParameterNameDiscoverer;
 import org.springframework.core.MethodParameter;
 import org.springframework.core.ParameterNameDiscoverer;
-import org.springframework.util.ReflectionUtils;
+import org.springframework.lang.Nullable;
 import org.springframework.util.StringUtils;
 import org.sunyuyangg.service.core.method.MappingInfo;
+import org.sunyuyangg.service.core.method.parser.CommandParseResult;
+import org.sunyuyangg.service.core.support.HandlerMethodArgumentResolver;
 import org.sunyuyangg.service.core.support.HandlerMethodArgumentResolverComposite;
 
 import java.lang.reflect.InvocationTargetException;
@@ -15,9 +17,15 @@ import java.lang.reflect.Method;
 
 public class InvocableHandlerMethod extends HandlerMethod {
 
-    private ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+    private static final ParameterNameDiscoverer DEFAULT_PARAMETER_NAME_DISCOVERER = new DefaultParameterNameDiscoverer();
 
-    private HandlerMethodArgumentResolverComposite argumentResolvers = new HandlerMethodArgumentResolverComposite();
+    private ParameterNameDiscoverer parameterNameDiscoverer = DEFAULT_PARAMETER_NAME_DISCOVERER;
+
+    @Nullable
+    private HandlerMethodArgumentResolverComposite argumentResolvers;
+
+    @Nullable
+    private volatile ArgumentBindingPlan argumentBindingPlan;
 
 
     public InvocableHandlerMethod(HandlerMethod handlerMethod) {
@@ -31,47 +39,78 @@ public class InvocableHandlerMethod extends HandlerMethod {
 
     public void setHandlerMethodArgumentResolvers(HandlerMethodArgumentResolverComposite argumentResolvers) {
         this.argumentResolvers = argumentResolvers;
+        this.argumentBindingPlan = null;
     }
 
 
-    protected Object[] getMethodArgumentValues(ServiceRequest serviceRequest) throws Exception {
-        MethodParameter[] parameters = getMethodParameters();
-        Object[] args = new Object[parameters.length];
-        for (int i = 0; i < parameters.length; i++) {
-            MethodParameter parameter = parameters[i];
-            parameter.initParameterNameDiscovery(this.parameterNameDiscoverer);
+    /**
+     * Set the argument binding plan, e.g. one shared by all invocations of this handler method.
+     */
+    public void setArgumentBindingPlan(@Nullable ArgumentBindingPlan argumentBindingPlan) {
+        this.argumentBindingPlan = argumentBindingPlan;
+    }
+
+    /**
+     * Compile the argument binding plan of this handler method for the given mapping.
+     */
+    public ArgumentBindingPlan createArgumentBindingPlan(MappingInfo mapping) {
+        return new ArgumentBindingPlan(this, mapping, (this.argumentResolvers != null ? this.argumentResolvers :
+                new HandlerMethodArgumentResolverComposite()), this.parameterNameDiscoverer);
+    }
+
+    /**
+     * Return the argument binding plan, or {@code null} if not compiled yet.
+     */
+    @Nullable
+    public ArgumentBindingPlan getArgumentBindingPlan() {
+        return this.argumentBindingPlan;
+    }
+
+    private ArgumentBindingPlan obtainArgumentBindingPlan(MappingInfo mapping) {
+        ArgumentBindingPlan plan = this.argumentBindingPlan;
+        if (plan == null) {
+            plan = createArgumentBindingPlan(mapping);
+            this.argumentBindingPlan = plan;
+        }
+        return plan;
+    }
 
-            if (this.argumentResolvers.supportsParameter(parameter, serviceRequest.getParseResult())) {
+    protected Object[] getMethodArgumentValues(ServiceRequest serviceRequest) throws Exception {
+        ArgumentBindingPlan plan = obtainArgumentBindingPlan(serviceRequest.getMapping());
+        CommandParseResult parseResult = serviceRequest.getParseResult();
+        Object[] args = new Object[plan.getParameterCount()];
+        for (int i = 0; i < args.length; i++) {
+            if (plan.isDefaultIfAbsent(i) && parseResult.optionTimes(plan.getParameterName(i)) == 0) {
+                args[i] = plan.getDefaultValue(i);
+                continue;
+            }
+            HandlerMethodArgumentResolver resolver = plan.getResolver(i, parseResult);
+            if (resolver != null) {
+                MethodParameter parameter = plan.getParameter(i);
                 try {
-                    args[i] = this.argumentResolvers.resolveArgument(parameter, serviceRequest.getParseResult());
+                    args[i] = resolver.resolveArgument(parameter, parseResult);
                     continue;
                 } catch (Exception ex) {
                     // Leave stack trace for later, e.g. AbstractHandlerExceptionResolver
                     Logger.error(ex);
                     String message = ex.getMessage();
-                    if (!message.contains(parameter.getExecutable().toGenericString())) {
+                    if (message == null || !message.contains(parameter.getExecutable().toGenericString())) {
                         logger.debug(formatArgumentError(parameter, message));
                     }
                     throw ex;
                 }
             }
 
-            if (isNullable(parameter, serviceRequest.getMapping())) {
+            if (plan.isNullable(i)) {
+                args[i] = plan.getDefaultValue(i);
                 continue;
             }
 
-            if (args[i] == null) {
-                throw new IllegalStateException(formatArgumentError(parameter, "No suitable resolver"));
-            }
+            throw new IllegalStateException(formatArgumentError(plan.getParameter(i), "No suitable resolver"));
         }
         return args;
     }
 
-    private boolean isNullable(MethodParameter parameter, MappingInfo mapping) {
-
-        return mapping.isNullable(parameter.getParameterName());
-    }
-
     private static String formatArgumentError(MethodParameter param, String message) {
         return "Could not resolve parameter [" + param.getParameterIndex() + "] in " +
                 param.getExecutable().toGenericString() + (StringUtils.hasText(message) ? ": " + message : "");
@@ -82,9 +121,8 @@ public class InvocableHandlerMethod extends HandlerMethod {
      * Invoke the handler method with the given argument values.
      */
     protected Object doInvoke(Object... args) throws Exception {
-        ReflectionUtils.makeAccessible(getBridgedMethod());
         try {
-            return getBridgedMethod().invoke(getBean(), args);
+            return getInvoker().invoke(getBean(), args);
         } catch (IllegalArgumentException ex) {
             assertTargetBean(getBridgedMethod(), getBean(), args);
             String text = (ex.getMessage() != null ? ex.getMessage() : "Illegal argument");
@@ -0,0 +1,23 @@
+package org.sunyuyangg.service.core.handler;
+
+import java.util.List;
+
+/**
+ * Narrows down the mappings sharing one route to the ones a request can match,
+ * before any of them parses the request. Compiled once per route when the
+ * registry changes and shared by concurrent requests.
+ *
+ * @param <T> the mapping type
+ * @see AbstractHandlerMethodMapping#createCandidateSelector(List)
+ */
+@FunctionalInterface
+public interface MappingCandidateSelector<T> {
+
+    /**
+     * Return the mappings of the route that are viable for the given request,
+     * in order of preference. May be empty, but must not allocate a parse.
+     *
+     * @param request the raw request string
+     */
+    List<T> select(CharSequence request);
+}
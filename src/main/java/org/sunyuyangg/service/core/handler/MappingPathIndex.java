@@ -0,0 +1,239 @@
+package org.sunyuyangg.service.core.handler;
+
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Immutable, case-folded routing index over the first two tokens of a request
+ * (service name and first option), compiled from the registered mapping paths.
+ *
+ * <p>{@link #lookup(CharSequence)} scans the leading tokens of the raw request
+ * in place and probes an open-addressing table, so resolving a route does not
+ * allocate. A {@code null} result is an explicit "no route" answer.
+ *
+ * <p>Each route may carry a {@link MappingCandidateSelector} compiled from its
+ * mappings, used to narrow down the candidates of routes shared by several mappings.
+ */
+public class MappingPathIndex<T> {
+
+    /**
+     * Separator between the tokens of a mapping path, e.g. {@code QUERY#MEMORY}.
+     */
+    public static final String PATH_SEPARATOR = "#";
+
+    private final Map<String, List<T>> pathLookup;
+
+    private final Route<T>[] table;
+
+    private final int mask;
+
+    /**
+     * Compile an index from the given mapping paths.
+     *
+     * @param pathLookup the mappings keyed by their path
+     */
+    public MappingPathIndex(Map<String, List<T>> pathLookup) {
+        this(pathLookup, mappings -> null);
+    }
+
+    /**
+     * Compile an index from the given mapping paths.
+     *
+     * @param pathLookup      the mappings keyed by their path
+     * @param selectorFactory creates the candidate selector of a route from its
+     *                        mappings, or returns {@code null} to keep all candidates
+     */
+    public MappingPathIndex(Map<String, List<T>> pathLookup,
+                            Function<List<T>, MappingCandidateSelector<T>> selectorFactory) {
+        Map<String, List<T>> copy = new LinkedHashMap<>(pathLookup.size());
+        List<Route<T>> routes = new ArrayList<>(pathLookup.size());
+        for (Map.Entry<String, List<T>> entry : pathLookup.entrySet()) {
+            List<T> mappings = Collections.unmodifiableList(new ArrayList<>(entry.getValue()));
+            copy.put(entry.getKey(), mappings);
+            String[] tokens = entry.getKey().split(PATH_SEPARATOR, -1);
+            routes.add(new Route<>(tokens[0], (tokens.length > 1 ? tokens[1] : ""), mappings,
+                    selectorFactory.apply(mappings)));
+        }
+        this.pathLookup = Collections.unmodifiableMap(copy);
+
+        int capacity = 1;
+        while (capacity < routes.size() * 2) {
+            capacity <<= 1;
+        }
+        Route<T>[] table = newTable(routes.isEmpty() ? 0 : capacity);
+        int mask = table.length - 1;
+        for (Route<T> route : routes) {
+            int i = route.hash & mask;
+            while (table[i] != null) {
+                i = (i + 1) & mask;
+            }
+            table[i] = route;
+        }
+        this.table = table;
+        this.mask = mask;
+    }
+
+    /**
+     * Return an empty index without any route.
+     */
+    public static <T> MappingPathIndex<T> empty() {
+        return new MappingPathIndex<>(Collections.emptyMap());
+    }
+
+    /**
+     * Return the paths of all routes.
+     */
+    public Set<String> getPaths() {
+        return this.pathLookup.keySet();
+    }
+
+    /**
+     * Return the mappings registered under the given path, or {@code null}.
+     */
+    @Nullable
+    public List<T> get(String path) {
+        return this.pathLookup.get(path);
+    }
+
+    /**
+     * Resolve the candidate mappings for the leading two tokens of the given request.
+     *
+     * @param request the raw request string
+     * @return the candidate mappings, or {@code null} if no route matches
+     * (including requests with fewer than two tokens)
+     */
+    @Nullable
+    public List<T> lookup(CharSequence request) {
+        Route<T> route = getRoute(request);
+        return (route != null ? route.getMappings() : null);
+    }
+
+    /**
+     * Resolve the route for the leading two tokens of the given request.
+     *
+     * @param request the raw request string
+     * @return the route, or {@code null} if no route matches
+     * (including requests with fewer than two tokens)
+     */
+    @Nullable
+    public Route<T> getRoute(CharSequence request) {
+        Route<T>[] table = this.table;
+        if (table.length == 0) {
+            return null;
+        }
+        int length = request.length();
+        int start1 = skipWhitespace(request, 0, length);
+        int end1 = skipToken(request, start1, length);
+        int start2 = skipWhitespace(request, end1, length);
+        int end2 = skipToken(request, start2, length);
+        if (start2 == end2) {
+            return null;
+        }
+
+        int hash = hash(request, start1, end1, start2, end2);
+        for (int i = hash & this.mask; ; i = (i + 1) & this.mask) {
+            Route<T> route = table[i];
+            if (route == null) {
+                return null;
+            }
+            if (route.hash == hash && route.matches(request, start1, end1, start2, end2)) {
+                return route;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Route<T>[] newTable(int capacity) {
+        return (Route<T>[]) new Route<?>[capacity];
+    }
+
+    private static int skipWhitespace(CharSequence request, int index, int length) {
+        while (index < length && Character.isWhitespace(request.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static int skipToken(CharSequence request, int index, int length) {
+        while (index < length && !Character.isWhitespace(request.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static int hash(CharSequence chars, int start1, int end1, int start2, int end2) {
+        int hash = 0;
+        for (int i = start1; i < end1; i++) {
+            hash = 31 * hash + Character.toUpperCase(chars.charAt(i));
+        }
+        hash = 31 * hash + ' ';
+        for (int i = start2; i < end2; i++) {
+            hash = 31 * hash + Character.toUpperCase(chars.charAt(i));
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean regionMatches(CharSequence request, int start, int end, String token) {
+        if (end - start != token.length()) {
+            return false;
+        }
+        for (int i = 0; i < token.length(); i++) {
+            if (Character.toUpperCase(request.charAt(start + i)) != Character.toUpperCase(token.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * The mappings registered under one path, with their candidate selector.
+     */
+    public static class Route<T> {
+
+        private final String first;
+
+        private final String second;
+
+        private final int hash;
+
+        private final List<T> mappings;
+
+        @Nullable
+        private final MappingCandidateSelector<T> selector;
+
+        Route(String first, String second, List<T> mappings, @Nullable MappingCandidateSelector<T> selector) {
+            this.first = first;
+            this.second = second;
+            this.hash = hash(first + " " + second, 0, first.length(), first.length() + 1, first.length() + 1 + second.length());
+            this.mappings = mappings;
+            this.selector = selector;
+        }
+
+        /**
+         * Return all mappings of this route.
+         */
+        public List<T> getMappings() {
+            return this.mappings;
+        }
+
+        /**
+         * Return the mappings of this route that are viable for the given request,
+         * or all mappings if the route has no candidate selector.
+         */
+        public List<T> getCandidates(CharSequence request) {
+            return (this.selector != null ? this.selector.select(request) : this.mappings);
+        }
+
+        boolean matches(CharSequence request, int start1, int end1, int start2, int end2) {
+            return regionMatches(request, start1, end1, this.first) && regionMatches(request, start2, end2, this.second);
+        }
+    }
+}
@@ -1,11 +1,11 @@
 package org.sunyuyangg.service.core.handler;
 
-import com.ibm.staf.service.STAFCommandParseResult;
 import org.sunyuyangg.service.core.method.MappingInfo;
+import org.sunyuyangg.service.core.method.parser.CommandParseResult;
 
 public interface ServiceRequest<T extends MappingInfo> {
 
-    STAFCommandParseResult getParseResult();
+    CommandParseResult getParseResult();
 
     T getMapping();
 }
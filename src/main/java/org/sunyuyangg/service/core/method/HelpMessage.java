@@ -28,6 +28,9 @@ public class HelpMessage {
     private void addOption(List<OptionMappingInfo.Option> options, List<String> list) {
         for (int i = 1; i < options.size(); i++) {
             OptionMappingInfo.Option option = options.get(i);
+            if (option.reserved) {
+                continue;
+            }
             switch (option.maxAllowed) {
                 case 0:
                     list.add("[" + option.name.toUpperCase() + "* " + handleOptionValue(option) + "]");
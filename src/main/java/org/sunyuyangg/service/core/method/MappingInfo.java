@@ -2,4 +2,12 @@ package org.sunyuyangg.service.core.method;
 
 public interface MappingInfo {
     boolean isNullable(String optionName);
+
+    /**
+     * Whether the given option was added by the framework rather than declared by the handler.
+     * <p>The default implementation returns {@code false}.
+     */
+    default boolean isReservedOption(String optionName) {
+        return false;
+    }
 }
@@ -0,0 +1,256 @@
+package org.sunyuyangg.service.core.method;
+
+import com.ibm.staf.service.STAFCommandParser;
+import org.springframework.lang.Nullable;
+import org.sunyuyangg.service.core.handler.MappingCandidateSelector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link MappingCandidateSelector} for {@link OptionMappingInfo}s sharing a route.
+ *
+ * <p>Compiles the option names that distinguish the candidates: options not
+ * defined by every candidate and options some candidate requires. Per request,
+ * the tokens after the route are matched against those names into a presence
+ * bitmap; a candidate is viable if it defines every option present and every
+ * option it requires is present. Usually a single candidate remains, so the
+ * request is parsed once instead of once per candidate.
+ *
+ * <p>Values are skipped like the command parser does: the token after an option
+ * requiring a value, the token after an option allowing one unless it names an
+ * option, and quoted and {@code :<length>:} delimited values. As the candidates
+ * may define an option differently, this is an estimate; if it leaves no viable
+ * candidate, all candidates are returned, so that they are parsed and report
+ * their errors.
+ */
+public class OptionMappingCandidateSelector implements MappingCandidateSelector<OptionMappingInfo> {
+
+    private static final int MAX_OPTIONS = Long.SIZE;
+
+    private final List<OptionMappingInfo> mappings;
+
+    private final String[] names;
+
+    /**
+     * All option names after the route, with their value requirement and distinguishing option bit
+     */
+    private final String[] optionNames;
+
+    private final int[] valueRequirements;
+
+    private final long[] optionBits;
+
+    private final long[] known;
+
+    private final long[] required;
+
+    private final List<List<OptionMappingInfo>> singletons;
+
+    private OptionMappingCandidateSelector(List<OptionMappingInfo> mappings, List<String> names) {
+        this.mappings = mappings;
+        this.names = names.toArray(new String[0]);
+        this.known = new long[mappings.size()];
+        this.required = new long[mappings.size()];
+        this.singletons = new ArrayList<>(mappings.size());
+        for (int i = 0; i < mappings.size(); i++) {
+            for (OptionMappingInfo.Option option : routeOptions(mappings.get(i))) {
+                int index = names.indexOf(option.name.toUpperCase());
+                if (index >= 0) {
+                    this.known[i] |= 1L << index;
+                    if (option.minAllowed > 0) {
+                        this.required[i] |= 1L << index;
+                    }
+                }
+            }
+            this.singletons.add(Collections.singletonList(mappings.get(i)));
+        }
+
+        Map<String, Integer> valueRequirements = new LinkedHashMap<>();
+        for (OptionMappingInfo mapping : mappings) {
+            for (OptionMappingInfo.Option option : routeOptions(mapping)) {
+                valueRequirements.merge(option.name.toUpperCase(), option.valueRequirement,
+                        OptionMappingCandidateSelector::weakerValueRequirement);
+            }
+        }
+        this.optionNames = valueRequirements.keySet().toArray(new String[0]);
+        this.valueRequirements = new int[this.optionNames.length];
+        this.optionBits = new long[this.optionNames.length];
+        for (int i = 0; i < this.optionNames.length; i++) {
+            this.valueRequirements[i] = valueRequirements.get(this.optionNames[i]);
+            int index = names.indexOf(this.optionNames[i]);
+            this.optionBits[i] = (index >= 0 ? 1L << index : 0);
+        }
+    }
+
+    /**
+     * Combine the value requirements of an option defined by several candidates:
+     * a value is required if all require one, and allowed if any takes one.
+     */
+    private static int weakerValueRequirement(int requirement, int other) {
+        return (requirement == other ? requirement : STAFCommandParser.VALUEALLOWED);
+    }
+
+    /**
+     * Compile a selector for the given mappings of one route.
+     *
+     * @return the selector, or {@code null} if there is nothing to select from or
+     * the candidates differ in more options than a bitmap can track
+     */
+    @Nullable
+    public static OptionMappingCandidateSelector compile(List<OptionMappingInfo> mappings) {
+        if (mappings.size() < 2) {
+            return null;
+        }
+        List<String> names = new ArrayList<>();
+        for (OptionMappingInfo mapping : mappings) {
+            for (OptionMappingInfo.Option option : routeOptions(mapping)) {
+                String name = option.name.toUpperCase();
+                if (!names.contains(name) && (option.minAllowed > 0 || !definedByAll(mappings, name))) {
+                    names.add(name);
+                }
+            }
+        }
+        if (names.isEmpty() || names.size() > MAX_OPTIONS) {
+            return null;
+        }
+        return new OptionMappingCandidateSelector(mappings, names);
+    }
+
+    @Override
+    public List<OptionMappingInfo> select(CharSequence request) {
+        long present = presentOptions(request);
+        int viable = 0;
+        int last = -1;
+        for (int i = 0; i < this.known.length; i++) {
+            if ((present & ~this.known[i]) == 0 && (this.required[i] & ~present) == 0) {
+                viable++;
+                last = i;
+            }
+        }
+        if (viable == this.known.length || viable == 0) {
+            return this.mappings;
+        }
+        if (viable == 1) {
+            return this.singletons.get(last);
+        }
+        List<OptionMappingInfo> candidates = new ArrayList<>(viable);
+        for (int i = 0; i < this.known.length; i++) {
+            if ((present & ~this.known[i]) == 0 && (this.required[i] & ~present) == 0) {
+                candidates.add(this.mappings.get(i));
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Return the bitmap of distinguishing options named by the plain tokens after
+     * the route, skipping option values.
+     */
+    private long presentOptions(CharSequence request) {
+        long present = 0;
+        int pending = STAFCommandParser.VALUENOTALLOWED;
+        int length = request.length();
+        int index = skipWhitespace(request, 0, length);
+        for (int token = 0; index < length; token++) {
+            char c = request.charAt(index);
+            int dataStart = (c == ':' ? lengthDelimitedDataStart(request, index, length) : -1);
+            int end;
+            int option = -1;
+            if (c == '"') {
+                end = index + 1;
+                while (end < length && request.charAt(end) != '"') {
+                    end += (request.charAt(end) == '\\' ? 2 : 1);
+                }
+                end = Math.min(end + 1, length);
+            } else if (dataStart >= 0) {
+                end = (int) Math.min((long) dataStart + parseLength(request, index + 1, dataStart - 1), length);
+            } else {
+                end = skipToken(request, index, length);
+                if (token >= 2 && pending != STAFCommandParser.VALUEREQUIRED) {
+                    option = indexOfOption(request, index, end);
+                }
+            }
+            if (option >= 0) {
+                present |= this.optionBits[option];
+                pending = this.valueRequirements[option];
+            } else {
+                // A value, of the pending option or an argument
+                pending = STAFCommandParser.VALUENOTALLOWED;
+            }
+            index = skipWhitespace(request, end, length);
+        }
+        return present;
+    }
+
+    private int indexOfOption(CharSequence request, int start, int end) {
+        for (int i = 0; i < this.optionNames.length; i++) {
+            if (regionMatches(request, start, end, this.optionNames[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Return the start of the data of a {@code :<length>:} delimited value at the
+     * given index, or a negative value if there is none.
+     */
+    private static int lengthDelimitedDataStart(CharSequence request, int index, int length) {
+        int i = index + 1;
+        while (i < length && Character.isDigit(request.charAt(i))) {
+            i++;
+        }
+        return (i > index + 1 && i < length && request.charAt(i) == ':' ? i + 1 : -1);
+    }
+
+    private static long parseLength(CharSequence request, int start, int end) {
+        long value = 0;
+        for (int i = start; i < end && value <= Integer.MAX_VALUE; i++) {
+            value = value * 10 + (request.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Return the options of a mapping after its two route tokens.
+     */
+    private static List<OptionMappingInfo.Option> routeOptions(OptionMappingInfo mapping) {
+        List<OptionMappingInfo.Option> options = mapping.getOptions();
+        return options.subList(Math.min(2, options.size()), options.size());
+    }
+
+    private static boolean definedByAll(List<OptionMappingInfo> mappings, String name) {
+        return mappings.stream().allMatch(mapping ->
+                routeOptions(mapping).stream().anyMatch(option -> option.name.equalsIgnoreCase(name)));
+    }
+
+    private static boolean regionMatches(CharSequence request, int start, int end, String name) {
+        if (end - start != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (Character.toUpperCase(request.charAt(start + i)) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipWhitespace(CharSequence request, int index, int length) {
+        while (index < length && Character.isWhitespace(request.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static int skipToken(CharSequence request, int index, int length) {
+        while (index < length && !Character.isWhitespace(request.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+}
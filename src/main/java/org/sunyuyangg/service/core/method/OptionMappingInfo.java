@@ -1,27 +1,35 @@
 package org.sunyuyangg.service.core.method;
 
 import com.ibm.staf.STAFResult;
-import com.ibm.staf.service.STAFCommandParseResult;
 import com.ibm.staf.service.STAFCommandParser;
 import com.ibm.staf.service.STAFServiceInterfaceLevel30;
 import org.springframework.lang.Nullable;
+import org.sunyuyangg.service.core.method.parser.CommandParseResult;
+import org.sunyuyangg.service.core.method.parser.CommandParser;
+import org.sunyuyangg.service.core.method.parser.CommandParserFactory;
+import org.sunyuyangg.service.core.method.parser.STAFCommandParserAdapter;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
+/**
+ * The compiled, immutable mapping of an {@code @OptionMapping} method. The
+ * {@link CommandParser} is built once at registration and shared by all
+ * requests; per-request state lives in {@link OptionMappingServiceRequest}.
+ */
 public class OptionMappingInfo implements MappingInfo{
 
     @Nullable
     private final String name;
-    private int maxArgs;
-    private boolean caseSensitive;
-    private List<Option> options;
-    private List<OptionGroup> optionGroups;
-    private List<OptionNeed> optionNeeds;
-    private String desc;
-    private STAFCommandParser commandParser;
-    private STAFCommandParseResult parseResult;
+    private final int maxArgs;
+    private final boolean caseSensitive;
+    private final List<Option> options;
+    private final List<OptionGroup> optionGroups;
+    private final List<OptionNeed> optionNeeds;
+    private final String desc;
+    private final CommandParser commandParser;
 
     public OptionMappingInfo(String name,
                              int maxArgs,
@@ -30,38 +38,49 @@ public class OptionMappingInfo implements MappingInfo{
                              List<Option> options,
                              List<OptionGroup> optionGroups,
                              List<OptionNeed> optionNeeds) {
+        this(name, maxArgs, caseSensitive, desc, options, optionGroups, optionNeeds, STAFCommandParserAdapter::new);
+    }
+
+    public OptionMappingInfo(String name,
+                             int maxArgs,
+                             boolean caseSensitive,
+                             String desc,
+                             List<Option> options,
+                             List<OptionGroup> optionGroups,
+                             List<OptionNeed> optionNeeds,
+                             CommandParserFactory commandParserFactory) {
         this.name = name;
         this.maxArgs = maxArgs;
         this.caseSensitive = caseSensitive;
         this.desc = desc;
-        this.options = options;
-        this.optionGroups = optionGroups;
-        this.optionNeeds = optionNeeds;
-        createCommandParser();
+        this.options = Collections.unmodifiableList(new ArrayList<>(options));
+        this.optionGroups = Collections.unmodifiableList(new ArrayList<>(optionGroups));
+        this.optionNeeds = Collections.unmodifiableList(new ArrayList<>(optionNeeds));
+        this.commandParser = commandParserFactory.createParser(this);
     }
 
-    public OptionMappingInfo(OptionMappingInfo copy, STAFCommandParseResult parseResult) {
-        this(copy.name, copy.maxArgs, copy.caseSensitive,copy.desc, copy.options, copy.optionGroups, copy.optionNeeds);
-        this.parseResult = parseResult;
+    public int getMaxArgs() {
+        return maxArgs;
     }
 
-    private void createCommandParser() {
-        this.commandParser = new STAFCommandParser(this.maxArgs, this.caseSensitive);
-        this.options.forEach(option -> this.commandParser.addOption(option.name, option.maxAllowed, option.valueRequirement));
-        this.optionGroups.forEach(optionGroup -> this.commandParser.addOptionGroup(optionGroup.names, optionGroup.min, optionGroup.max));
-        this.optionNeeds.forEach(optionNeed -> this.commandParser.addOptionNeed(optionNeed.needers, optionNeed.needees));
+    public boolean isCaseSensitive() {
+        return caseSensitive;
     }
 
     public List<Option> getOptions() {
         return options;
     }
 
-    public String getDesc() {
-        return desc;
+    public List<OptionGroup> getOptionGroups() {
+        return optionGroups;
+    }
+
+    public List<OptionNeed> getOptionNeeds() {
+        return optionNeeds;
     }
 
-    public STAFCommandParseResult getParseResult() {
-        return parseResult;
+    public String getDesc() {
+        return desc;
     }
 
     @Nullable
@@ -70,19 +89,23 @@ public class OptionMappingInfo implements MappingInfo{
     }
 
     public String getMappingPath() {
-        return this.options.stream().limit(2).map(option -> option.name.toUpperCase()).collect(Collectors.joining("#"));
+        return this.options.stream().filter(option -> !option.reserved).limit(2)
+                .map(option -> option.name.toUpperCase()).collect(Collectors.joining("#"));
     }
 
     public static Builder builder(int maxArgs, boolean caseSensitive) {
         return new DefaultBuilder(maxArgs, caseSensitive);
     }
 
-    public OptionMappingInfo getMatching(STAFServiceInterfaceLevel30.RequestInfo request) throws Exception{
-        STAFCommandParseResult parseResult = this.commandParser.parse(request.request);
-        if(parseResult.rc != STAFResult.Ok) {
-            throw new Exception(parseResult.errorBuffer);
+    /**
+     * Parse the request with the shared command parser and return the per-request match.
+     */
+    public OptionMappingServiceRequest getMatching(STAFServiceInterfaceLevel30.RequestInfo request) throws Exception{
+        CommandParseResult parseResult = this.commandParser.parse(request.request);
+        if(parseResult.getRc() != STAFResult.Ok) {
+            throw new Exception(parseResult.getErrorBuffer());
         }
-        return new OptionMappingInfo(this, parseResult);
+        return new OptionMappingServiceRequest(this, parseResult);
     }
 
     @Override
@@ -92,6 +115,16 @@ public class OptionMappingInfo implements MappingInfo{
                 .anyMatch(option -> option.minAllowed == 0 && option.maxAllowed != 0);
     }
 
+    @Override
+    public boolean isReservedOption(String optionName) {
+        for (Option option : this.options) {
+            if (option.reserved && option.name.equalsIgnoreCase(optionName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public interface Builder {
         /**
          * used by MappingRegistry#getHandlerMethodsByMappingName
@@ -100,9 +133,16 @@ public class OptionMappingInfo implements MappingInfo{
          */
         Builder name(String name);
         Builder option(String name, int maxAllowed,int minAllowed, int valueRequirement);
+
+        /**
+         * Add an optional, single-valued framework option, unless an option of
+         * that name is declared already.
+         */
+        Builder reservedOption(String name);
         Builder optionGroup(String names, int min, int max);
         Builder optionNeed(String needers, String needees);
         Builder desc(String desc);
+        Builder commandParserFactory(CommandParserFactory commandParserFactory);
         OptionMappingInfo build();
     }
 
@@ -114,6 +154,7 @@ public class OptionMappingInfo implements MappingInfo{
         private List<Option> options = new ArrayList<>();
         private List<OptionGroup> optionGroups = new ArrayList<>();
         private List<OptionNeed> optionNeeds = new ArrayList<>();
+        private CommandParserFactory commandParserFactory = STAFCommandParserAdapter::new;
 
         @Nullable
         private String mappingName;
@@ -136,6 +177,14 @@ public class OptionMappingInfo implements MappingInfo{
             return this;
         }
 
+        @Override
+        public Builder reservedOption(String name) {
+            if (this.options.stream().noneMatch(option -> option.name.equalsIgnoreCase(name))) {
+                this.options.add(new Option(name, 1, 0, STAFCommandParser.VALUEREQUIRED, true));
+            }
+            return this;
+        }
+
         @Override
         public Builder optionGroup(String names, int min, int max) {
             this.optionGroups.add(new OptionGroup(names, min, max));
@@ -154,9 +203,15 @@ public class OptionMappingInfo implements MappingInfo{
             return this;
         }
 
+        @Override
+        public Builder commandParserFactory(CommandParserFactory commandParserFactory) {
+            this.commandParserFactory = commandParserFactory;
+            return this;
+        }
+
         @Override
         public OptionMappingInfo build() {
-            return new OptionMappingInfo(this.mappingName, this.maxArgs, this.caseSensitive,this.desc, this.options, this.optionGroups, this.optionNeeds);
+            return new OptionMappingInfo(this.mappingName, this.maxArgs, this.caseSensitive,this.desc, this.options, this.optionGroups, this.optionNeeds, this.commandParserFactory);
         }
     }
 
@@ -166,16 +221,22 @@ public class OptionMappingInfo implements MappingInfo{
         public int maxAllowed;
         public int minAllowed;
         public int valueRequirement;
+        public boolean reserved;
 
         public Option(String name, int maxAllowed, int minAllowed,int valueRequirement) {
+            this(name, maxAllowed, minAllowed, valueRequirement, false);
+        }
+
+        public Option(String name, int maxAllowed, int minAllowed, int valueRequirement, boolean reserved) {
             this.name = name;
             this.maxAllowed = maxAllowed;
             this.minAllowed = minAllowed;
             this.valueRequirement = valueRequirement;
+            this.reserved = reserved;
         }
     }
 
-    private static class OptionGroup {
+    public static class OptionGroup {
         public String names;
         public int min;
         public int max;
@@ -187,7 +248,7 @@ public class OptionMappingInfo implements MappingInfo{
         }
     }
 
-    private static class OptionNeed {
+    public static class OptionNeed {
         public String needers;
         public String needees;
 
@@ -4,8 +4,11 @@ import com.ibm.staf.service.STAFServiceInterfaceLevel30;
 import org.sunyuyangg.service.core.FrameworkService;
 import org.sunyuyangg.service.core.handler.AbstractHandlerMethodMapping;
 import org.sunyuyangg.service.core.handler.HandlerMethod;
+import org.sunyuyangg.service.core.handler.MappingCandidateSelector;
+import org.sunyuyangg.service.core.handler.ServiceRequest;
 
 import java.lang.reflect.Method;
+import java.util.List;
 
 
 public abstract class OptionMappingInfoHandlerMapping extends AbstractHandlerMethodMapping<OptionMappingInfo> {
@@ -15,7 +18,7 @@ public abstract class OptionMappingInfoHandlerMapping extends AbstractHandlerMet
 	}
 
 	@Override
-	protected OptionMappingInfo getMatchingMapping(OptionMappingInfo mapping, STAFServiceInterfaceLevel30.RequestInfo request) throws Exception {
+	protected ServiceRequest getMatchingMapping(OptionMappingInfo mapping, STAFServiceInterfaceLevel30.RequestInfo request) throws Exception {
 		return mapping.getMatching(request);
 	}
 
@@ -24,6 +27,11 @@ public abstract class OptionMappingInfoHandlerMapping extends AbstractHandlerMet
 		return mapping.getMappingPath();
 	}
 
+	@Override
+	protected MappingCandidateSelector<OptionMappingInfo> createCandidateSelector(List<OptionMappingInfo> mappings) {
+		return OptionMappingCandidateSelector.compile(mappings);
+	}
+
 
 	protected HandlerMethod createHandlerMethod(OptionMappingInfo mapping, Object handler, Method method) {
 		HandlerMethod handlerMethod;
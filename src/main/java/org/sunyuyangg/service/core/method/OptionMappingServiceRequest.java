@@ -1,19 +1,26 @@
 package org.sunyuyangg.service.core.method;
 
-import com.ibm.staf.service.STAFCommandParseResult;
 import org.sunyuyangg.service.core.handler.ServiceRequest;
+import org.sunyuyangg.service.core.method.parser.CommandParseResult;
 
+/**
+ * The result of matching one request against an {@link OptionMappingInfo}:
+ * the shared mapping plus the parse result of this request.
+ */
 public class OptionMappingServiceRequest implements ServiceRequest<OptionMappingInfo> {
 
     private final OptionMappingInfo optionMappingInfo;
 
-    public OptionMappingServiceRequest(OptionMappingInfo optionMappingInfo) {
+    private final CommandParseResult parseResult;
+
+    public OptionMappingServiceRequest(OptionMappingInfo optionMappingInfo, CommandParseResult parseResult) {
         this.optionMappingInfo = optionMappingInfo;
+        this.parseResult = parseResult;
     }
 
     @Override
-    public STAFCommandParseResult getParseResult() {
-        return optionMappingInfo.getParseResult();
+    public CommandParseResult getParseResult() {
+        return parseResult;
     }
 
     @Override
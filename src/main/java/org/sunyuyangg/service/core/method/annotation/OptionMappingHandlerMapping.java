@@ -2,17 +2,75 @@ package org.sunyuyangg.service.core.method.annotation;
 
 import com.ibm.staf.service.STAFCommandParser;
 import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Controller;
+import org.sunyuyangg.service.core.ReservedOptions;
 import org.sunyuyangg.service.core.annotation.OptionMapping;
 import org.sunyuyangg.service.core.method.OptionMappingInfo;
 import org.sunyuyangg.service.core.method.OptionMappingInfoHandlerMapping;
+import org.sunyuyangg.service.core.method.parser.CachingCommandParser;
+import org.sunyuyangg.service.core.method.parser.CommandParserFactory;
+import org.sunyuyangg.service.core.method.parser.ParseResultCache;
+import org.sunyuyangg.service.core.method.parser.STAFCommandParserAdapter;
 
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Method;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 public class OptionMappingHandlerMapping extends OptionMappingInfoHandlerMapping {
 
+    private CommandParserFactory commandParserFactory = STAFCommandParserAdapter::new;
+
+    @Nullable
+    private ParseResultCache parseResultCache;
+
+    private Set<String> reservedOptions = new LinkedHashSet<>(ReservedOptions.DEFAULTS);
+
+    /**
+     * Set the strategy compiling the command parser of each mapping. Default is
+     * the STAF parser; use {@code CompiledCommandParser::new} for the
+     * allocation-light table-driven engine. Must be set before the mappings are detected.
+     */
+    public void setCommandParserFactory(CommandParserFactory commandParserFactory) {
+        this.commandParserFactory = commandParserFactory;
+    }
+
+    public CommandParserFactory getCommandParserFactory() {
+        return this.commandParserFactory;
+    }
+
+    /**
+     * Set a cache of parse results shared by all mappings, so that repeated
+     * identical requests skip parsing. Default is {@code null}, i.e. no caching.
+     * Must be set before the mappings are detected.
+     */
+    public void setParseResultCache(@Nullable ParseResultCache parseResultCache) {
+        this.parseResultCache = parseResultCache;
+    }
+
+    /**
+     * Return the configured parse result cache, e.g. to read its hit and miss counters.
+     */
+    @Nullable
+    public ParseResultCache getParseResultCache() {
+        return this.parseResultCache;
+    }
+
+    /**
+     * Set the framework options added to every mapping that does not declare them.
+     * Default is {@link ReservedOptions#DEFAULTS}. Must be set before the mappings are detected.
+     */
+    public void setReservedOptions(Collection<String> reservedOptions) {
+        this.reservedOptions = new LinkedHashSet<>(reservedOptions);
+    }
+
+    public Set<String> getReservedOptions() {
+        return Collections.unmodifiableSet(this.reservedOptions);
+    }
 
     @Override
     protected OptionMappingInfo getMappingForMethod(Method method, Class<?> handlerType) {
@@ -24,8 +82,13 @@ public class OptionMappingHandlerMapping extends OptionMappingInfoHandlerMapping
         if (optionMapping == null) {
             return null;
         }
+        if (optionMapping.options().length == 0) {
+            // Requests are routed by the handler name and the first option, see OptionMapping#options
+            throw new IllegalStateException("@OptionMapping of " + element + " declares no option to route requests by");
+        }
         OptionMappingInfo.Builder builder = OptionMappingInfo.builder(optionMapping.maxArgs(), optionMapping.caseSensitive());
         builder.name(optionMapping.name());
+        builder.commandParserFactory(getEffectiveCommandParserFactory());
         String name = handlerType.getSimpleName().toUpperCase();
         if(name.contains("CONTROLLER")) {
             name = name.substring(0, name.indexOf("CONTROLLER"));
@@ -35,9 +98,19 @@ public class OptionMappingHandlerMapping extends OptionMappingInfoHandlerMapping
         Arrays.asList(optionMapping.options()).forEach(option -> builder.option(option.name(), option.maxAllowed(),option.minAllowed(), option.valueRequirement()));
         Arrays.asList(optionMapping.optionGroup()).forEach(optionGroup -> builder.optionGroup(optionGroup.names(), optionGroup.min(), optionGroup.max()));
         Arrays.asList(optionMapping.optionNeeds()).forEach(optionNeeds -> builder.optionNeed(optionNeeds.needers(), optionNeeds.needees()));
+        this.reservedOptions.forEach(builder::reservedOption);
         return builder.build();
     }
 
+    private CommandParserFactory getEffectiveCommandParserFactory() {
+        CommandParserFactory factory = this.commandParserFactory;
+        ParseResultCache cache = this.parseResultCache;
+        if (cache == null) {
+            return factory;
+        }
+        return mapping -> new CachingCommandParser(factory.createParser(mapping), cache);
+    }
+
     @Override
     protected boolean isHandler(Class<?> beanType) {
         return (AnnotatedElementUtils.hasAnnotation(beanType, Controller.class));
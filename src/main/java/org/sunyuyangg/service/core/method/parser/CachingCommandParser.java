@@ -0,0 +1,33 @@
+package org.sunyuyangg.service.core.method.parser;
+
+/**
+ * {@link CommandParser} decorator returning the result of an identical earlier
+ * request from a shared {@link ParseResultCache} instead of parsing it again.
+ * Successful and failed parse results are both cached; they are read-only and
+ * may be handed to concurrent requests.
+ */
+public class CachingCommandParser implements CommandParser {
+
+    private final CommandParser delegate;
+
+    private final ParseResultCache cache;
+
+    public CachingCommandParser(CommandParser delegate, ParseResultCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    public CommandParser getDelegate() {
+        return this.delegate;
+    }
+
+    @Override
+    public CommandParseResult parse(String request) {
+        CommandParseResult parseResult = this.cache.get(this.delegate, request);
+        if (parseResult == null) {
+            parseResult = this.delegate.parse(request);
+            this.cache.put(this.delegate, request, parseResult);
+        }
+        return parseResult;
+    }
+}
@@ -0,0 +1,35 @@
+package org.sunyuyangg.service.core.method.parser;
+
+/**
+ * The result of parsing one request, with the accessors of
+ * {@link com.ibm.staf.service.STAFCommandParseResult}. Instance and argument
+ * numbers are 1-based, absent values are returned as empty strings.
+ */
+public interface CommandParseResult {
+
+    /**
+     * Return {@link com.ibm.staf.STAFResult#Ok} or the error code of a failed parse.
+     */
+    int getRc();
+
+    /**
+     * Return the error message of a failed parse, or an empty string.
+     */
+    String getErrorBuffer();
+
+    int optionTimes(String optionName);
+
+    String optionValue(String optionName);
+
+    String optionValue(String optionName, int instanceNumber);
+
+    int numInstances();
+
+    String instanceName(int instanceNumber);
+
+    String instanceValue(int instanceNumber);
+
+    int numArgs();
+
+    String arg(int argNumber);
+}
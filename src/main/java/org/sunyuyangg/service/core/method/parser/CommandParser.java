@@ -0,0 +1,10 @@
+package org.sunyuyangg.service.core.method.parser;
+
+/**
+ * Parses and validates a request string against the options of one mapping.
+ * Implementations are immutable and shared by concurrent requests.
+ */
+public interface CommandParser {
+
+    CommandParseResult parse(String request);
+}
@@ -0,0 +1,13 @@
+package org.sunyuyangg.service.core.method.parser;
+
+import org.sunyuyangg.service.core.method.OptionMappingInfo;
+
+/**
+ * Strategy for compiling the {@link CommandParser} of a mapping at registration time,
+ * e.g. {@code STAFCommandParserAdapter::new} or {@code CompiledCommandParser::new}.
+ */
+@FunctionalInterface
+public interface CommandParserFactory {
+
+    CommandParser createParser(OptionMappingInfo mapping);
+}
@@ -0,0 +1,180 @@
+package org.sunyuyangg.service.core.method.parser;
+
+import com.ibm.staf.STAFResult;
+
+import java.util.Arrays;
+
+/**
+ * {@link CommandParseResult} of a {@link CompiledCommandParser}. Option instances
+ * and arguments are kept as slices of the request string; values are only
+ * turned into strings when they are read.
+ */
+public class CompiledCommandParseResult implements CommandParseResult {
+
+    private static final int INSTANCE_SLOTS = 4;
+
+    private static final int ARG_SLOTS = 3;
+
+    private static final int[] EMPTY = new int[0];
+
+    private final CompiledCommandParser parser;
+
+    private final String request;
+
+    private final int[] times;
+
+    private int rc = STAFResult.Ok;
+
+    private String errorBuffer = "";
+
+    /**
+     * option, value start, value end (-1 if no value) and kind of each option instance
+     */
+    private int[] instances = EMPTY;
+
+    private int instanceCount;
+
+    /**
+     * start, end and kind of each argument
+     */
+    private int[] args = EMPTY;
+
+    private int argCount;
+
+    CompiledCommandParseResult(CompiledCommandParser parser, String request) {
+        this.parser = parser;
+        this.request = request;
+        this.times = new int[parser.optionCount()];
+    }
+
+    CompiledCommandParseResult fail(String errorBuffer) {
+        this.rc = STAFResult.InvalidRequestString;
+        this.errorBuffer = errorBuffer;
+        return this;
+    }
+
+    void addInstance(int option) {
+        if (this.instances.length < (this.instanceCount + 1) * INSTANCE_SLOTS) {
+            this.instances = Arrays.copyOf(this.instances, Math.max(4, this.instanceCount * 2) * INSTANCE_SLOTS);
+        }
+        int offset = this.instanceCount++ * INSTANCE_SLOTS;
+        this.instances[offset] = option;
+        this.instances[offset + 1] = -1;
+        this.instances[offset + 2] = -1;
+        this.times[option]++;
+    }
+
+    void setValue(int start, int end, int kind) {
+        int offset = (this.instanceCount - 1) * INSTANCE_SLOTS;
+        this.instances[offset + 1] = start;
+        this.instances[offset + 2] = end;
+        this.instances[offset + 3] = kind;
+    }
+
+    void addArg(int start, int end, int kind) {
+        if (this.args.length < (this.argCount + 1) * ARG_SLOTS) {
+            this.args = Arrays.copyOf(this.args, Math.max(2, this.argCount * 2) * ARG_SLOTS);
+        }
+        int offset = this.argCount++ * ARG_SLOTS;
+        this.args[offset] = start;
+        this.args[offset + 1] = end;
+        this.args[offset + 2] = kind;
+    }
+
+    int optionTimes(int option) {
+        return this.times[option];
+    }
+
+    /**
+     * Return the bitset of options present in the request.
+     */
+    long[] present() {
+        long[] present = new long[this.parser.words()];
+        for (int option = 0; option < this.times.length; option++) {
+            if (this.times[option] > 0) {
+                present[option >>> 6] |= 1L << option;
+            }
+        }
+        return present;
+    }
+
+    @Override
+    public int getRc() {
+        return this.rc;
+    }
+
+    @Override
+    public String getErrorBuffer() {
+        return this.errorBuffer;
+    }
+
+    @Override
+    public int optionTimes(String optionName) {
+        int option = this.parser.indexOf(optionName, 0, optionName.length());
+        return (option >= 0 ? this.times[option] : 0);
+    }
+
+    @Override
+    public String optionValue(String optionName) {
+        return optionValue(optionName, 1);
+    }
+
+    @Override
+    public String optionValue(String optionName, int instanceNumber) {
+        int option = this.parser.indexOf(optionName, 0, optionName.length());
+        if (option < 0 || instanceNumber < 1 || instanceNumber > this.times[option]) {
+            return "";
+        }
+        int found = 0;
+        for (int i = 0; i < this.instanceCount; i++) {
+            if (this.instances[i * INSTANCE_SLOTS] == option && ++found == instanceNumber) {
+                return instanceValueAt(i);
+            }
+        }
+        return "";
+    }
+
+    @Override
+    public int numInstances() {
+        return this.instanceCount;
+    }
+
+    @Override
+    public String instanceName(int instanceNumber) {
+        if (instanceNumber < 1 || instanceNumber > this.instanceCount) {
+            return "";
+        }
+        return this.parser.optionName(this.instances[(instanceNumber - 1) * INSTANCE_SLOTS]);
+    }
+
+    @Override
+    public String instanceValue(int instanceNumber) {
+        if (instanceNumber < 1 || instanceNumber > this.instanceCount) {
+            return "";
+        }
+        return instanceValueAt(instanceNumber - 1);
+    }
+
+    @Override
+    public int numArgs() {
+        return this.argCount;
+    }
+
+    @Override
+    public String arg(int argNumber) {
+        if (argNumber < 1 || argNumber > this.argCount) {
+            return "";
+        }
+        int offset = (argNumber - 1) * ARG_SLOTS;
+        return CompiledCommandParser.value(this.request, this.args[offset], this.args[offset + 1], this.args[offset + 2]);
+    }
+
+    private String instanceValueAt(int index) {
+        int offset = index * INSTANCE_SLOTS;
+        int start = this.instances[offset + 1];
+        if (start < 0) {
+            return "";
+        }
+        return CompiledCommandParser.value(this.request, start, this.instances[offset + 2], this.instances[offset + 3]);
+    }
+}
@@ -0,0 +1,347 @@
+package org.sunyuyangg.service.core.method.parser;
+
+import com.ibm.staf.service.STAFCommandParser;
+import org.sunyuyangg.service.core.method.OptionMappingInfo;
+
+import java.util.List;
+
+/**
+ * Table-driven {@link CommandParser} compiled from the options, option groups and
+ * option needs of an {@link OptionMappingInfo}.
+ *
+ * <p>The request is tokenized into offset/length slices of the original string,
+ * option names are resolved through a case-folded hash table without creating
+ * substrings, and groups and needs are checked with bitsets. Option values are
+ * only materialized when read from the {@link CompiledCommandParseResult}.
+ *
+ * <p>Meant to accept the same syntax as the STAF parser (quoted values with
+ * {@code \"} and {@code \\} escapes, {@code :length:data} values) and to report
+ * the same error codes and messages; {@code CompiledCommandParserTest} compares
+ * both parsers on the same requests.
+ */
+public class CompiledCommandParser implements CommandParser {
+
+    static final int PLAIN = 0;
+
+    static final int QUOTED = 1;
+
+    static final int QUOTED_ESCAPED = 2;
+
+    static final int LENGTH_DELIMITED = 3;
+
+    private final int maxArgs;
+
+    private final boolean caseSensitive;
+
+    private final String[] names;
+
+    private final int[] maxAllowed;
+
+    private final int[] valueRequirement;
+
+    private final int[] nameTable;
+
+    private final int[] nameHashes;
+
+    private final int nameMask;
+
+    private int optionCount;
+
+    private final int words;
+
+    private final long[][] groupMasks;
+
+    private final int[] groupMin;
+
+    private final int[] groupMax;
+
+    private final String[] groupNames;
+
+    private final long[][] neederMasks;
+
+    private final long[][] needeeMasks;
+
+    private final String[] needers;
+
+    private final String[] needees;
+
+    public CompiledCommandParser(OptionMappingInfo mapping) {
+        this.maxArgs = mapping.getMaxArgs();
+        this.caseSensitive = mapping.isCaseSensitive();
+
+        List<OptionMappingInfo.Option> options = mapping.getOptions();
+        int count = options.size();
+        this.names = new String[count];
+        this.maxAllowed = new int[count];
+        this.valueRequirement = new int[count];
+        this.nameHashes = new int[count];
+        int capacity = 2;
+        while (capacity < count * 2) {
+            capacity <<= 1;
+        }
+        this.nameTable = new int[capacity];
+        this.nameMask = capacity - 1;
+        for (OptionMappingInfo.Option option : options) {
+            int index = indexOf(option.name, 0, option.name.length());
+            if (index < 0) {
+                index = register(option.name);
+            }
+            // Like STAFCommandParser#addOption, a later definition replaces an earlier one
+            this.maxAllowed[index] = option.maxAllowed;
+            this.valueRequirement[index] = option.valueRequirement;
+        }
+        this.words = Math.max(1, (this.optionCount + 63) >>> 6);
+
+        List<OptionMappingInfo.OptionGroup> groups = mapping.getOptionGroups();
+        this.groupMasks = new long[groups.size()][];
+        this.groupMin = new int[groups.size()];
+        this.groupMax = new int[groups.size()];
+        this.groupNames = new String[groups.size()];
+        for (int i = 0; i < groups.size(); i++) {
+            OptionMappingInfo.OptionGroup group = groups.get(i);
+            this.groupMasks[i] = mask(group.names);
+            this.groupMin[i] = group.min;
+            this.groupMax[i] = group.max;
+            this.groupNames[i] = group.names;
+        }
+
+        List<OptionMappingInfo.OptionNeed> needs = mapping.getOptionNeeds();
+        this.neederMasks = new long[needs.size()][];
+        this.needeeMasks = new long[needs.size()][];
+        this.needers = new String[needs.size()];
+        this.needees = new String[needs.size()];
+        for (int i = 0; i < needs.size(); i++) {
+            OptionMappingInfo.OptionNeed need = needs.get(i);
+            this.neederMasks[i] = mask(need.needers);
+            this.needeeMasks[i] = mask(need.needees);
+            this.needers[i] = need.needers;
+            this.needees[i] = need.needees;
+        }
+    }
+
+    private int register(String name) {
+        int index = this.optionCount++;
+        this.names[index] = name;
+        int hash = hash(name, 0, name.length());
+        this.nameHashes[index] = hash;
+        int slot = hash & this.nameMask;
+        while (this.nameTable[slot] != 0) {
+            slot = (slot + 1) & this.nameMask;
+        }
+        this.nameTable[slot] = index + 1;
+        return index;
+    }
+
+    private long[] mask(String names) {
+        long[] mask = new long[this.words];
+        int length = names.length();
+        int start = skipWhitespace(names, 0, length);
+        while (start < length) {
+            int end = skipToken(names, start, length);
+            int option = indexOf(names, start, end);
+            if (option >= 0) {
+                mask[option >>> 6] |= 1L << option;
+            }
+            start = skipWhitespace(names, end, length);
+        }
+        return mask;
+    }
+
+    @Override
+    public CompiledCommandParseResult parse(String request) {
+        CompiledCommandParseResult result = new CompiledCommandParseResult(this, request);
+        int pending = -1;
+        int length = request.length();
+        int index = skipWhitespace(request, 0, length);
+        while (index < length) {
+            int kind;
+            int valueStart;
+            int valueEnd;
+            int next;
+            char c = request.charAt(index);
+            int dataStart = (c == ':' ? lengthDelimitedDataStart(request, index, length) : -1);
+            if (c == '"') {
+                kind = QUOTED;
+                valueStart = index + 1;
+                valueEnd = valueStart;
+                while (valueEnd < length && request.charAt(valueEnd) != '"') {
+                    if (request.charAt(valueEnd) == '\\' && valueEnd + 1 < length) {
+                        kind = QUOTED_ESCAPED;
+                        valueEnd++;
+                    }
+                    valueEnd++;
+                }
+                next = Math.min(valueEnd + 1, length);
+            } else if (dataStart >= 0) {
+                kind = LENGTH_DELIMITED;
+                valueStart = dataStart;
+                valueEnd = (int) Math.min((long) dataStart + parseLength(request, index + 1, dataStart - 1), length);
+                next = valueEnd;
+            } else {
+                kind = PLAIN;
+                valueStart = index;
+                valueEnd = skipToken(request, index, length);
+                next = valueEnd;
+            }
+            index = skipWhitespace(request, next, length);
+
+            int option = (kind == PLAIN ? indexOf(request, valueStart, valueEnd) : -1);
+            if (option >= 0) {
+                if (pending >= 0 && this.valueRequirement[pending] == STAFCommandParser.VALUEREQUIRED) {
+                    return result.fail("Option, " + this.names[pending] + ", requires a value");
+                }
+                pending = -1;
+                if (this.maxAllowed[option] != 0 && result.optionTimes(option) >= this.maxAllowed[option]) {
+                    return result.fail("You may have no more than " + this.maxAllowed[option] +
+                            " instances of option " + this.names[option]);
+                }
+                result.addInstance(option);
+                if (this.valueRequirement[option] != STAFCommandParser.VALUENOTALLOWED) {
+                    pending = option;
+                }
+            } else if (pending >= 0) {
+                result.setValue(valueStart, valueEnd, kind);
+                pending = -1;
+            } else {
+                result.addArg(valueStart, valueEnd, kind);
+                if (result.numArgs() > this.maxArgs) {
+                    return result.fail("You may have no more than " + this.maxArgs + " argument(s).  You specified " +
+                            result.numArgs() + " argument(s).  The first excess argument is, " +
+                            result.arg(result.numArgs()) + ".");
+                }
+            }
+        }
+        if (pending >= 0 && this.valueRequirement[pending] == STAFCommandParser.VALUEREQUIRED) {
+            return result.fail("Option, " + this.names[pending] + ", requires a value");
+        }
+
+        long[] present = result.present();
+        for (int i = 0; i < this.groupMasks.length; i++) {
+            int found = countCommon(this.groupMasks[i], present);
+            if (found < this.groupMin[i] || found > this.groupMax[i]) {
+                return result.fail("You must have at least " + this.groupMin[i] + ", but no more than " +
+                        this.groupMax[i] + " of the option(s), " + this.groupNames[i]);
+            }
+        }
+        for (int i = 0; i < this.neederMasks.length; i++) {
+            if (countCommon(this.neederMasks[i], present) > 0 && countCommon(this.needeeMasks[i], present) == 0) {
+                return result.fail("You must have at least one of the option(s), " + this.needees[i] +
+                        ", with the option(s), " + this.needers[i]);
+            }
+        }
+        return result;
+    }
+
+    int optionCount() {
+        return this.optionCount;
+    }
+
+    int words() {
+        return this.words;
+    }
+
+    String optionName(int option) {
+        return this.names[option];
+    }
+
+    /**
+     * Return the index of the option named by the given slice, or a negative value.
+     */
+    int indexOf(CharSequence chars, int start, int end) {
+        int hash = hash(chars, start, end);
+        for (int slot = hash & this.nameMask; ; slot = (slot + 1) & this.nameMask) {
+            int entry = this.nameTable[slot];
+            if (entry == 0) {
+                return -slot - 1;
+            }
+            int option = entry - 1;
+            if (this.nameHashes[option] == hash && regionMatches(chars, start, end, this.names[option])) {
+                return option;
+            }
+        }
+    }
+
+    private int hash(CharSequence chars, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + fold(chars.charAt(i));
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private boolean regionMatches(CharSequence chars, int start, int end, String name) {
+        if (end - start != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (fold(chars.charAt(start + i)) != fold(name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private char fold(char c) {
+        return (this.caseSensitive ? c : Character.toUpperCase(c));
+    }
+
+    private static int countCommon(long[] mask, long[] present) {
+        int count = 0;
+        for (int i = 0; i < mask.length; i++) {
+            count += Long.bitCount(mask[i] & present[i]);
+        }
+        return count;
+    }
+
+    /**
+     * Return the start of the data of a {@code :length:data} token, or -1 if the
+     * token at the given index is not in that format.
+     */
+    private static int lengthDelimitedDataStart(String request, int index, int length) {
+        int i = index + 1;
+        while (i < length && Character.isDigit(request.charAt(i))) {
+            i++;
+        }
+        return (i > index + 1 && i < length && request.charAt(i) == ':' ? i + 1 : -1);
+    }
+
+    private static long parseLength(String request, int start, int end) {
+        long value = 0;
+        for (int i = start; i < end && value <= Integer.MAX_VALUE; i++) {
+            value = value * 10 + (request.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    private static int skipWhitespace(CharSequence chars, int index, int length) {
+        while (index < length && Character.isWhitespace(chars.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static int skipToken(CharSequence chars, int index, int length) {
+        while (index < length && !Character.isWhitespace(chars.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Return the value of a token slice, processing quote escapes.
+     */
+    static String value(String request, int start, int end, int kind) {
+        if (kind != QUOTED_ESCAPED) {
+            return request.substring(start, end);
+        }
+        StringBuilder sb = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = request.charAt(i);
+            if (c == '\\' && i + 1 < end && (request.charAt(i + 1) == '"' || request.charAt(i + 1) == '\\')) {
+                c = request.charAt(++i);
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,176 @@
+package org.sunyuyangg.service.core.method.parser;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded LRU cache of {@link CommandParseResult}s keyed by the parser
+ * (and thereby the mapping, including its case sensitivity) and the raw request
+ * string, used by {@link CachingCommandParser} to skip parsing for repeated requests.
+ *
+ * <p>Eviction is driven by a maximum number of entries and a maximum estimated
+ * size in bytes; a request too large for the byte limit on its own is never cached.
+ * Thread-safe; one instance may be shared by all mappings of a handler mapping.
+ */
+public class ParseResultCache {
+
+    /**
+     * Rough per-entry overhead of the key, the map node and the parse result, in bytes.
+     */
+    private static final int ENTRY_OVERHEAD = 160;
+
+    private final int maxEntries;
+
+    private final long maxBytes;
+
+    private final LinkedHashMap<Key, CommandParseResult> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long bytes;
+
+    private long hitCount;
+
+    private long missCount;
+
+    private long evictionCount;
+
+    /**
+     * Create a cache bounded by the given limits.
+     *
+     * @param maxEntries the maximum number of cached parse results
+     * @param maxBytes   the maximum estimated size of the cached parse results in bytes
+     */
+    public ParseResultCache(int maxEntries, long maxBytes) {
+        Assert.isTrue(maxEntries > 0, "maxEntries must be greater than 0");
+        Assert.isTrue(maxBytes > 0, "maxBytes must be greater than 0");
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Return the cached result of the given parser for the given request, or {@code null}.
+     */
+    @Nullable
+    public synchronized CommandParseResult get(CommandParser parser, String request) {
+        CommandParseResult parseResult = this.cache.get(new Key(parser, request));
+        if (parseResult != null) {
+            this.hitCount++;
+        } else {
+            this.missCount++;
+        }
+        return parseResult;
+    }
+
+    /**
+     * Cache the result of the given parser for the given request, evicting the
+     * least recently used entries until both limits are met again.
+     */
+    public synchronized void put(CommandParser parser, String request, CommandParseResult parseResult) {
+        long size = estimateSize(request);
+        if (size > this.maxBytes) {
+            return;
+        }
+        if (this.cache.put(new Key(parser, request), parseResult) == null) {
+            this.bytes += size;
+        }
+        Iterator<Map.Entry<Key, CommandParseResult>> it = this.cache.entrySet().iterator();
+        while ((this.cache.size() > this.maxEntries || this.bytes > this.maxBytes) && it.hasNext()) {
+            Key eldest = it.next().getKey();
+            it.remove();
+            this.bytes -= estimateSize(eldest.request);
+            this.evictionCount++;
+        }
+    }
+
+    /**
+     * Remove all cached results; the counters are kept.
+     */
+    public synchronized void clear() {
+        this.cache.clear();
+        this.bytes = 0;
+    }
+
+    public int getMaxEntries() {
+        return this.maxEntries;
+    }
+
+    public long getMaxBytes() {
+        return this.maxBytes;
+    }
+
+    /**
+     * Return the number of cached parse results.
+     */
+    public synchronized int size() {
+        return this.cache.size();
+    }
+
+    /**
+     * Return the estimated size of the cached parse results in bytes.
+     */
+    public synchronized long getEstimatedBytes() {
+        return this.bytes;
+    }
+
+    public synchronized long getHitCount() {
+        return this.hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return this.missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return this.evictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ParseResultCache[entries=" + this.cache.size() + "/" + this.maxEntries +
+                ", bytes=" + this.bytes + "/" + this.maxBytes +
+                ", hits=" + this.hitCount + ", misses=" + this.missCount + ", evictions=" + this.evictionCount + "]";
+    }
+
+    /**
+     * The request is held by the key and, as option values and arguments, by the result.
+     */
+    private static long estimateSize(String request) {
+        return ENTRY_OVERHEAD + 4L * request.length();
+    }
+
+
+    private static class Key {
+
+        private final CommandParser parser;
+
+        private final String request;
+
+        private final int hash;
+
+        public Key(CommandParser parser, String request) {
+            this.parser = parser;
+            this.request = request;
+            this.hash = 31 * System.identityHashCode(parser) + request.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key otherKey = (Key) other;
+            return (this.parser == otherKey.parser && this.request.equals(otherKey.request));
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+}
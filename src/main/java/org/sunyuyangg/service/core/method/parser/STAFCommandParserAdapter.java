@@ -0,0 +1,85 @@
+package org.sunyuyangg.service.core.method.parser;
+
+import com.ibm.staf.service.STAFCommandParseResult;
+import com.ibm.staf.service.STAFCommandParser;
+import org.sunyuyangg.service.core.method.OptionMappingInfo;
+
+/**
+ * {@link CommandParser} backed by the STAF {@link STAFCommandParser}. This is the default.
+ */
+public class STAFCommandParserAdapter implements CommandParser {
+
+    private final STAFCommandParser commandParser;
+
+    public STAFCommandParserAdapter(OptionMappingInfo mapping) {
+        this.commandParser = new STAFCommandParser(mapping.getMaxArgs(), mapping.isCaseSensitive());
+        mapping.getOptions().forEach(option -> this.commandParser.addOption(option.name, option.maxAllowed, option.valueRequirement));
+        mapping.getOptionGroups().forEach(optionGroup -> this.commandParser.addOptionGroup(optionGroup.names, optionGroup.min, optionGroup.max));
+        mapping.getOptionNeeds().forEach(optionNeed -> this.commandParser.addOptionNeed(optionNeed.needers, optionNeed.needees));
+    }
+
+    @Override
+    public CommandParseResult parse(String request) {
+        return new STAFCommandParseResultAdapter(this.commandParser.parse(request));
+    }
+
+
+    private static class STAFCommandParseResultAdapter implements CommandParseResult {
+
+        private final STAFCommandParseResult parseResult;
+
+        public STAFCommandParseResultAdapter(STAFCommandParseResult parseResult) {
+            this.parseResult = parseResult;
+        }
+
+        @Override
+        public int getRc() {
+            return this.parseResult.rc;
+        }
+
+        @Override
+        public String getErrorBuffer() {
+            return this.parseResult.errorBuffer;
+        }
+
+        @Override
+        public int optionTimes(String optionName) {
+            return this.parseResult.optionTimes(optionName);
+        }
+
+        @Override
+        public String optionValue(String optionName) {
+            return this.parseResult.optionValue(optionName);
+        }
+
+        @Override
+        public String optionValue(String optionName, int instanceNumber) {
+            return this.parseResult.optionValue(optionName, instanceNumber);
+        }
+
+        @Override
+        public int numInstances() {
+            return this.parseResult.numInstances();
+        }
+
+        @Override
+        public String instanceName(int instanceNumber) {
+            return this.parseResult.instanceName(instanceNumber);
+        }
+
+        @Override
+        public String instanceValue(int instanceNumber) {
+            return this.parseResult.instanceValue(instanceNumber);
+        }
+
+        @Override
+        public int numArgs() {
+            return this.parseResult.numArgs();
+        }
+
+        @Override
+        public String arg(int argNumber) {
+            return this.parseResult.arg(argNumber);
+        }
+    }
+}
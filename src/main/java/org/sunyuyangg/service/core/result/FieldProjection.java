@@ -0,0 +1,156 @@
+package org.sunyuyangg.service.core.result;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.lang.Nullable;
+import org.sunyuyangg.service.core.support.MapClassMapping;
+import org.sunyuyangg.service.core.support.MapClassMappingRegistry;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A compiled set of property paths such as {@code name,size.total,size.free},
+ * projecting a result onto the requested properties. Collections and arrays are
+ * projected element by element, streams and iterators lazily; beans and maps
+ * become maps holding the requested properties only, in the requested order.
+ * The properties of each bean type are looked up once per path and cached, so
+ * a projection is compiled once per (type, field set).
+ */
+public class FieldProjection {
+
+    private final String fields;
+
+    private final Node root = new Node();
+
+    private final MapClassMappingRegistry mappings;
+
+    /**
+     * Compile the given comma-separated property paths.
+     *
+     * @throws IllegalArgumentException if a path is empty or has an empty segment
+     */
+    public FieldProjection(String fields, MapClassMappingRegistry mappings) {
+        this.fields = fields;
+        this.mappings = mappings;
+        for (String path : fields.split(",")) {
+            Node node = this.root;
+            for (String name : path.trim().split("\\.", -1)) {
+                if (name.isEmpty()) {
+                    throw new IllegalArgumentException("Invalid field path '" + path.trim() + "' in '" + fields + "'");
+                }
+                node = node.children.computeIfAbsent(name, key -> new Node());
+            }
+        }
+    }
+
+    public String getFields() {
+        return this.fields;
+    }
+
+    /**
+     * Return the projection of the given value.
+     *
+     * @throws IllegalArgumentException if a path names a property a bean does not have
+     */
+    @Nullable
+    public Object project(@Nullable Object value) throws Exception {
+        return project(value, this.root);
+    }
+
+    @Nullable
+    private Object project(@Nullable Object value, Node node) throws Exception {
+        if (value == null || node.children.isEmpty() || value instanceof Enum || BeanUtils.isSimpleValueType(value.getClass())) {
+            return value;
+        }
+        if (value instanceof Stream || value instanceof Iterator) {
+            Stream<?> elements = (value instanceof Stream ? (Stream<?>) value : StreamSupport.stream(
+                    Spliterators.spliteratorUnknownSize((Iterator<?>) value, Spliterator.ORDERED), false));
+            return elements.map(element -> projectElement(element, node));
+        }
+        if (value instanceof Iterable) {
+            List<Object> list = new ArrayList<>();
+            for (Object element : (Iterable<?>) value) {
+                list.add(project(element, node));
+            }
+            return list;
+        }
+        if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            List<Object> list = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) {
+                list.add(project(Array.get(value, i), node));
+            }
+            return list;
+        }
+        Map<String, Object> projection = new LinkedHashMap<>(node.children.size() * 4 / 3 + 1);
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            for (Map.Entry<String, Node> child : node.children.entrySet()) {
+                if (map.containsKey(child.getKey())) {
+                    projection.put(child.getKey(), project(map.get(child.getKey()), child.getValue()));
+                }
+            }
+            return projection;
+        }
+        MapClassMapping mapping = this.mappings.getMapping(value.getClass());
+        int[] indexes = node.getIndexes(mapping);
+        int i = 0;
+        for (Map.Entry<String, Node> child : node.children.entrySet()) {
+            projection.put(child.getKey(), project(mapping.getValue(value, indexes[i++]), child.getValue()));
+        }
+        return projection;
+    }
+
+    @Nullable
+    private Object projectElement(@Nullable Object element, Node node) {
+        try {
+            return project(element, node);
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new IllegalStateException("Could not project " + element + " onto " + this.fields, ex);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FieldProjection[" + this.fields + "]";
+    }
+
+
+    private static class Node {
+
+        final Map<String, Node> children = new LinkedHashMap<>();
+
+        /**
+         * Property indexes of the children per bean type
+         */
+        final Map<Class<?>, int[]> indexes = new ConcurrentHashMap<>(4);
+
+        int[] getIndexes(MapClassMapping mapping) {
+            int[] indexes = this.indexes.get(mapping.getType());
+            if (indexes == null) {
+                indexes = new int[this.children.size()];
+                int i = 0;
+                for (String name : this.children.keySet()) {
+                    indexes[i] = mapping.indexOf(name);
+                    if (indexes[i++] < 0) {
+                        throw new IllegalArgumentException("Unknown field '" + name + "' of " +
+                                mapping.getType().getName() + ", expected one of " + mapping.getKeys());
+                    }
+                }
+                this.indexes.put(mapping.getType(), indexes);
+            }
+            return indexes;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.sunyuyangg.service.core.result;
+
+import org.springframework.core.Ordered;
+import org.sunyuyangg.service.core.DispatchContext;
+import org.sunyuyangg.service.core.ReservedOptions;
+import org.sunyuyangg.service.core.ResultProcessor;
+import org.sunyuyangg.service.core.support.MapClassMappingRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link ResultProcessor} projecting the result onto the property paths of the
+ * {@link ReservedOptions#FIELDS} option, so that only those are rendered; the
+ * items of a {@link ResultPage} are projected, keeping its cursor.
+ * Compiled projections are kept in a bounded LRU cache keyed by field set.
+ */
+public class FieldProjectionProcessor implements ResultProcessor, Ordered {
+
+    public static final int ORDER = 300;
+
+    public static final int DEFAULT_CACHE_LIMIT = 256;
+
+    private final MapClassMappingRegistry mappings;
+
+    private final Map<String, FieldProjection> projections;
+
+    public FieldProjectionProcessor() {
+        this(new MapClassMappingRegistry(), DEFAULT_CACHE_LIMIT);
+    }
+
+    public FieldProjectionProcessor(MapClassMappingRegistry mappings, int cacheLimit) {
+        this.mappings = mappings;
+        this.projections = new LinkedHashMap<String, FieldProjection>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, FieldProjection> eldest) {
+                return size() > cacheLimit;
+            }
+        };
+    }
+
+    @Override
+    public Object process(Object result, DispatchContext context) throws Exception {
+        String fields = context.getReservedOption(ReservedOptions.FIELDS);
+        if (fields == null) {
+            return result;
+        }
+        FieldProjection projection = getProjection(fields);
+        if (result instanceof ResultPage) {
+            ResultPage page = (ResultPage) result;
+            return page.withItems((List<?>) projection.project(page.getItems()));
+        }
+        return projection.project(result);
+    }
+
+    private FieldProjection getProjection(String fields) {
+        synchronized (this.projections) {
+            FieldProjection projection = this.projections.get(fields);
+            if (projection == null) {
+                projection = new FieldProjection(fields, this.mappings);
+                this.projections.put(fields, projection);
+            }
+            return projection;
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
@@ -0,0 +1,258 @@
+package org.sunyuyangg.service.core.result;
+
+import com.ibm.staf.service.STAFServiceInterfaceLevel30.RequestInfo;
+import org.pmw.tinylog.Logger;
+import org.springframework.core.Ordered;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.CollectionUtils;
+import org.sunyuyangg.service.core.DispatchContext;
+import org.sunyuyangg.service.core.ReservedOptions;
+import org.sunyuyangg.service.core.ResultProcessor;
+import org.sunyuyangg.service.core.handler.HandlerMethod;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * {@link ResultProcessor} rendering the first {@link ReservedOptions#PAGESIZE}
+ * elements of a list, iterable, iterator, array or stream result as a {@link ResultPage}.
+ * The iterator over the remaining elements is kept under the cursor of the page,
+ * so that a request of the same handler with the {@link ReservedOptions#CURSOR}
+ * option gets the next page without the handler being invoked again. A cursor
+ * is bound to the machine and handle that requested the first page, and is
+ * unknown to any other requester.
+ *
+ * <p>A cursor can be used once; the next page carries a new one. Kept
+ * iterators expire after {@link #DEFAULT_CURSOR_TIME_TO_LIVE_MILLIS} without
+ * being paged, and the oldest are dropped beyond {@link #DEFAULT_CURSOR_LIMIT};
+ * the streams they come from are then closed. The remainder of a page that
+ * fails to be processed further or rendered is dropped right away.
+ */
+public class PaginationProcessor implements ResultProcessor, Ordered {
+
+    public static final int ORDER = 200;
+
+    public static final long DEFAULT_CURSOR_TIME_TO_LIVE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    public static final int DEFAULT_CURSOR_LIMIT = 1024;
+
+    private final long timeToLiveNanos;
+
+    /**
+     * Kept remainders in order of expiry, as all have the same time to live
+     */
+    private final Map<String, Remainder> remainders;
+
+    public PaginationProcessor() {
+        this(DEFAULT_CURSOR_TIME_TO_LIVE_MILLIS, DEFAULT_CURSOR_LIMIT);
+    }
+
+    public PaginationProcessor(long timeToLiveMillis, int cursorLimit) {
+        Assert.isTrue(timeToLiveMillis > 0, "Time to live must be positive");
+        this.timeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(timeToLiveMillis);
+        this.remainders = new LinkedHashMap<String, Remainder>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Remainder> eldest) {
+                if (size() > cursorLimit) {
+                    eldest.getValue().close();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public Object process(Object result, DispatchContext context) throws Exception {
+        Integer pageSize = getPageSize(context);
+        if (pageSize == null) {
+            return result;
+        }
+        Iterator<?> iterator;
+        AutoCloseable source = null;
+        if (result instanceof Stream) {
+            iterator = ((Stream<?>) result).iterator();
+            source = (Stream<?>) result;
+        } else if (result instanceof Iterator) {
+            iterator = (Iterator<?>) result;
+        } else if (result instanceof Iterable) {
+            iterator = ((Iterable<?>) result).iterator();
+        } else if (result.getClass().isArray()) {
+            iterator = CollectionUtils.arrayToList(result).iterator();
+        } else {
+            return result;
+        }
+        RequestInfo request = context.getRequest();
+        return nextPage(new Remainder(iterator, source, pageSize, getHandlerMethod(context),
+                request.machine, request.handle), pageSize);
+    }
+
+    @Override
+    @Nullable
+    public Object getKeptResult(DispatchContext context) throws Exception {
+        String cursor = context.getReservedOption(ReservedOptions.CURSOR);
+        if (cursor == null) {
+            return null;
+        }
+        RequestInfo request = context.getRequest();
+        Remainder remainder;
+        synchronized (this.remainders) {
+            removeExpired();
+            remainder = this.remainders.get(cursor);
+            if (remainder != null && remainder.isRequestedBy(request)) {
+                this.remainders.remove(cursor);
+            } else {
+                remainder = null;
+            }
+        }
+        if (remainder == null || !Objects.equals(remainder.method, getHandlerMethod(context))) {
+            if (remainder != null) {
+                remainder.close();
+            }
+            throw new IllegalArgumentException("Unknown or expired " + ReservedOptions.CURSOR + " '" + cursor + "'");
+        }
+        Integer pageSize = getPageSize(context);
+        return nextPage(remainder, (pageSize != null ? pageSize : remainder.pageSize));
+    }
+
+    /**
+     * Drop the remainder kept under the cursor of the given page, as the page
+     * carrying the cursor never reached the requester.
+     */
+    @Override
+    public void discardResult(Object result, DispatchContext context) {
+        if (!(result instanceof ResultPage) || ((ResultPage) result).getCursor() == null) {
+            return;
+        }
+        Remainder remainder;
+        synchronized (this.remainders) {
+            remainder = this.remainders.remove(((ResultPage) result).getCursor());
+        }
+        if (remainder != null) {
+            remainder.close();
+        }
+    }
+
+    private ResultPage nextPage(Remainder remainder, int pageSize) {
+        ArrayList<Object> items = new ArrayList<>(Math.min(pageSize, 256));
+        Iterator<?> iterator = remainder.iterator;
+        while (items.size() < pageSize && iterator.hasNext()) {
+            items.add(iterator.next());
+        }
+        if (!iterator.hasNext()) {
+            remainder.close();
+            return new ResultPage(items, null);
+        }
+        String cursor = UUID.randomUUID().toString();
+        remainder.expiresAt = System.nanoTime() + this.timeToLiveNanos;
+        synchronized (this.remainders) {
+            removeExpired();
+            this.remainders.put(cursor, remainder);
+        }
+        return new ResultPage(items, cursor);
+    }
+
+    private void removeExpired() {
+        long now = System.nanoTime();
+        Iterator<Remainder> iterator = this.remainders.values().iterator();
+        while (iterator.hasNext()) {
+            Remainder remainder = iterator.next();
+            if (remainder.expiresAt - now > 0) {
+                break;
+            }
+            iterator.remove();
+            remainder.close();
+        }
+    }
+
+    @Nullable
+    private static Integer getPageSize(DispatchContext context) {
+        String pageSize = context.getReservedOption(ReservedOptions.PAGESIZE);
+        if (pageSize == null) {
+            return null;
+        }
+        try {
+            int size = Integer.parseInt(pageSize.trim());
+            if (size > 0) {
+                return size;
+            }
+        } catch (NumberFormatException ex) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid " + ReservedOptions.PAGESIZE + " '" + pageSize +
+                "', expected a positive number");
+    }
+
+    @Nullable
+    private static Method getHandlerMethod(DispatchContext context) {
+        HandlerMethod handler = context.getHandler();
+        return (handler != null ? handler.getMethod() : null);
+    }
+
+    /**
+     * Return the number of results with pages left to fetch.
+     */
+    public int getCursorCount() {
+        synchronized (this.remainders) {
+            return this.remainders.size();
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+
+    private static final class Remainder {
+
+        final Iterator<?> iterator;
+
+        @Nullable
+        final AutoCloseable source;
+
+        final int pageSize;
+
+        @Nullable
+        final Method method;
+
+        @Nullable
+        final String machine;
+
+        final int handle;
+
+        volatile long expiresAt;
+
+        Remainder(Iterator<?> iterator, @Nullable AutoCloseable source, int pageSize, @Nullable Method method,
+                  @Nullable String machine, int handle) {
+            this.iterator = iterator;
+            this.source = source;
+            this.pageSize = pageSize;
+            this.method = method;
+            this.machine = machine;
+            this.handle = handle;
+        }
+
+        boolean isRequestedBy(RequestInfo request) {
+            return (this.handle == request.handle && Objects.equals(this.machine, request.machine));
+        }
+
+        void close() {
+            if (this.source != null) {
+                try {
+                    this.source.close();
+                } catch (Exception ex) {
+                    Logger.warn(ex, "Could not close the source of a paged result");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.sunyuyangg.service.core.result;
+
+import org.springframework.lang.Nullable;
+import org.sunyuyangg.service.core.support.MapClassMapping;
+import org.sunyuyangg.service.core.support.MapClassMappingRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A dotted property path such as {@code size.total}, read from beans through
+ * their {@link MapClassMapping} and from maps by key. The index of each
+ * segment's property is looked up once per bean type and cached.
+ */
+final class PropertyPath {
+
+    private final String path;
+
+    private final Segment[] segments;
+
+    private final MapClassMappingRegistry mappings;
+
+    /**
+     * @throws IllegalArgumentException if the path has an empty segment
+     */
+    PropertyPath(String path, MapClassMappingRegistry mappings) {
+        this.path = path;
+        String[] names = path.split("\\.", -1);
+        this.segments = new Segment[names.length];
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].isEmpty()) {
+                throw new IllegalArgumentException("Invalid property path '" + path + "'");
+            }
+            this.segments[i] = new Segment(names[i]);
+        }
+        this.mappings = mappings;
+    }
+
+    /**
+     * Return the value at the end of the path, or {@code null} if a value on the
+     * way is {@code null} or a map lacks the key.
+     *
+     * @throws IllegalArgumentException if a bean on the way has no such property
+     */
+    @Nullable
+    Object getValue(@Nullable Object root) throws Exception {
+        Object value = root;
+        for (int i = 0; i < this.segments.length && value != null; i++) {
+            Segment segment = this.segments[i];
+            if (value instanceof Map) {
+                value = ((Map<?, ?>) value).get(segment.name);
+                continue;
+            }
+            MapClassMapping mapping = this.mappings.getMapping(value.getClass());
+            Integer index = segment.indexes.get(mapping.getType());
+            if (index == null) {
+                index = mapping.indexOf(segment.name);
+                if (index < 0) {
+                    throw new IllegalArgumentException("Unknown field '" + segment.name + "' of " +
+                            mapping.getType().getName() + ", expected one of " + mapping.getKeys());
+                }
+                segment.indexes.put(mapping.getType(), index);
+            }
+            value = mapping.getValue(value, index);
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return this.path;
+    }
+
+
+    private static final class Segment {
+
+        final String name;
+
+        /**
+         * Index of the property per bean type
+         */
+        final Map<Class<?>, Integer> indexes = new ConcurrentHashMap<>(4);
+
+        Segment(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.sunyuyangg.service.core.result;
+
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * A page of a collection result, rendered in place of the result when the
+ * request carries the {@link org.sunyuyangg.service.core.ReservedOptions#PAGESIZE}
+ * option, with the cursor of the next page if there is one.
+ */
+public class ResultPage {
+
+    private final List<?> items;
+
+    @Nullable
+    private final String cursor;
+
+    public ResultPage(List<?> items, @Nullable String cursor) {
+        this.items = items;
+        this.cursor = cursor;
+    }
+
+    public List<?> getItems() {
+        return this.items;
+    }
+
+    /**
+     * Return the cursor of the next page, or {@code null} for the last page.
+     */
+    @Nullable
+    public String getCursor() {
+        return this.cursor;
+    }
+
+    /**
+     * Return a page with the same cursor and the given items, e.g. projected ones.
+     */
+    public ResultPage withItems(List<?> items) {
+        return new ResultPage(items, this.cursor);
+    }
+
+    @Override
+    public String toString() {
+        return "ResultPage[items=" + this.items.size() + ", cursor=" + this.cursor + "]";
+    }
+}
@@ -0,0 +1,368 @@
+package org.sunyuyangg.service.core.result;
+
+import org.springframework.lang.Nullable;
+import org.sunyuyangg.service.core.ReservedOptions;
+import org.sunyuyangg.service.core.support.MapClassMappingRegistry;
+
+import java.math.BigDecimal;
+
+/**
+ * A compiled predicate over the properties of a result element, e.g.
+ * {@code size >= 4 and (name = 'dev1' or not removable)}.
+ *
+ * <p>The language consists of:
+ * <ul>
+ * <li>comparisons of a property path with a literal, using {@code =} (or {@code ==}),
+ * {@code !=} (or {@code <>}), {@code <}, {@code <=}, {@code >}, {@code >=} and
+ * {@code ~} (contains);</li>
+ * <li>a property path alone, true if the property is {@code true};</li>
+ * <li>{@code and}, {@code or} and {@code not} (also {@code &&}, {@code ||} and
+ * {@code !}) with the usual precedence, and parentheses.</li>
+ * </ul>
+ * Literals are numbers, {@code true}, {@code false}, {@code null}, and strings, quoted
+ * with single or double quotes or bare. Numeric properties compare numerically with
+ * numeric literals; other properties compare by their string form, enums by name.
+ * Comparisons other than {@code !=} are false for {@code null} properties.
+ */
+public final class WhereExpression {
+
+    @FunctionalInterface
+    private interface Condition {
+
+        boolean test(@Nullable Object element) throws Exception;
+    }
+
+    private final String expression;
+
+    private final Condition condition;
+
+    private WhereExpression(String expression, Condition condition) {
+        this.expression = expression;
+        this.condition = condition;
+    }
+
+    /**
+     * Compile the given expression.
+     *
+     * @throws IllegalArgumentException if the expression is not well-formed
+     */
+    public static WhereExpression compile(String expression, MapClassMappingRegistry mappings) {
+        return new WhereExpression(expression, new Parser(expression, mappings).parse());
+    }
+
+    public String getExpression() {
+        return this.expression;
+    }
+
+    /**
+     * Return whether the given element matches the expression.
+     *
+     * @throws IllegalArgumentException if a path names a property a bean does not have
+     */
+    public boolean matches(@Nullable Object element) throws Exception {
+        return this.condition.test(element);
+    }
+
+    @Override
+    public String toString() {
+        return "WhereExpression[" + this.expression + "]";
+    }
+
+
+    private enum Operator {
+
+        EQ, NE, LT, LE, GT, GE, CONTAINS;
+
+        @Nullable
+        static Operator of(String token) {
+            switch (token) {
+                case "=":
+                case "==":
+                    return EQ;
+                case "!=":
+                case "<>":
+                    return NE;
+                case "<":
+                    return LT;
+                case "<=":
+                    return LE;
+                case ">":
+                    return GT;
+                case ">=":
+                    return GE;
+                case "~":
+                    return CONTAINS;
+                default:
+                    return null;
+            }
+        }
+    }
+
+
+    private static final class Comparison implements Condition {
+
+        private final PropertyPath path;
+
+        private final Operator operator;
+
+        /**
+         * The literal as text, {@code null} for the null literal
+         */
+        @Nullable
+        private final String text;
+
+        @Nullable
+        private final BigDecimal number;
+
+        Comparison(PropertyPath path, Operator operator, @Nullable String text, @Nullable BigDecimal number) {
+            this.path = path;
+            this.operator = operator;
+            this.text = text;
+            this.number = number;
+        }
+
+        @Override
+        public boolean test(@Nullable Object element) throws Exception {
+            Object value = this.path.getValue(element);
+            if (value == null || this.text == null) {
+                boolean equal = (value == null && this.text == null);
+                return (this.operator == Operator.NE ? !equal : this.operator == Operator.EQ && equal);
+            }
+            String text = (value instanceof Enum ? ((Enum<?>) value).name() : value.toString());
+            if (this.operator == Operator.CONTAINS) {
+                return text.contains(this.text);
+            }
+            int comparison = (value instanceof Number && this.number != null ?
+                    compare((Number) value, this.number) : text.compareTo(this.text));
+            switch (this.operator) {
+                case EQ:
+                    return comparison == 0;
+                case NE:
+                    return comparison != 0;
+                case LT:
+                    return comparison < 0;
+                case LE:
+                    return comparison <= 0;
+                case GT:
+                    return comparison > 0;
+                default:
+                    return comparison >= 0;
+            }
+        }
+
+        private static int compare(Number value, BigDecimal number) {
+            if (value instanceof Double || value instanceof Float) {
+                return Double.compare(value.doubleValue(), number.doubleValue());
+            }
+            return (value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString())).compareTo(number);
+        }
+    }
+
+
+    /**
+     * Recursive descent parser of the expression:
+     * <pre>
+     * or         = and { ("or" | "||") and }
+     * and        = not { ("and" | "&&") not }
+     * not        = ("not" | "!") not | "(" or ")" | comparison
+     * comparison = path [ operator literal ]
+     * </pre>
+     */
+    private static final class Parser {
+
+        private final String expression;
+
+        private final MapClassMappingRegistry mappings;
+
+        private int position;
+
+        @Nullable
+        private String token;
+
+        private boolean quoted;
+
+        private int tokenPosition;
+
+        Parser(String expression, MapClassMappingRegistry mappings) {
+            this.expression = expression;
+            this.mappings = mappings;
+            next();
+        }
+
+        Condition parse() {
+            if (this.token == null) {
+                throw error("expected a condition");
+            }
+            Condition condition = parseOr();
+            if (this.token != null) {
+                throw error("unexpected '" + this.token + "'");
+            }
+            return condition;
+        }
+
+        private Condition parseOr() {
+            Condition condition = parseAnd();
+            while (isKeyword("or", "||")) {
+                next();
+                Condition left = condition;
+                Condition right = parseAnd();
+                condition = element -> left.test(element) || right.test(element);
+            }
+            return condition;
+        }
+
+        private Condition parseAnd() {
+            Condition condition = parseNot();
+            while (isKeyword("and", "&&")) {
+                next();
+                Condition left = condition;
+                Condition right = parseNot();
+                condition = element -> left.test(element) && right.test(element);
+            }
+            return condition;
+        }
+
+        private Condition parseNot() {
+            if (isKeyword("not", "!")) {
+                next();
+                Condition condition = parseNot();
+                return element -> !condition.test(element);
+            }
+            if (isKeyword("(", "(")) {
+                next();
+                Condition condition = parseOr();
+                if (!isKeyword(")", ")")) {
+                    throw error("expected ')'");
+                }
+                next();
+                return condition;
+            }
+            return parseComparison();
+        }
+
+        private Condition parseComparison() {
+            if (this.token == null || this.quoted || !isWord(this.token)) {
+                throw error("expected a property path");
+            }
+            PropertyPath path;
+            try {
+                path = new PropertyPath(this.token, this.mappings);
+            } catch (IllegalArgumentException ex) {
+                throw error(ex.getMessage());
+            }
+            next();
+            Operator operator = (this.token != null && !this.quoted ? Operator.of(this.token) : null);
+            if (operator == null) {
+                return element -> {
+                    Object value = path.getValue(element);
+                    return Boolean.TRUE.equals(value) || "true".equals(value);
+                };
+            }
+            next();
+            if (this.token == null || !this.quoted && (Operator.of(this.token) != null || !isWord(this.token))) {
+                throw error("expected a value");
+            }
+            String text = this.token;
+            BigDecimal number = null;
+            if (!this.quoted) {
+                if ("null".equalsIgnoreCase(text)) {
+                    text = null;
+                } else if ("true".equalsIgnoreCase(text) || "false".equalsIgnoreCase(text)) {
+                    text = text.toLowerCase();
+                } else {
+                    number = toNumber(text);
+                }
+            }
+            next();
+            return new Comparison(path, operator, text, number);
+        }
+
+        @Nullable
+        private static BigDecimal toNumber(String text) {
+            char first = text.charAt(0);
+            if (first != '-' && first != '+' && first != '.' && !Character.isDigit(first)) {
+                return null;
+            }
+            try {
+                return new BigDecimal(text);
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+        }
+
+        private boolean isKeyword(String word, String symbol) {
+            return (this.token != null && !this.quoted && (this.token.equalsIgnoreCase(word) || this.token.equals(symbol)));
+        }
+
+        private static boolean isWord(String token) {
+            return (Character.isLetterOrDigit(token.charAt(0)) || token.charAt(0) == '_' ||
+                    token.charAt(0) == '-' || token.charAt(0) == '+' || token.charAt(0) == '.');
+        }
+
+        private static boolean isWordChar(char c) {
+            return Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '-' || c == '+' || c == ':';
+        }
+
+        /**
+         * Move to the next token, {@code null} at the end of the expression.
+         */
+        private void next() {
+            String expression = this.expression;
+            int i = this.position;
+            while (i < expression.length() && Character.isWhitespace(expression.charAt(i))) {
+                i++;
+            }
+            this.tokenPosition = i;
+            this.quoted = false;
+            if (i == expression.length()) {
+                this.token = null;
+                this.position = i;
+                return;
+            }
+            char c = expression.charAt(i);
+            int end = i + 1;
+            if (c == '\'' || c == '"') {
+                StringBuilder text = new StringBuilder();
+                while (true) {
+                    if (end == expression.length()) {
+                        throw error("unterminated string");
+                    }
+                    char next = expression.charAt(end++);
+                    if (next == c) {
+                        // A doubled quote stands for the quote itself
+                        if (end < expression.length() && expression.charAt(end) == c) {
+                            end++;
+                        } else {
+                            break;
+                        }
+                    }
+                    text.append(next);
+                }
+                this.token = text.toString();
+                this.quoted = true;
+                this.position = end;
+                return;
+            }
+            if (isWordChar(c)) {
+                while (end < expression.length() && isWordChar(expression.charAt(end))) {
+                    end++;
+                }
+            } else if (end < expression.length() && (c == '&' || c == '|') && expression.charAt(end) == c) {
+                end++;
+            } else if (end < expression.length() && expression.charAt(end) == '=' && "=!<>".indexOf(c) >= 0) {
+                end++;
+            } else if (end < expression.length() && c == '<' && expression.charAt(end) == '>') {
+                end++;
+            } else if ("()=<>~!".indexOf(c) < 0) {
+                throw error("unexpected character '" + c + "'");
+            }
+            this.token = expression.substring(i, end);
+            this.position = end;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Invalid " + ReservedOptions.WHERE + " expression '" + this.expression +
+                    "' at position " + this.tokenPosition + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.sunyuyangg.service.core.result;
+
+import org.springframework.core.Ordered;
+import org.sunyuyangg.service.core.DispatchContext;
+import org.sunyuyangg.service.core.ReservedOptions;
+import org.sunyuyangg.service.core.ResultProcessor;
+import org.sunyuyangg.service.core.support.MapClassMappingRegistry;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * {@link ResultProcessor} keeping the elements of a collection, iterable, array,
+ * iterator or stream result that match the {@link WhereExpression} of the
+ * {@link ReservedOptions#WHERE} option; streams and iterators are filtered
+ * lazily. Other results are left unchanged. Compiled expressions are kept in a
+ * bounded LRU cache keyed by expression string.
+ */
+public class WhereFilterProcessor implements ResultProcessor, Ordered {
+
+    public static final int ORDER = 100;
+
+    public static final int DEFAULT_CACHE_LIMIT = 256;
+
+    private final MapClassMappingRegistry mappings;
+
+    private final Map<String, WhereExpression> expressions;
+
+    public WhereFilterProcessor() {
+        this(new MapClassMappingRegistry(), DEFAULT_CACHE_LIMIT);
+    }
+
+    public WhereFilterProcessor(MapClassMappingRegistry mappings, int cacheLimit) {
+        this.mappings = mappings;
+        this.expressions = new LinkedHashMap<String, WhereExpression>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, WhereExpression> eldest) {
+                return size() > cacheLimit;
+            }
+        };
+    }
+
+    @Override
+    public Object process(Object result, DispatchContext context) throws Exception {
+        String where = context.getReservedOption(ReservedOptions.WHERE);
+        if (where == null) {
+            return result;
+        }
+        WhereExpression expression = getExpression(where);
+        if (result instanceof Stream) {
+            return ((Stream<?>) result).filter(element -> matches(expression, element));
+        }
+        if (result instanceof Iterator) {
+            Spliterator<?> elements = Spliterators.spliteratorUnknownSize((Iterator<?>) result, Spliterator.ORDERED);
+            return StreamSupport.stream(elements, false).filter(element -> matches(expression, element));
+        }
+        if (result instanceof Iterable) {
+            Collection<Object> matches = (result instanceof Set ? new LinkedHashSet<>() : new ArrayList<>());
+            for (Object element : (Iterable<?>) result) {
+                if (expression.matches(element)) {
+                    matches.add(element);
+                }
+            }
+            return matches;
+        }
+        if (result.getClass().isArray()) {
+            int length = Array.getLength(result);
+            Collection<Object> matches = new ArrayList<>();
+            for (int i = 0; i < length; i++) {
+                Object element = Array.get(result, i);
+                if (expression.matches(element)) {
+                    matches.add(element);
+                }
+            }
+            return matches;
+        }
+        return result;
+    }
+
+    private WhereExpression getExpression(String where) {
+        synchronized (this.expressions) {
+            WhereExpression expression = this.expressions.get(where);
+            if (expression == null) {
+                expression = WhereExpression.compile(where, this.mappings);
+                this.expressions.put(where, expression);
+            }
+            return expression;
+        }
+    }
+
+    private static boolean matches(WhereExpression expression, Object element) {
+        try {
+            return expression.matches(element);
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new IllegalStateException("Could not evaluate " + expression, ex);
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
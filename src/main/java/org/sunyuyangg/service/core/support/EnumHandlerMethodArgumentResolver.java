@@ -1,18 +1,23 @@
 package org.sunyuyangg.service.core.support;
 
-import com.ibm.staf.service.STAFCommandParseResult;
 import org.apache.commons.lang3.EnumUtils;
 import org.springframework.core.MethodParameter;
+import org.sunyuyangg.service.core.method.parser.CommandParseResult;
 
 
 public class EnumHandlerMethodArgumentResolver implements HandlerMethodArgumentResolver {
     @Override
-    public boolean supportsParameter(MethodParameter parameter, STAFCommandParseResult parseResult) {
+    public boolean supportsParameter(MethodParameter parameter, CommandParseResult parseResult) {
         return parameter.getParameterType().isEnum();
     }
 
     @Override
-    public Object resolveArgument(MethodParameter parameter, STAFCommandParseResult parseResult) throws Exception {
+    public Object resolveArgument(MethodParameter parameter, CommandParseResult parseResult) throws Exception {
         return EnumUtils.getEnum((Class<Enum>)parameter.getParameterType(), parseResult.optionValue(parameter.getParameterName()));
     }
+
+    @Override
+    public boolean isParameterBased() {
+        return true;
+    }
 }
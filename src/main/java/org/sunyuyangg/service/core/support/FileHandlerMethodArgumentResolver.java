@@ -0,0 +1,187 @@
+package org.sunyuyangg.service.core.support;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import org.springframework.core.MethodParameter;
+import org.springframework.lang.Nullable;
+import org.sunyuyangg.service.core.Util;
+import org.sunyuyangg.service.core.annotation.FileOption;
+import org.sunyuyangg.service.core.method.parser.CommandParseResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Resolves a parameter annotated with {@link FileOption} from the file its
+ * option refers to, memory-mapped read-only so that the content never has to be
+ * copied into the request or a heap string. The option value is the path of the
+ * file relative to the root directory, optionally prefixed with {@code FILE:};
+ * paths leading out of the root directory are rejected, and without root
+ * directory file options are rejected altogether.
+ *
+ * <p>Supports {@link ByteBuffer}, {@link InputStream}, {@link Reader} (decoding
+ * with the declared charset as it is read) and Jackson {@link JsonParser}
+ * parameters; any other type but a {@link CharSequence} is read as JSON straight
+ * from the mapped file. An absent option resolves to {@code null}.
+ */
+public class FileHandlerMethodArgumentResolver implements HandlerMethodArgumentResolver {
+
+    public static final String FILE_PREFIX = "FILE:";
+
+    private final ObjectMapper objectMapper;
+
+    @Nullable
+    private final Path rootDirectory;
+
+    /**
+     * Create a resolver rejecting all file options, as it has no root directory.
+     */
+    public FileHandlerMethodArgumentResolver() {
+        this(Util.objectMapper(), null);
+    }
+
+    /**
+     * @param rootDirectory the directory that option values are resolved
+     * against, or {@code null} to reject all file options
+     */
+    public FileHandlerMethodArgumentResolver(@Nullable Path rootDirectory) {
+        this(Util.objectMapper(), rootDirectory);
+    }
+
+    public FileHandlerMethodArgumentResolver(ObjectMapper objectMapper, @Nullable Path rootDirectory) {
+        this.objectMapper = objectMapper;
+        this.rootDirectory = (rootDirectory != null ? rootDirectory.toAbsolutePath().normalize() : null);
+    }
+
+    @Nullable
+    public Path getRootDirectory() {
+        return this.rootDirectory;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter, CommandParseResult parseResult) {
+        return parameter.hasParameterAnnotation(FileOption.class);
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, CommandParseResult parseResult) throws Exception {
+        return bindTo(parameter).resolveArgument(parameter, parseResult);
+    }
+
+    @Override
+    public boolean isParameterBased() {
+        return true;
+    }
+
+    @Override
+    public HandlerMethodArgumentResolver bindTo(MethodParameter parameter) {
+        String optionName = parameter.getParameterName();
+        Class<?> type = parameter.getParameterType();
+        if (ByteBuffer.class.isAssignableFrom(type)) {
+            return new MappedFileArgumentResolver(optionName, buffer -> buffer);
+        }
+        if (type == InputStream.class) {
+            return new MappedFileArgumentResolver(optionName, ByteBufferBackedInputStream::new);
+        }
+        if (type == Reader.class) {
+            FileOption fileOption = parameter.getParameterAnnotation(FileOption.class);
+            Charset charset = Charset.forName(fileOption != null ? fileOption.charset() : "UTF-8");
+            return new MappedFileArgumentResolver(optionName,
+                    buffer -> new InputStreamReader(new ByteBufferBackedInputStream(buffer), charset));
+        }
+        if (type == JsonParser.class) {
+            return new MappedFileArgumentResolver(optionName,
+                    buffer -> this.objectMapper.getFactory().createParser(new ByteBufferBackedInputStream(buffer)));
+        }
+        if (CharSequence.class.isAssignableFrom(type)) {
+            throw new IllegalStateException("File option '" + optionName + "' of " +
+                    parameter.getExecutable().toGenericString() + " can not be bound to " + type.getName() +
+                    ", which would copy the file to the heap; declare a Reader, InputStream or ByteBuffer instead");
+        }
+        ObjectReader reader = this.objectMapper.readerFor(
+                this.objectMapper.getTypeFactory().constructType(parameter.getGenericParameterType()));
+        return new MappedFileArgumentResolver(optionName, buffer -> {
+            try {
+                return reader.readValue(new ByteBufferBackedInputStream(buffer));
+            } catch (JsonProcessingException ex) {
+                throw new IllegalArgumentException("can not read the file of option '" + optionName + "' as JSON " +
+                        parameter.getGenericParameterType().getTypeName() + ": " + ex.getMessage(), ex);
+            }
+        });
+    }
+
+    /**
+     * Map the file the given option value refers to.
+     */
+    private MappedByteBuffer map(String value) throws IOException {
+        if (this.rootDirectory == null) {
+            throw new IllegalArgumentException("file options are disabled, no root directory is configured");
+        }
+        String path = (value.regionMatches(true, 0, FILE_PREFIX, 0, FILE_PREFIX.length()) ?
+                value.substring(FILE_PREFIX.length()) : value);
+        Path file = this.rootDirectory.resolve(path.trim()).normalize();
+        // Check the real paths too, so that symbolic links can not lead out of the root directory
+        if (!file.startsWith(this.rootDirectory) || !file.toRealPath().startsWith(this.rootDirectory.toRealPath())) {
+            throw new IllegalArgumentException("the file is outside of the root directory " + this.rootDirectory);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+
+    @FunctionalInterface
+    private interface MappedFileReader {
+
+        Object read(MappedByteBuffer buffer) throws Exception;
+    }
+
+
+    /**
+     * Resolves one parameter from the mapped file of its option.
+     */
+    private class MappedFileArgumentResolver implements HandlerMethodArgumentResolver {
+
+        private final String optionName;
+
+        private final MappedFileReader reader;
+
+        public MappedFileArgumentResolver(String optionName, MappedFileReader reader) {
+            this.optionName = optionName;
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean supportsParameter(MethodParameter parameter, CommandParseResult parseResult) {
+            return true;
+        }
+
+        @Override
+        public Object resolveArgument(MethodParameter parameter, CommandParseResult parseResult) throws Exception {
+            if (parseResult.optionTimes(this.optionName) == 0) {
+                return null;
+            }
+            String value = parseResult.optionValue(this.optionName);
+            MappedByteBuffer buffer;
+            try {
+                buffer = map(value);
+            } catch (IOException | IllegalArgumentException ex) {
+                throw new IllegalArgumentException("can not map the file of option '" + this.optionName +
+                        "' [" + value + "]: " + ex, ex);
+            }
+            return this.reader.read(buffer);
+        }
+    }
+}
@@ -1,11 +1,33 @@
 package org.sunyuyangg.service.core.support;
 
-import com.ibm.staf.service.STAFCommandParseResult;
 import org.springframework.core.MethodParameter;
+import org.sunyuyangg.service.core.method.parser.CommandParseResult;
 
 public interface HandlerMethodArgumentResolver {
 
-    boolean supportsParameter(MethodParameter parameter, STAFCommandParseResult parseResult);
+    boolean supportsParameter(MethodParameter parameter, CommandParseResult parseResult);
 
-    Object resolveArgument(MethodParameter parameter, STAFCommandParseResult parseResult) throws Exception;
+    Object resolveArgument(MethodParameter parameter, CommandParseResult parseResult) throws Exception;
+
+    /**
+     * Whether {@link #supportsParameter} only depends on the parameter, not on the
+     * request, so that it can be decided once per handler method. The parse result
+     * passed to {@link #supportsParameter} is then {@code null}.
+     * <p>The default implementation returns {@code false}.
+     */
+    default boolean isParameterBased() {
+        return false;
+    }
+
+    /**
+     * Return the resolver to use for the given supported parameter, with everything
+     * that only depends on the parameter looked up once. Only called for
+     * {@link #isParameterBased() parameter-based} resolvers, when the argument
+     * binding plan of a handler method is compiled; may reject the parameter with
+     * an exception so that the handler fails at startup.
+     * <p>The default implementation returns this resolver.
+     */
+    default HandlerMethodArgumentResolver bindTo(MethodParameter parameter) {
+        return this;
+    }
 }
@@ -1,10 +1,10 @@
 package org.sunyuyangg.service.core.support;
 
-import com.ibm.staf.service.STAFCommandParseResult;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.core.MethodParameter;
 import org.springframework.lang.Nullable;
+import org.sunyuyangg.service.core.method.parser.CommandParseResult;
 
 import java.util.Collections;
 import java.util.LinkedList;
@@ -68,12 +68,12 @@ public class HandlerMethodArgumentResolverComposite implements HandlerMethodArgu
     }
 
     @Override
-    public boolean supportsParameter(MethodParameter parameter, STAFCommandParseResult parseResult) {
+    public boolean supportsParameter(MethodParameter parameter, CommandParseResult parseResult) {
         return (getArgumentResolver(parameter, parseResult) != null);
     }
 
     @Nullable
-    private HandlerMethodArgumentResolver getArgumentResolver(MethodParameter parameter, STAFCommandParseResult parseResult) {
+    private HandlerMethodArgumentResolver getArgumentResolver(MethodParameter parameter, CommandParseResult parseResult) {
         HandlerMethodArgumentResolver result = this.argumentResolverCache.get(parameter);
         if (result == null) {
             for (HandlerMethodArgumentResolver methodArgumentResolver : this.argumentResolvers) {
@@ -90,7 +90,7 @@ public class HandlerMethodArgumentResolverComposite implements HandlerMethodArgu
     }
 
     @Override
-    public Object resolveArgument(MethodParameter parameter, STAFCommandParseResult parseResult) throws Exception {
+    public Object resolveArgument(MethodParameter parameter, CommandParseResult parseResult) throws Exception {
         HandlerMethodArgumentResolver resolver = getArgumentResolver(parameter, parseResult);
         if (resolver == null) {
             throw new IllegalArgumentException("Unknown parameter type [" + parameter.getParameterType().getName() + "]");
@@ -1,39 +1,126 @@
 package org.sunyuyangg.service.core.support;
 
-import com.ibm.staf.service.STAFCommandParseResult;
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import org.springframework.core.MethodParameter;
 import org.sunyuyangg.service.core.Util;
+import org.sunyuyangg.service.core.annotation.JsonOption;
+import org.sunyuyangg.service.core.method.parser.CommandParseResult;
 
-import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Resolves a parameter by reading the value of its option as JSON into the
+ * generic parameter type, in a single pass with an {@link ObjectReader} cached
+ * per type. Whether a parameter is bound from JSON only depends on its declaration:
+ * parameters annotated with {@link JsonOption}, and with default resolution
+ * enabled any parameter, so that this resolver is registered last as catch-all.
+ * An absent option resolves to {@code null}.
+ */
 public class JsonHandlerMethodArgumentResolver implements HandlerMethodArgumentResolver {
 
-    protected final Log logger = LogFactory.getLog(getClass());
+    private final ObjectMapper objectMapper;
+
+    private final boolean useDefaultResolution;
+
+    private final Map<Type, ObjectReader> readerCache = new ConcurrentHashMap<>(64);
 
     public JsonHandlerMethodArgumentResolver() {
+        this(true);
+    }
 
+    /**
+     * @param useDefaultResolution whether parameters without {@link JsonOption}
+     * are supported too
+     */
+    public JsonHandlerMethodArgumentResolver(boolean useDefaultResolution) {
+        this(Util.objectMapper(), useDefaultResolution);
+    }
+
+    public JsonHandlerMethodArgumentResolver(ObjectMapper objectMapper, boolean useDefaultResolution) {
+        this.objectMapper = objectMapper;
+        this.useDefaultResolution = useDefaultResolution;
     }
 
     @Override
-    public boolean supportsParameter(MethodParameter parameter, STAFCommandParseResult parseResult) {
-        return isJSONValid(parseResult.optionValue(parameter.getParameterName()));
+    public boolean supportsParameter(MethodParameter parameter, CommandParseResult parseResult) {
+        return (this.useDefaultResolution || parameter.hasParameterAnnotation(JsonOption.class));
     }
 
     @Override
-    public Object resolveArgument(MethodParameter parameter, STAFCommandParseResult parseResult) throws Exception {
-         return Util.objectMapper().readValue(parseResult.optionValue(parameter.getParameterName()), parameter.getParameterType());
+    public Object resolveArgument(MethodParameter parameter, CommandParseResult parseResult) throws Exception {
+        return bindTo(parameter).resolveArgument(parameter, parseResult);
     }
 
-    private boolean isJSONValid(String jsonInString ) {
-        try {
-            Util.objectMapper().readTree(jsonInString);
-            return true;
-        } catch (IOException e) {
-            logger.error(e);
-            return false;
+    @Override
+    public boolean isParameterBased() {
+        return true;
+    }
+
+    @Override
+    public HandlerMethodArgumentResolver bindTo(MethodParameter parameter) {
+        return new ReadingArgumentResolver(getReader(parameter.getGenericParameterType()),
+                parameter.getParameterName(), parameter.getGenericParameterType());
+    }
+
+    private ObjectReader getReader(Type type) {
+        ObjectReader reader = this.readerCache.get(type);
+        if (reader == null) {
+            reader = this.objectMapper.readerFor(this.objectMapper.getTypeFactory().constructType(type));
+            this.readerCache.putIfAbsent(type, reader);
         }
+        return reader;
     }
 
+
+    /**
+     * Resolves one parameter with the reader of its type.
+     */
+    private static class ReadingArgumentResolver implements HandlerMethodArgumentResolver {
+
+        private final ObjectReader reader;
+
+        private final String optionName;
+
+        private final Type type;
+
+        public ReadingArgumentResolver(ObjectReader reader, String optionName, Type type) {
+            this.reader = reader;
+            this.optionName = optionName;
+            this.type = type;
+        }
+
+        @Override
+        public boolean supportsParameter(MethodParameter parameter, CommandParseResult parseResult) {
+            return true;
+        }
+
+        @Override
+        public Object resolveArgument(MethodParameter parameter, CommandParseResult parseResult) throws Exception {
+            if (parseResult.optionTimes(this.optionName) == 0) {
+                return null;
+            }
+            try {
+                return this.reader.readValue(parseResult.optionValue(this.optionName));
+            } catch (JsonProcessingException ex) {
+                throw new IllegalArgumentException(formatError(ex), ex);
+            }
+        }
+
+        private String formatError(JsonProcessingException ex) {
+            StringBuilder message = new StringBuilder("can not read option '").append(this.optionName)
+                    .append("' as JSON ").append(this.type.getTypeName());
+            JsonLocation location = ex.getLocation();
+            if (location != null) {
+                message.append(" at line ").append(location.getLineNr())
+                        .append(", column ").append(location.getColumnNr())
+                        .append(" (offset ").append(location.getCharOffset()).append(')');
+            }
+            return message.append(": ").append(ex.getOriginalMessage()).toString();
+        }
+    }
 }
@@ -0,0 +1,228 @@
+package org.sunyuyangg.service.core.support;
+
+import com.ibm.staf.STAFMapClassDefinition;
+import org.springframework.beans.BeanUtils;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ReflectionUtils;
+import org.sunyuyangg.service.core.support.MapClassMappingRegistry.ValueBinder;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The mapping between a bean type and the STAF map class of the same name,
+ * with one key per bean property, used both to bind unmarshalled maps to beans
+ * and to marshall beans as map class instances. Properties are accessed through
+ * their getters and setters, or public fields; each writable property has its
+ * {@link ValueBinder} compiled once.
+ *
+ * @see MapClassMappingRegistry#getMapping(Class)
+ */
+public class MapClassMapping {
+
+    /**
+     * The key an unmarshalled map class instance carries its class name in.
+     */
+    public static final String MAP_CLASS_NAME_KEY = "staf-map-class-name";
+
+    private final Class<?> type;
+
+    private final STAFMapClassDefinition definition;
+
+    @Nullable
+    private final Constructor<?> constructor;
+
+    private final Property[] properties;
+
+    MapClassMapping(Class<?> type, MapClassMappingRegistry registry) {
+        this.type = type;
+        this.definition = new STAFMapClassDefinition(type.getName());
+        Constructor<?> constructor;
+        try {
+            constructor = ReflectionUtils.accessibleConstructor(type);
+        } catch (NoSuchMethodException ex) {
+            constructor = null;
+        }
+        this.constructor = constructor;
+
+        Map<String, Property> properties = new LinkedHashMap<>();
+        for (PropertyDescriptor descriptor : BeanUtils.getPropertyDescriptors(type)) {
+            Method setter = descriptor.getWriteMethod();
+            if (descriptor.getReadMethod() == null && setter == null || "class".equals(descriptor.getName())) {
+                continue;
+            }
+            ValueBinder binder = (setter != null ?
+                    registry.getBinder(ResolvableType.forMethodParameter(new MethodParameter(setter, 0))) : null);
+            properties.put(descriptor.getName(), new Property(descriptor.getName(), descriptor.getReadMethod(), setter, null, binder));
+        }
+        for (Field field : type.getFields()) {
+            int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers)) {
+                continue;
+            }
+            Property property = properties.get(field.getName());
+            boolean writable = !Modifier.isFinal(modifiers) && (property == null || property.setter == null);
+            ValueBinder binder = (writable ? registry.getBinder(ResolvableType.forField(field)) :
+                    (property != null ? property.binder : null));
+            properties.put(field.getName(), new Property(field.getName(),
+                    (property != null ? property.getter : null), (property != null ? property.setter : null), field, binder));
+        }
+        this.properties = properties.values().toArray(new Property[0]);
+        for (Property property : this.properties) {
+            this.definition.addKey(property.name, property.name);
+        }
+    }
+
+    public Class<?> getType() {
+        return this.type;
+    }
+
+    /**
+     * Return the map class definition, named after the type, to register with a marshalling context.
+     */
+    public STAFMapClassDefinition getDefinition() {
+        return this.definition;
+    }
+
+    public List<String> getKeys() {
+        List<String> keys = new ArrayList<>(this.properties.length);
+        for (Property property : this.properties) {
+            keys.add(property.name);
+        }
+        return keys;
+    }
+
+    /**
+     * Create an instance of the type from an unmarshalled map, binding the
+     * writable properties whose key is present; other keys are ignored.
+     */
+    public Object fromMap(Map<?, ?> map) throws Exception {
+        if (this.constructor == null) {
+            throw new IllegalArgumentException("Can not create " + this.type.getName() + ": no default constructor");
+        }
+        Object bean = this.constructor.newInstance();
+        for (Property property : this.properties) {
+            if (property.binder != null && map.containsKey(property.name)) {
+                property.set(bean, property.binder.bind(map.get(property.name)));
+            }
+        }
+        return bean;
+    }
+
+
+    /**
+     * Return the index of the property with the given key, or -1 if there is none.
+     */
+    public int indexOf(String key) {
+        for (int i = 0; i < this.properties.length; i++) {
+            if (this.properties[i].name.equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Return the value of the property at the given index of {@link #getKeys()},
+     * or {@code null} if it is write-only.
+     */
+    @Nullable
+    public Object getValue(Object bean, int index) throws Exception {
+        Property property = this.properties[index];
+        return (property.isReadable() ? property.get(bean) : null);
+    }
+
+    /**
+     * Return the values of the properties of the given bean, in the order of
+     * {@link #getKeys()}; write-only properties have a {@code null} value.
+     */
+    public Object[] getValues(Object bean) throws Exception {
+        Object[] values = new Object[this.properties.length];
+        for (int i = 0; i < values.length; i++) {
+            if (this.properties[i].isReadable()) {
+                values[i] = this.properties[i].get(bean);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Create a map class instance of the given bean, with the value of each
+     * readable property converted by the given function, e.g. to marshallable data.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> toMap(Object bean, ValueBinder valueConverter) throws Exception {
+        Map<String, Object> map = this.definition.createInstance();
+        for (Property property : this.properties) {
+            if (property.isReadable()) {
+                map.put(property.name, valueConverter.bind(property.get(bean)));
+            }
+        }
+        return map;
+    }
+
+
+    private static class Property {
+
+        final String name;
+
+        @Nullable
+        final Method getter;
+
+        @Nullable
+        final Method setter;
+
+        @Nullable
+        final Field field;
+
+        @Nullable
+        final ValueBinder binder;
+
+        Property(String name, @Nullable Method getter, @Nullable Method setter, @Nullable Field field, @Nullable ValueBinder binder) {
+            if (getter != null) {
+                ReflectionUtils.makeAccessible(getter);
+            }
+            if (setter != null) {
+                ReflectionUtils.makeAccessible(setter);
+            }
+            if (field != null) {
+                ReflectionUtils.makeAccessible(field);
+            }
+            this.name = name;
+            this.getter = getter;
+            this.setter = setter;
+            this.field = field;
+            this.binder = binder;
+        }
+
+        boolean isReadable() {
+            return (this.getter != null || this.field != null);
+        }
+
+        @Nullable
+        Object get(Object bean) throws Exception {
+            return (this.getter != null ? this.getter.invoke(bean) : this.field.get(bean));
+        }
+
+        void set(Object bean, @Nullable Object value) throws Exception {
+            Class<?> type = (this.setter != null ? this.setter.getParameterTypes()[0] : this.field.getType());
+            if (value == null && type.isPrimitive()) {
+                return;
+            }
+            if (this.setter != null) {
+                this.setter.invoke(bean, value);
+            } else {
+                this.field.set(bean, value);
+            }
+        }
+    }
+}
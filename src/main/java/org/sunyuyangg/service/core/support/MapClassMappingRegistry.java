@@ -0,0 +1,140 @@
+package org.sunyuyangg.service.core.support;
+
+import org.springframework.core.CollectionFactory;
+import org.springframework.core.ResolvableType;
+import org.springframework.lang.Nullable;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of the {@link MapClassMapping}s of bean types, and factory of the
+ * {@link ValueBinder}s converting unmarshalled STAF objects to declared types.
+ *
+ * <p>STAF marshalled data consists of strings, lists and maps only: strings are
+ * converted with the {@link ValueConverterRegistry}, lists to collections and
+ * arrays, maps to maps or, through their {@link MapClassMapping}, to beans.
+ */
+public class MapClassMappingRegistry {
+
+    private final ValueConverterRegistry converters;
+
+    private final Map<Class<?>, MapClassMapping> mappings = new ConcurrentHashMap<>(64);
+
+    public MapClassMappingRegistry() {
+        this(new ValueConverterRegistry());
+    }
+
+    public MapClassMappingRegistry(ValueConverterRegistry converters) {
+        this.converters = converters;
+    }
+
+    /**
+     * Return the mapping of the given bean type, created on first use.
+     */
+    public MapClassMapping getMapping(Class<?> type) {
+        MapClassMapping mapping = this.mappings.get(type);
+        if (mapping == null) {
+            // Binders of bean-typed properties look their mapping up lazily,
+            // so creating a mapping never recurses into this cache
+            mapping = new MapClassMapping(type, this);
+            MapClassMapping existing = this.mappings.putIfAbsent(type, mapping);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        return mapping;
+    }
+
+    /**
+     * Compile the binder of unmarshalled values to the given type.
+     */
+    public ValueBinder getBinder(ResolvableType type) {
+        Class<?> rawType = type.resolve(Object.class);
+        if (rawType == Object.class) {
+            return value -> value;
+        }
+        ValueConverter<?> converter = this.converters.getConverter(rawType);
+        if (converter != null) {
+            return value -> (value != null ? converter.convert(value.toString()) : null);
+        }
+        if (rawType.isArray()) {
+            Class<?> componentType = rawType.getComponentType();
+            ValueBinder elementBinder = getBinder(type.getComponentType());
+            return value -> {
+                if (value == null) {
+                    return null;
+                }
+                List<?> list = asList(value);
+                Object array = Array.newInstance(componentType, list.size());
+                for (int i = 0; i < list.size(); i++) {
+                    Array.set(array, i, elementBinder.bind(list.get(i)));
+                }
+                return array;
+            };
+        }
+        if (Collection.class.isAssignableFrom(rawType)) {
+            Class<?> elementType = type.asCollection().resolveGeneric(0);
+            ValueBinder elementBinder = getBinder(type.asCollection().getGeneric(0));
+            return value -> {
+                if (value == null) {
+                    return null;
+                }
+                List<?> list = asList(value);
+                Collection<Object> collection = CollectionFactory.createCollection(rawType, elementType, list.size());
+                for (Object element : list) {
+                    collection.add(elementBinder.bind(element));
+                }
+                return collection;
+            };
+        }
+        if (Map.class.isAssignableFrom(rawType)) {
+            Class<?> keyType = type.asMap().resolveGeneric(0);
+            ValueBinder keyBinder = getBinder(type.asMap().getGeneric(0));
+            ValueBinder valueBinder = getBinder(type.asMap().getGeneric(1));
+            return value -> {
+                if (value == null) {
+                    return null;
+                }
+                Map<?, ?> source = asMap(value);
+                Map<Object, Object> map = CollectionFactory.createMap(rawType, keyType, source.size());
+                for (Map.Entry<?, ?> entry : source.entrySet()) {
+                    if (!MapClassMapping.MAP_CLASS_NAME_KEY.equals(entry.getKey())) {
+                        map.put(keyBinder.bind(entry.getKey()), valueBinder.bind(entry.getValue()));
+                    }
+                }
+                return map;
+            };
+        }
+        return value -> (value != null ? getMapping(rawType).fromMap(asMap(value)) : null);
+    }
+
+    private static List<?> asList(Object value) {
+        if (!(value instanceof List)) {
+            throw new IllegalArgumentException("Expected a marshalled list but was [" + value + "]");
+        }
+        return (List<?>) value;
+    }
+
+    private static Map<?, ?> asMap(Object value) {
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("Expected a marshalled map but was [" + value + "]");
+        }
+        return (Map<?, ?>) value;
+    }
+
+
+    /**
+     * Converts an unmarshalled STAF object, i.e. a string, list, map or {@code null},
+     * to the type it was compiled for.
+     */
+    @FunctionalInterface
+    public interface ValueBinder {
+
+        @Nullable
+        Object bind(@Nullable Object value) throws Exception;
+    }
+}
@@ -0,0 +1,87 @@
+package org.sunyuyangg.service.core.support;
+
+import com.ibm.staf.STAFMarshallingContext;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.sunyuyangg.service.core.annotation.MarshalledOption;
+import org.sunyuyangg.service.core.method.parser.CommandParseResult;
+import org.sunyuyangg.service.core.support.MapClassMappingRegistry.ValueBinder;
+
+/**
+ * Resolves a parameter annotated with {@link MarshalledOption} by unmarshalling
+ * the STAF marshalled value of its option and binding the resulting object
+ * graph to the generic parameter type, without a detour through JSON. The
+ * binder of each parameter is compiled once; bean types are mapped through
+ * their cached {@link MapClassMapping}. A value that is not marshalled data
+ * is bound as a plain string, and an absent option resolves to {@code null}.
+ */
+public class MarshalledHandlerMethodArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private final MapClassMappingRegistry mappings;
+
+    public MarshalledHandlerMethodArgumentResolver() {
+        this(new MapClassMappingRegistry());
+    }
+
+    public MarshalledHandlerMethodArgumentResolver(MapClassMappingRegistry mappings) {
+        this.mappings = mappings;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter, CommandParseResult parseResult) {
+        return parameter.hasParameterAnnotation(MarshalledOption.class);
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, CommandParseResult parseResult) throws Exception {
+        return bindTo(parameter).resolveArgument(parameter, parseResult);
+    }
+
+    @Override
+    public boolean isParameterBased() {
+        return true;
+    }
+
+    @Override
+    public HandlerMethodArgumentResolver bindTo(MethodParameter parameter) {
+        return new UnmarshallingArgumentResolver(parameter.getParameterName(),
+                this.mappings.getBinder(ResolvableType.forMethodParameter(parameter)));
+    }
+
+
+    /**
+     * Resolves one parameter with the binder of its type.
+     */
+    private static class UnmarshallingArgumentResolver implements HandlerMethodArgumentResolver {
+
+        private final String optionName;
+
+        private final ValueBinder binder;
+
+        public UnmarshallingArgumentResolver(String optionName, ValueBinder binder) {
+            this.optionName = optionName;
+            this.binder = binder;
+        }
+
+        @Override
+        public boolean supportsParameter(MethodParameter parameter, CommandParseResult parseResult) {
+            return true;
+        }
+
+        @Override
+        public Object resolveArgument(MethodParameter parameter, CommandParseResult parseResult) throws Exception {
+            if (parseResult.optionTimes(this.optionName) == 0) {
+                return null;
+            }
+            String value = parseResult.optionValue(this.optionName);
+            Object root = (STAFMarshallingContext.isMarshalledData(value) ?
+                    STAFMarshallingContext.unmarshall(value).getRootObject() : value);
+            try {
+                return this.binder.bind(root);
+            } catch (Exception ex) {
+                throw new IllegalArgumentException("can not bind the marshalled option '" + this.optionName +
+                        "' to " + parameter.getGenericParameterType().getTypeName() + ": " + ex.getMessage(), ex);
+            }
+        }
+    }
+}
@@ -1,25 +1,273 @@
 package org.sunyuyangg.service.core.support;
 
-import com.ibm.staf.service.STAFCommandParseResult;
+import org.springframework.core.CollectionFactory;
 import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.lang.Nullable;
+import org.sunyuyangg.service.core.annotation.OptionTimes;
+import org.sunyuyangg.service.core.method.parser.CommandParseResult;
 
-import java.util.ArrayList;
+import java.lang.reflect.Array;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Resolves a collection, array or map parameter annotated with {@link OptionTimes},
+ * and any {@code List} parameter, from all values of a repeated option. Element types, and the key and value types of maps, are resolved from
+ * the generic signature and must be convertible by the {@link ValueConverterRegistry};
+ * raw types bind strings. Map entries are given as {@code KEY=VALUE}. {@code int[]}
+ * and {@code long[]} are filled without boxing. An absent option resolves to
+ * an empty container.
+ */
 public class OptionTimesHandlerMethodArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private final ValueConverterRegistry converters;
+
+    public OptionTimesHandlerMethodArgumentResolver() {
+        this(new ValueConverterRegistry());
+    }
+
+    public OptionTimesHandlerMethodArgumentResolver(ValueConverterRegistry converters) {
+        this.converters = converters;
+    }
+
     @Override
-    public boolean supportsParameter(MethodParameter parameter, STAFCommandParseResult parseResult) {
-        return parameter.getParameterType().getSimpleName().equalsIgnoreCase(List.class.getSimpleName());
+    public boolean supportsParameter(MethodParameter parameter, CommandParseResult parseResult) {
+        Class<?> type = parameter.getParameterType();
+        ResolvableType resolvableType = ResolvableType.forMethodParameter(parameter);
+        if (!parameter.hasParameterAnnotation(OptionTimes.class)) {
+            // Other containers without annotation are bound from JSON
+            return (type == List.class && canConvert(resolvableType.asCollection().resolveGeneric(0)));
+        }
+        if (type.isArray()) {
+            return this.converters.canConvert(type.getComponentType());
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            return canConvert(resolvableType.asCollection().resolveGeneric(0));
+        }
+        if (Map.class.isAssignableFrom(type)) {
+            ResolvableType mapType = resolvableType.asMap();
+            return canConvert(mapType.resolveGeneric(0)) && canConvert(mapType.resolveGeneric(1));
+        }
+        return false;
+    }
+
+    private boolean canConvert(@Nullable Class<?> elementType) {
+        return (elementType == null || elementType == Object.class || this.converters.canConvert(elementType));
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, CommandParseResult parseResult) throws Exception {
+        return bindTo(parameter).resolveArgument(parameter, parseResult);
+    }
+
+    @Override
+    public boolean isParameterBased() {
+        return true;
     }
 
     @Override
-    public Object resolveArgument(MethodParameter parameter, STAFCommandParseResult parseResult) throws Exception {
-        assert parameter.getParameterType().getSimpleName().equalsIgnoreCase(List.class.getSimpleName());
-        int times = parseResult.optionTimes(parameter.getParameterName());
-        List<String> list = new ArrayList<>();
-        for(int i =1; i <= times; i++) {
-            list.add(parseResult.optionValue(parameter.getParameterName(), i));
-        }
-        return list;
+    public HandlerMethodArgumentResolver bindTo(MethodParameter parameter) {
+        Class<?> type = parameter.getParameterType();
+        String optionName = parameter.getParameterName();
+        ResolvableType resolvableType = ResolvableType.forMethodParameter(parameter);
+        if (type == int[].class) {
+            return new IntArrayArgumentResolver(optionName);
+        }
+        if (type == long[].class) {
+            return new LongArrayArgumentResolver(optionName);
+        }
+        if (type.isArray()) {
+            return new ArrayArgumentResolver(optionName, type.getComponentType(), getConverter(type.getComponentType()));
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            Class<?> elementType = resolvableType.asCollection().resolveGeneric(0);
+            return new CollectionArgumentResolver(optionName, type, elementType, getConverter(elementType));
+        }
+        ResolvableType mapType = resolvableType.asMap();
+        Class<?> keyType = mapType.resolveGeneric(0);
+        Class<?> valueType = mapType.resolveGeneric(1);
+        return new MapArgumentResolver(optionName, type, keyType, getConverter(keyType), valueType, getConverter(valueType));
+    }
+
+    private ValueConverter<?> getConverter(@Nullable Class<?> elementType) {
+        ValueConverter<?> converter = (elementType == null || elementType == Object.class ? null :
+                this.converters.getConverter(elementType));
+        return (converter != null ? converter : CharSequence::toString);
+    }
+
+
+    /**
+     * Resolves the values of one repeated option into a container.
+     */
+    private static abstract class ContainerArgumentResolver implements HandlerMethodArgumentResolver {
+
+        protected final String optionName;
+
+        protected ContainerArgumentResolver(String optionName) {
+            this.optionName = optionName;
+        }
+
+        @Override
+        public boolean supportsParameter(MethodParameter parameter, CommandParseResult parseResult) {
+            return true;
+        }
+
+        @Override
+        public Object resolveArgument(MethodParameter parameter, CommandParseResult parseResult) throws Exception {
+            return resolve(parseResult, parseResult.optionTimes(this.optionName));
+        }
+
+        protected abstract Object resolve(CommandParseResult parseResult, int times) throws Exception;
+
+        /**
+         * Convert one value of the option, reporting failures with the option name and target type.
+         */
+        protected Object convert(ValueConverter<?> converter, @Nullable Class<?> type, CharSequence value) {
+            try {
+                return converter.convert(value);
+            } catch (Exception ex) {
+                throw ValueConverterRegistry.conversionFailure(this.optionName, type, value, ex);
+            }
+        }
+    }
+
+
+    private static class IntArrayArgumentResolver extends ContainerArgumentResolver {
+
+        public IntArrayArgumentResolver(String optionName) {
+            super(optionName);
+        }
+
+        @Override
+        protected Object resolve(CommandParseResult parseResult, int times) {
+            int[] values = new int[times];
+            for (int i = 0; i < times; i++) {
+                String value = parseResult.optionValue(this.optionName, i + 1);
+                try {
+                    values[i] = (int) ValueConverterRegistry.parse(value, Integer.MIN_VALUE, Integer.MAX_VALUE);
+                } catch (NumberFormatException ex) {
+                    throw ValueConverterRegistry.conversionFailure(this.optionName, int.class, value, ex);
+                }
+            }
+            return values;
+        }
+    }
+
+
+    private static class LongArrayArgumentResolver extends ContainerArgumentResolver {
+
+        public LongArrayArgumentResolver(String optionName) {
+            super(optionName);
+        }
+
+        @Override
+        protected Object resolve(CommandParseResult parseResult, int times) {
+            long[] values = new long[times];
+            for (int i = 0; i < times; i++) {
+                String value = parseResult.optionValue(this.optionName, i + 1);
+                try {
+                    values[i] = ValueConverterRegistry.parse(value, Long.MIN_VALUE, Long.MAX_VALUE);
+                } catch (NumberFormatException ex) {
+                    throw ValueConverterRegistry.conversionFailure(this.optionName, long.class, value, ex);
+                }
+            }
+            return values;
+        }
+    }
+
+
+    private static class ArrayArgumentResolver extends ContainerArgumentResolver {
+
+        private final Class<?> componentType;
+
+        private final ValueConverter<?> converter;
+
+        public ArrayArgumentResolver(String optionName, Class<?> componentType, ValueConverter<?> converter) {
+            super(optionName);
+            this.componentType = componentType;
+            this.converter = converter;
+        }
+
+        @Override
+        protected Object resolve(CommandParseResult parseResult, int times) throws Exception {
+            Object values = Array.newInstance(this.componentType, times);
+            for (int i = 0; i < times; i++) {
+                Array.set(values, i, convert(this.converter, this.componentType, parseResult.optionValue(this.optionName, i + 1)));
+            }
+            return values;
+        }
+    }
+
+
+    private static class CollectionArgumentResolver extends ContainerArgumentResolver {
+
+        private final Class<?> collectionType;
+
+        @Nullable
+        private final Class<?> elementType;
+
+        private final ValueConverter<?> converter;
+
+        public CollectionArgumentResolver(String optionName, Class<?> collectionType,
+                                          @Nullable Class<?> elementType, ValueConverter<?> converter) {
+            super(optionName);
+            this.collectionType = collectionType;
+            this.elementType = elementType;
+            this.converter = converter;
+        }
+
+        @Override
+        protected Object resolve(CommandParseResult parseResult, int times) throws Exception {
+            Collection<Object> values = CollectionFactory.createCollection(this.collectionType, this.elementType, times);
+            for (int i = 1; i <= times; i++) {
+                values.add(convert(this.converter, this.elementType, parseResult.optionValue(this.optionName, i)));
+            }
+            return values;
+        }
+    }
+
+
+    private static class MapArgumentResolver extends ContainerArgumentResolver {
+
+        private final Class<?> mapType;
+
+        @Nullable
+        private final Class<?> keyType;
+
+        private final ValueConverter<?> keyConverter;
+
+        @Nullable
+        private final Class<?> valueType;
+
+        private final ValueConverter<?> valueConverter;
+
+        public MapArgumentResolver(String optionName, Class<?> mapType, @Nullable Class<?> keyType,
+                                   ValueConverter<?> keyConverter, @Nullable Class<?> valueType,
+                                   ValueConverter<?> valueConverter) {
+            super(optionName);
+            this.mapType = mapType;
+            this.keyType = keyType;
+            this.keyConverter = keyConverter;
+            this.valueType = valueType;
+            this.valueConverter = valueConverter;
+        }
+
+        @Override
+        protected Object resolve(CommandParseResult parseResult, int times) throws Exception {
+            Map<Object, Object> values = CollectionFactory.createMap(this.mapType, this.keyType, times);
+            for (int i = 1; i <= times; i++) {
+                String entry = parseResult.optionValue(this.optionName, i);
+                int separator = entry.indexOf('=');
+                if (separator == -1) {
+                    throw new IllegalArgumentException("can not read option '" + this.optionName +
+                            "' as map entry: expected KEY=VALUE but was \"" + entry + "\"");
+                }
+                values.put(convert(this.keyConverter, this.keyType, entry.subSequence(0, separator)),
+                        convert(this.valueConverter, this.valueType, entry.subSequence(separator + 1, entry.length())));
+            }
+            return values;
+        }
     }
 }
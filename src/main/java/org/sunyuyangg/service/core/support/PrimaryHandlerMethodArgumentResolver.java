@@ -1,35 +1,78 @@
 package org.sunyuyangg.service.core.support;
 
-import com.ibm.staf.service.STAFCommandParseResult;
 import org.springframework.core.MethodParameter;
 import org.springframework.util.ClassUtils;
+import org.sunyuyangg.service.core.method.parser.CommandParseResult;
 
 public class PrimaryHandlerMethodArgumentResolver implements HandlerMethodArgumentResolver {
 
+    private final ValueConverterRegistry converters;
+
+    public PrimaryHandlerMethodArgumentResolver() {
+        this(new ValueConverterRegistry());
+    }
+
+    public PrimaryHandlerMethodArgumentResolver(ValueConverterRegistry converters) {
+        this.converters = converters;
+    }
+
     @Override
-    public boolean supportsParameter(MethodParameter parameter, STAFCommandParseResult parseResult) {
+    public boolean supportsParameter(MethodParameter parameter, CommandParseResult parseResult) {
         return ClassUtils.isPrimitiveOrWrapper(parameter.getParameterType());
     }
 
     @Override
-    public Object resolveArgument(MethodParameter parameter, STAFCommandParseResult parseResult) throws Exception {
-        return parse(parameter.getParameterType(), parseResult.optionValue(parameter.getParameterName()));
+    public Object resolveArgument(MethodParameter parameter, CommandParseResult parseResult) throws Exception {
+        return bindTo(parameter).resolveArgument(parameter, parseResult);
     }
 
-    private Object parse(Class clazz, String value) throws Exception {
-        String type = clazz.getSimpleName().toLowerCase();
-        if (type.equalsIgnoreCase(Boolean.class.getSimpleName())) {
-            return Boolean.valueOf(value);
-        } else if (type.equalsIgnoreCase(Integer.class.getSimpleName())) {
-            return Integer.valueOf(value);
-        } else if (type.equalsIgnoreCase(Long.class.getSimpleName())) {
-            return Long.valueOf(value);
-        } else if (type.equalsIgnoreCase(Double.class.getSimpleName())) {
-            return Double.valueOf(value);
-        } else if (type.equalsIgnoreCase(Float.class.getSimpleName())) {
-            return Float.valueOf(value);
-        } else {
-            throw new Exception("can not convert the primary parameter");
+    @Override
+    public boolean isParameterBased() {
+        return true;
+    }
+
+    @Override
+    public HandlerMethodArgumentResolver bindTo(MethodParameter parameter) {
+        ValueConverter<?> converter = this.converters.getConverter(parameter.getParameterType());
+        if (converter == null) {
+            throw new IllegalStateException("can not convert the primary parameter [" + parameter.getParameterIndex() +
+                    "] of type " + parameter.getParameterType().getName() + " in " + parameter.getExecutable().toGenericString());
+        }
+        String optionName = parameter.getParameterName();
+        return new ConvertingArgumentResolver(converter, optionName, parameter.getParameterType());
+    }
+
+
+    /**
+     * Resolves one parameter with the converter of its type.
+     */
+    private static class ConvertingArgumentResolver implements HandlerMethodArgumentResolver {
+
+        private final ValueConverter<?> converter;
+
+        private final String optionName;
+
+        private final Class<?> type;
+
+        public ConvertingArgumentResolver(ValueConverter<?> converter, String optionName, Class<?> type) {
+            this.converter = converter;
+            this.optionName = optionName;
+            this.type = type;
+        }
+
+        @Override
+        public boolean supportsParameter(MethodParameter parameter, CommandParseResult parseResult) {
+            return true;
+        }
+
+        @Override
+        public Object resolveArgument(MethodParameter parameter, CommandParseResult parseResult) throws Exception {
+            String value = parseResult.optionValue(this.optionName);
+            try {
+                return this.converter.convert(value);
+            } catch (Exception ex) {
+                throw ValueConverterRegistry.conversionFailure(this.optionName, this.type, value, ex);
+            }
         }
     }
 }
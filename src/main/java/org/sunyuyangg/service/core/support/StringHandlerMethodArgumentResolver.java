@@ -1,16 +1,21 @@
 package org.sunyuyangg.service.core.support;
 
-import com.ibm.staf.service.STAFCommandParseResult;
 import org.springframework.core.MethodParameter;
+import org.sunyuyangg.service.core.method.parser.CommandParseResult;
 
 public class StringHandlerMethodArgumentResolver implements HandlerMethodArgumentResolver {
     @Override
-    public boolean supportsParameter(MethodParameter parameter, STAFCommandParseResult parseResult) {
+    public boolean supportsParameter(MethodParameter parameter, CommandParseResult parseResult) {
         return parameter.getParameterType().getSimpleName().equalsIgnoreCase(String.class.getSimpleName());
     }
 
     @Override
-    public Object resolveArgument(MethodParameter parameter, STAFCommandParseResult parseResult) throws Exception {
+    public Object resolveArgument(MethodParameter parameter, CommandParseResult parseResult) throws Exception {
         return parseResult.optionValue(parameter.getParameterName());
     }
+
+    @Override
+    public boolean isParameterBased() {
+        return true;
+    }
 }
@@ -0,0 +1,13 @@
+package org.sunyuyangg.service.core.support;
+
+/**
+ * Converts the text of an option value to the type of a handler method parameter.
+ *
+ * @param <T> the target type
+ * @see ValueConverterRegistry
+ */
+@FunctionalInterface
+public interface ValueConverter<T> {
+
+    T convert(CharSequence value) throws Exception;
+}
@@ -0,0 +1,142 @@
+package org.sunyuyangg.service.core.support;
+
+import org.apache.commons.lang3.EnumUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link ValueConverter}s keyed by target class. The default registry converts
+ * to all primitive types and their wrappers and to {@code String}; converters
+ * to enum types are created on first use, with the lookup semantics of
+ * {@link EnumHandlerMethodArgumentResolver}.
+ *
+ * <p>Integral values are parsed straight from the characters of the value,
+ * with the syntax and errors of {@link Integer#parseInt(String)} and friends,
+ * so no intermediate strings or exceptions are created for valid input.
+ */
+public class ValueConverterRegistry {
+
+    private final Map<Class<?>, ValueConverter<?>> converters = new ConcurrentHashMap<>(32);
+
+    /**
+     * Create a registry with converters for all primitive types, their wrappers and {@code String}.
+     */
+    public ValueConverterRegistry() {
+        registerPrimitive(boolean.class, value -> "true".equalsIgnoreCase(value.toString()));
+        registerPrimitive(byte.class, value -> (byte) parseNarrow(value, Byte.MIN_VALUE, Byte.MAX_VALUE));
+        registerPrimitive(short.class, value -> (short) parseNarrow(value, Short.MIN_VALUE, Short.MAX_VALUE));
+        registerPrimitive(int.class, value -> (int) parse(value, Integer.MIN_VALUE, Integer.MAX_VALUE));
+        registerPrimitive(long.class, value -> parse(value, Long.MIN_VALUE, Long.MAX_VALUE));
+        registerPrimitive(float.class, value -> Float.parseFloat(value.toString()));
+        registerPrimitive(double.class, value -> Double.parseDouble(value.toString()));
+        registerPrimitive(char.class, ValueConverterRegistry::parseChar);
+        register(String.class, CharSequence::toString);
+    }
+
+    /**
+     * Register a converter for the given type, replacing an existing one.
+     */
+    public <T> void register(Class<T> type, ValueConverter<? extends T> converter) {
+        Assert.notNull(type, "Type must not be null");
+        Assert.notNull(converter, "ValueConverter must not be null");
+        this.converters.put(type, converter);
+    }
+
+    /**
+     * Return the converter for the given type, or {@code null} if none is registered.
+     */
+    @Nullable
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ValueConverter<?> getConverter(Class<?> type) {
+        ValueConverter<?> converter = this.converters.get(type);
+        if (converter == null && type.isEnum()) {
+            Class<Enum> enumType = (Class<Enum>) type;
+            converter = value -> EnumUtils.getEnum(enumType, value.toString());
+            ValueConverter<?> existing = this.converters.putIfAbsent(type, converter);
+            return (existing != null ? existing : converter);
+        }
+        return converter;
+    }
+
+    public boolean canConvert(Class<?> type) {
+        return (this.converters.containsKey(type) || type.isEnum());
+    }
+
+    private <T> void registerPrimitive(Class<T> primitiveType, ValueConverter<?> converter) {
+        this.converters.put(primitiveType, converter);
+        this.converters.put(ClassUtils.resolvePrimitiveIfNecessary(primitiveType), converter);
+    }
+
+    /**
+     * Parse a signed decimal number in the given range, like {@link Long#parseLong(String)}.
+     */
+    static long parse(CharSequence value, long min, long max) {
+        int length = value.length();
+        if (length == 0) {
+            throw numberFormatException(value);
+        }
+        int i = 0;
+        boolean negative = false;
+        char first = value.charAt(0);
+        if (first == '-' || first == '+') {
+            if (length == 1) {
+                throw numberFormatException(value);
+            }
+            negative = (first == '-');
+            i++;
+        }
+        // Accumulate negatively, as Long#parseLong does, so that min can be represented
+        long limit = (negative ? min : -max);
+        long multmin = limit / 10;
+        long result = 0;
+        for (; i < length; i++) {
+            int digit = Character.digit(value.charAt(i), 10);
+            if (digit < 0 || result < multmin) {
+                throw numberFormatException(value);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw numberFormatException(value);
+            }
+            result -= digit;
+        }
+        return (negative ? result : -result);
+    }
+
+    /**
+     * Parse a signed decimal {@code int} in the given range, like {@link Short#parseShort(String)}
+     * and {@link Byte#parseByte(String)}.
+     */
+    private static int parseNarrow(CharSequence value, int min, int max) {
+        int result = (int) parse(value, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        if (result < min || result > max) {
+            throw new NumberFormatException("Value out of range. Value:\"" + value + "\" Radix:10");
+        }
+        return result;
+    }
+
+    private static char parseChar(CharSequence value) {
+        if (value.length() != 1) {
+            throw new IllegalArgumentException("Cannot convert \"" + value + "\" to a char: expected a single character");
+        }
+        return value.charAt(0);
+    }
+
+    /**
+     * Return the exception reporting that a value of the given option could not be
+     * converted to the given type, for converters failing with the given exception.
+     */
+    static IllegalArgumentException conversionFailure(String optionName, @Nullable Class<?> type,
+                                                      CharSequence value, Exception cause) {
+        return new IllegalArgumentException("can not convert option '" + optionName + "' [" + value + "] to " +
+                (type != null ? type.getName() : String.class.getName()) + ": " + cause.getMessage(), cause);
+    }
+
+    private static NumberFormatException numberFormatException(CharSequence value) {
+        return new NumberFormatException("For input string: \"" + value + "\"");
+    }
+}
@@ -0,0 +1,118 @@
+package org.sunyuyangg.service.core.viewer;
+
+import com.ibm.staf.STAFResult;
+import org.pmw.tinylog.Logger;
+import org.sunyuyangg.service.core.DispatchContext;
+import org.sunyuyangg.service.core.ReservedOptions;
+import org.sunyuyangg.service.core.View;
+import org.sunyuyangg.service.core.adapter.ModelAndView;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.stream.BaseStream;
+import java.util.stream.Stream;
+
+/**
+ * Base class of the built-in views: {@code null} models render as an empty
+ * result and strings are passed through, any other model is rendered by the
+ * subclass within the maximum result size.
+ *
+ * <p>Views stop rendering as soon as the output exceeds the maximum size, so a
+ * large or endless {@link Stream} or {@link Iterator} model neither exhausts the
+ * heap nor is consumed in full; the request then fails with
+ * {@link STAFResult#MaximumSizeExceeded}, and the result is meant to be requested
+ * in pages with the {@link ReservedOptions#PAGESIZE} option. Models built in
+ * full by the handler, e.g. collections, are not limited unless a
+ * {@link #setMaxResultSize maximum result size} is set, while streamed models
+ * are limited by the {@link #setMaxStreamResultSize maximum streamed result size}
+ * by default.
+ */
+public abstract class AbstractViewer implements View {
+
+    /**
+     * Default maximum number of characters of a rendered stream, iterator or lazy iterable result.
+     */
+    public static final int DEFAULT_MAX_STREAM_RESULT_SIZE = 8 * 1024 * 1024;
+
+    private int maxResultSize;
+
+    private int maxStreamResultSize = DEFAULT_MAX_STREAM_RESULT_SIZE;
+
+    /**
+     * Set the maximum number of characters of any rendered result; larger results
+     * fail with {@link STAFResult#MaximumSizeExceeded}. Default is 0, no limit.
+     */
+    public void setMaxResultSize(int maxResultSize) {
+        this.maxResultSize = maxResultSize;
+    }
+
+    public int getMaxResultSize() {
+        return this.maxResultSize;
+    }
+
+    /**
+     * Set the maximum number of characters of a rendered {@link Stream},
+     * {@link Iterator} or lazy {@link Iterable} result, which applies in addition
+     * to the {@link #setMaxResultSize maximum result size}. Default is
+     * {@value #DEFAULT_MAX_STREAM_RESULT_SIZE}; 0 removes the limit.
+     */
+    public void setMaxStreamResultSize(int maxStreamResultSize) {
+        this.maxStreamResultSize = maxStreamResultSize;
+    }
+
+    public int getMaxStreamResultSize() {
+        return this.maxStreamResultSize;
+    }
+
+    @Override
+    public void render(ModelAndView model, DispatchContext context, STAFResult response) {
+        Object object = model.getModel();
+        response.resultObj = object;
+        response.rc = model.getRc();
+        if (object == null) {
+            response.result = "";
+        } else if (object instanceof String) {
+            response.result = (String) object;
+        } else {
+            try {
+                response.result = renderModel(object, getMaxResultSize(object));
+            } catch (ResultSizeExceededException e) {
+                response.rc = STAFResult.MaximumSizeExceeded;
+                response.result = e.getMessage();
+            } catch (Exception e) {
+                response.result = renderFallback(object, e);
+            }
+        }
+    }
+
+    /**
+     * Return the maximum number of characters of the given model, 0 for no limit.
+     */
+    private int getMaxResultSize(Object model) {
+        if (!(model instanceof BaseStream || model instanceof Iterator ||
+                (model instanceof Iterable && !(model instanceof Collection)))) {
+            return this.maxResultSize;
+        }
+        if (this.maxResultSize > 0 && this.maxStreamResultSize > 0) {
+            return Math.min(this.maxResultSize, this.maxStreamResultSize);
+        }
+        return Math.max(this.maxResultSize, this.maxStreamResultSize);
+    }
+
+    /**
+     * Render the given model, which is neither {@code null} nor a string.
+     *
+     * @param maxResultSize the maximum number of characters, 0 for no limit
+     * @throws ResultSizeExceededException once the output exceeds the maximum size
+     */
+    protected abstract String renderModel(Object model, int maxResultSize) throws Exception;
+
+    /**
+     * Render the given model after {@link #renderModel} failed with the given
+     * exception. The default implementation logs it and renders {@code toString()}.
+     */
+    protected String renderFallback(Object model, Exception ex) {
+        Logger.error(ex);
+        return model.toString();
+    }
+}
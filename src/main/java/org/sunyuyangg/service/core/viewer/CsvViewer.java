@@ -0,0 +1,181 @@
+package org.sunyuyangg.service.core.viewer;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.BeanUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.CollectionUtils;
+import org.sunyuyangg.service.core.ReservedOptions;
+import org.sunyuyangg.service.core.Util;
+import org.sunyuyangg.service.core.result.ResultPage;
+import org.sunyuyangg.service.core.support.MapClassMapping;
+import org.sunyuyangg.service.core.support.MapClassMappingRegistry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Renders the model as CSV, one row per element of a collection or array
+ * result, or a single row otherwise, preceded by a header row. Columns are the
+ * properties of bean elements, read through their cached {@link MapClassMapping},
+ * the keys of map elements, or a single {@code value} column for simple values.
+ * Nested values are written as compact JSON. Strings are passed through.
+ * Rows of stream and iterator models are written as they are read, within the
+ * {@link #setMaxStreamResultSize maximum streamed result size}.
+ *
+ * <p>A {@link ResultPage} is rendered as its items, followed by a
+ * {@code # CURSOR <cursor>} comment line if there is a next page.
+ */
+public class CsvViewer extends AbstractViewer {
+
+    private static final String VALUE_COLUMN = "value";
+
+    private static final String CURSOR_COMMENT = "# " + ReservedOptions.CURSOR + " ";
+
+    private final MapClassMappingRegistry mappings;
+
+    private final ObjectWriter nestedValueWriter = Util.objectMapper().writer().without(SerializationFeature.INDENT_OUTPUT);
+
+    public CsvViewer() {
+        this(new MapClassMappingRegistry());
+    }
+
+    public CsvViewer(MapClassMappingRegistry mappings) {
+        this.mappings = mappings;
+    }
+
+    @Override
+    protected String renderModel(Object model, int maxResultSize) throws Exception {
+        ResultBuffer csv = new ResultBuffer(1024, maxResultSize);
+        if (model instanceof ResultPage) {
+            ResultPage page = (ResultPage) model;
+            writeCsv(page.getItems().iterator(), csv);
+            if (page.getCursor() != null) {
+                csv.append(CURSOR_COMMENT).append(page.getCursor()).append('\n');
+            }
+        } else {
+            writeCsv(toRows(model), csv);
+        }
+        return csv.toString();
+    }
+
+    private static Iterator<?> toRows(Object object) {
+        if (object instanceof Iterable) {
+            return ((Iterable<?>) object).iterator();
+        }
+        if (object instanceof Iterator) {
+            return (Iterator<?>) object;
+        }
+        if (object instanceof Stream) {
+            return ((Stream<?>) object).iterator();
+        }
+        if (object.getClass().isArray()) {
+            return CollectionUtils.arrayToList(object).iterator();
+        }
+        return Collections.singletonList(object).iterator();
+    }
+
+    /**
+     * Write the header and one row per element, taking the columns from the
+     * first non-null element; rows are written as they are read.
+     */
+    private void writeCsv(Iterator<?> rows, ResultBuffer csv) throws Exception {
+        int leadingNullRows = 0;
+        Object first = null;
+        while (first == null && rows.hasNext()) {
+            first = rows.next();
+            if (first == null) {
+                leadingNullRows++;
+            }
+        }
+        if (first == null) {
+            return;
+        }
+        List<?> columns;
+        if (first instanceof Map) {
+            columns = new ArrayList<>(((Map<?, ?>) first).keySet());
+        } else if (isSimpleValue(first)) {
+            columns = Collections.singletonList(VALUE_COLUMN);
+        } else {
+            columns = this.mappings.getMapping(first.getClass()).getKeys();
+        }
+        writeRow(csv, columns.toArray());
+
+        Object[] values = new Object[columns.size()];
+        for (int i = 0; i < leadingNullRows; i++) {
+            writeElement(csv, columns, values, null);
+        }
+        writeElement(csv, columns, values, first);
+        while (rows.hasNext()) {
+            writeElement(csv, columns, values, rows.next());
+        }
+    }
+
+    private void writeElement(ResultBuffer csv, List<?> columns, Object[] values, @Nullable Object row) throws Exception {
+        if (row instanceof Map) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = ((Map<?, ?>) row).get(columns.get(i));
+            }
+            writeRow(csv, values);
+        } else if (row == null || isSimpleValue(row)) {
+            writeRow(csv, row);
+        } else {
+            writeRow(csv, this.mappings.getMapping(row.getClass()).getValues(row));
+        }
+    }
+
+    private void writeRow(ResultBuffer csv, Object... values) throws Exception {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                csv.append(',');
+            }
+            appendCell(csv, toCell(values[i]));
+        }
+        csv.append('\n');
+    }
+
+    private String toCell(@Nullable Object value) throws Exception {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof Enum) {
+            return ((Enum<?>) value).name();
+        }
+        if (isSimpleValue(value)) {
+            return value.toString();
+        }
+        return this.nestedValueWriter.writeValueAsString(value);
+    }
+
+    private static boolean isSimpleValue(Object value) {
+        return BeanUtils.isSimpleValueType(value.getClass());
+    }
+
+    /**
+     * Append the cell, quoted as of RFC 4180 if it contains a separator, quote or line break.
+     */
+    private static void appendCell(ResultBuffer csv, String cell) throws ResultSizeExceededException {
+        boolean quote = false;
+        for (int i = 0; i < cell.length() && !quote; i++) {
+            char c = cell.charAt(i);
+            quote = (c == ',' || c == '"' || c == '\n' || c == '\r');
+        }
+        if (!quote) {
+            csv.append(cell);
+            return;
+        }
+        csv.append('"');
+        for (int i = 0; i < cell.length(); i++) {
+            char c = cell.charAt(i);
+            if (c == '"') {
+                csv.append('"');
+            }
+            csv.append(c);
+        }
+        csv.append('"');
+    }
+}
@@ -1,39 +1,183 @@
 package org.sunyuyangg.service.core.viewer;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.ibm.staf.STAFMarshallingContext;
-import com.ibm.staf.STAFResult;
+import org.pmw.tinylog.Logger;
+import org.springframework.lang.Nullable;
 import org.sunyuyangg.service.core.Util;
-import org.sunyuyangg.service.core.View;
-import org.sunyuyangg.service.core.adapter.ModelAndView;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
-public class DefaultViewer implements View {
+/**
+ * Renders the model as JSON, or as STAF marshalled data if it can not be
+ * serialized; strings are passed through.
+ *
+ * <p>Output is compact by default; indented output is meant for debugging, as
+ * it roughly doubles the size of the result. Models are serialized with an
+ * {@link ObjectWriter} cached per model type into a buffer reused by the
+ * rendering thread, so only the final result string is allocated.
+ *
+ * <p>{@link Stream}, {@link Iterator} and lazy {@link Iterable} models are
+ * rendered as JSON arrays one element at a time, without being collected first,
+ * and rendering stops as soon as the output exceeds the
+ * {@link #setMaxStreamResultSize maximum streamed result size}.
+ */
+public class DefaultViewer extends AbstractViewer {
 
+    /**
+     * Output buffers growing beyond this size are not kept for reuse.
+     */
+    public static final int DEFAULT_MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+    private ObjectMapper objectMapper = Util.objectMapper();
+
+    private boolean prettyPrint = false;
+
+    private int maxRetainedBufferSize = DEFAULT_MAX_RETAINED_BUFFER_SIZE;
+
+    private final Map<Class<?>, ObjectWriter> writerCache = new ConcurrentHashMap<>(64);
+
+    private final ThreadLocal<ResultBuffer> buffers = ThreadLocal.withInitial(() -> new ResultBuffer(1024, 0));
 
     public DefaultViewer() {
 
     }
 
+    /**
+     * Set the mapper to serialize models with. Default is {@link Util#objectMapper()}.
+     */
+    public void setObjectMapper(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.writerCache.clear();
+    }
+
+    public ObjectMapper getObjectMapper() {
+        return this.objectMapper;
+    }
+
+    /**
+     * Whether to indent the output, for debugging. Default is {@code false}.
+     */
+    public void setPrettyPrint(boolean prettyPrint) {
+        this.prettyPrint = prettyPrint;
+        this.writerCache.clear();
+    }
+
+    public boolean isPrettyPrint() {
+        return this.prettyPrint;
+    }
+
+    /**
+     * Set the size up to which the output buffer of a thread is kept for the next result.
+     * Default is {@value #DEFAULT_MAX_RETAINED_BUFFER_SIZE} characters.
+     */
+    public void setMaxRetainedBufferSize(int maxRetainedBufferSize) {
+        this.maxRetainedBufferSize = maxRetainedBufferSize;
+    }
+
+    @Override
+    protected String renderModel(Object model, int maxResultSize) throws IOException {
+        Iterator<?> elements = getElements(model);
+        ResultBuffer buffer = this.buffers.get();
+        if (buffer.inUse) {
+            // Rendering re-entered on this thread, e.g. from a serializer
+            buffer = new ResultBuffer(1024, maxResultSize);
+            write(model, elements, buffer);
+            return buffer.toString();
+        }
+        buffer.inUse = true;
+        buffer.reset(maxResultSize);
+        try {
+            write(model, elements, buffer);
+            return buffer.toString();
+        } finally {
+            buffer.inUse = false;
+            if (buffer.capacity() > this.maxRetainedBufferSize) {
+                this.buffers.remove();
+            } else {
+                buffer.reset(0);
+            }
+        }
+    }
+
+    /**
+     * Fall back to STAF marshalling if the model can not be serialized as JSON.
+     */
     @Override
-    public void render(ModelAndView model, STAFResult response) {
-        STAFMarshallingContext context = new STAFMarshallingContext();
-
-        Object object = model.getModel();
-        response.resultObj = object;
-        if(object == null){
-            response.result = "";
-        } else if(object instanceof String) {
-            response.result = (String) object;
+    protected String renderFallback(Object model, Exception ex) {
+        if (ex instanceof RuntimeException) {
+            throw (RuntimeException) ex;
+        }
+        Logger.error(ex);
+        STAFMarshallingContext marshallingContext = new STAFMarshallingContext();
+        marshallingContext.setRootObject(model);
+        return marshallingContext.marshall();
+    }
+
+    private void write(Object model, @Nullable Iterator<?> elements, ResultBuffer buffer) throws IOException {
+        if (elements != null) {
+            writeElements(elements, buffer);
         } else {
-            try {
-                response.result = Util.objectMapper().writeValueAsString(model.getModel());
-            } catch (JsonProcessingException e) {
-                e.printStackTrace();
-                context.setRootObject(model.getModel());
-                response.result = context.marshall();
+            getWriter(model.getClass()).writeValue(buffer, model);
+        }
+    }
+
+    /**
+     * Return the elements of a model to render one at a time, or {@code null}
+     * for a model to serialize as a whole, including collections.
+     */
+    @Nullable
+    private static Iterator<?> getElements(Object object) {
+        if (object instanceof Stream) {
+            return ((Stream<?>) object).iterator();
+        }
+        if (object instanceof Iterator) {
+            return (Iterator<?>) object;
+        }
+        if (object instanceof Iterable && !(object instanceof Collection)) {
+            return ((Iterable<?>) object).iterator();
+        }
+        return null;
+    }
+
+    /**
+     * Write the elements as a JSON array, each with the writer cached for its type.
+     */
+    private void writeElements(Iterator<?> elements, Writer target) throws IOException {
+        try (JsonGenerator generator = this.objectMapper.getFactory().createGenerator(target)) {
+            if (this.prettyPrint) {
+                generator.useDefaultPrettyPrinter();
             }
+            generator.writeStartArray();
+            while (elements.hasNext()) {
+                Object element = elements.next();
+                if (element == null) {
+                    generator.writeNull();
+                } else {
+                    getWriter(element.getClass()).writeValue(generator, element);
+                }
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    private ObjectWriter getWriter(Class<?> type) {
+        ObjectWriter writer = this.writerCache.get(type);
+        if (writer == null) {
+            writer = this.objectMapper.writerFor(type);
+            writer = (this.prettyPrint ? writer.with(SerializationFeature.INDENT_OUTPUT) :
+                    writer.without(SerializationFeature.INDENT_OUTPUT));
+            this.writerCache.putIfAbsent(type, writer);
         }
-        response.rc = model.getRc();
+        return writer;
     }
 }
@@ -0,0 +1,79 @@
+package org.sunyuyangg.service.core.viewer;
+
+import org.springframework.lang.Nullable;
+import org.sunyuyangg.service.core.View;
+import org.sunyuyangg.service.core.ViewResolver;
+import org.sunyuyangg.service.core.handler.HandlerMethod;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link ViewResolver} looking views up by format name, independently of the handler.
+ * Each view keeps its own compiled writers, so switching formats costs nothing per request.
+ */
+public class FormatViewResolver implements ViewResolver {
+
+    public static final String JSON = "JSON";
+
+    public static final String COMPACT = "COMPACT";
+
+    public static final String PRETTY = "PRETTY";
+
+    public static final String STAF = "STAF";
+
+    public static final String CSV = "CSV";
+
+    private final Map<String, View> views = new ConcurrentHashMap<>();
+
+    public FormatViewResolver() {
+    }
+
+    /**
+     * Create a resolver with the built-in formats: {@code JSON} rendered by the
+     * given default view, {@code COMPACT} and {@code PRETTY} JSON, {@code STAF}
+     * marshalled data and {@code CSV}. The built-in views share the maximum
+     * result sizes of the default view if it is an {@link AbstractViewer}, or
+     * keep their defaults otherwise.
+     */
+    public static FormatViewResolver withDefaultFormats(View defaultView) {
+        FormatViewResolver resolver = new FormatViewResolver();
+        DefaultViewer compact = new DefaultViewer();
+        DefaultViewer pretty = new DefaultViewer();
+        pretty.setPrettyPrint(true);
+        MarshallingViewer staf = new MarshallingViewer();
+        CsvViewer csv = new CsvViewer();
+        if (defaultView instanceof AbstractViewer) {
+            AbstractViewer sizes = (AbstractViewer) defaultView;
+            for (AbstractViewer view : new AbstractViewer[] {compact, pretty, staf, csv}) {
+                view.setMaxResultSize(sizes.getMaxResultSize());
+                view.setMaxStreamResultSize(sizes.getMaxStreamResultSize());
+            }
+        }
+        resolver.registerView(JSON, defaultView);
+        resolver.registerView(COMPACT, compact);
+        resolver.registerView(PRETTY, pretty);
+        resolver.registerView(STAF, staf);
+        resolver.registerView(CSV, csv);
+        return resolver;
+    }
+
+    /**
+     * Register the view of the given format, replacing an existing one.
+     */
+    public void registerView(String format, View view) {
+        this.views.put(format.toUpperCase(), view);
+    }
+
+    public Set<String> getFormats() {
+        return Collections.unmodifiableSet(this.views.keySet());
+    }
+
+    @Override
+    @Nullable
+    public View resolveView(String format, HandlerMethod handler) {
+        return this.views.get(format);
+    }
+}
@@ -0,0 +1,159 @@
+package org.sunyuyangg.service.core.viewer;
+
+import com.ibm.staf.STAFMarshallingContext;
+import org.pmw.tinylog.Logger;
+import org.springframework.beans.BeanUtils;
+import org.springframework.lang.Nullable;
+import org.sunyuyangg.service.core.support.MapClassMapping;
+import org.sunyuyangg.service.core.support.MapClassMappingRegistry;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Renders the model as native STAF marshalled data, without an intermediate
+ * JSON string: beans become instances of a map class named after their type,
+ * built from the {@link MapClassMapping} introspected once per type; maps,
+ * collections, arrays, iterators and streams become STAF maps and lists, and
+ * simple values strings.
+ * Strings are passed through. Elements of stream and iterator models are
+ * converted as they are read, and conversion stops as soon as the converted
+ * strings exceed the {@link #setMaxStreamResultSize maximum streamed result size}.
+ */
+public class MarshallingViewer extends AbstractViewer {
+
+    private final MapClassMappingRegistry mappings;
+
+    public MarshallingViewer() {
+        this(new MapClassMappingRegistry());
+    }
+
+    public MarshallingViewer(MapClassMappingRegistry mappings) {
+        this.mappings = mappings;
+    }
+
+    @Override
+    protected String renderModel(Object model, int maxResultSize) throws Exception {
+        String result = createMarshallingContext(model, maxResultSize).marshall();
+        if (maxResultSize > 0 && result.length() > maxResultSize) {
+            throw new ResultSizeExceededException(maxResultSize);
+        }
+        return result;
+    }
+
+    /**
+     * Create the marshalling context of the given model, with the model
+     * converted as its root object. Package-private for testing purposes.
+     */
+    STAFMarshallingContext createMarshallingContext(Object model, int maxResultSize) throws Exception {
+        STAFMarshallingContext marshallingContext = new STAFMarshallingContext();
+        marshallingContext.setRootObject(toMarshallable(model, marshallingContext, new SizeBudget(maxResultSize)));
+        return marshallingContext;
+    }
+
+    @Override
+    protected String renderFallback(Object model, Exception ex) {
+        Logger.error(ex);
+        STAFMarshallingContext marshallingContext = new STAFMarshallingContext();
+        marshallingContext.setRootObject(model.toString());
+        return marshallingContext.marshall();
+    }
+
+    /**
+     * Convert the given value to the strings, lists and maps STAF can marshall,
+     * registering the map class definitions of the beans met with the context and
+     * charging the strings created to the budget.
+     */
+    @Nullable
+    private Object toMarshallable(@Nullable Object value, STAFMarshallingContext context, SizeBudget budget)
+            throws Exception {
+        if (value == null) {
+            budget.charge(0);
+            return null;
+        }
+        if (value instanceof String) {
+            return budget.charge((String) value);
+        }
+        if (value instanceof Enum) {
+            return budget.charge(((Enum<?>) value).name());
+        }
+        Class<?> type = value.getClass();
+        if (BeanUtils.isSimpleValueType(type)) {
+            return budget.charge(value.toString());
+        }
+        if (value instanceof Map) {
+            Map<?, ?> source = (Map<?, ?>) value;
+            Map<String, Object> map = new LinkedHashMap<>(source.size() * 4 / 3 + 1);
+            for (Map.Entry<?, ?> entry : source.entrySet()) {
+                map.put(budget.charge(String.valueOf(entry.getKey())), toMarshallable(entry.getValue(), context, budget));
+            }
+            return map;
+        }
+        if (value instanceof Iterable) {
+            List<Object> list = new ArrayList<>();
+            for (Object element : (Iterable<?>) value) {
+                list.add(toMarshallable(element, context, budget));
+            }
+            return list;
+        }
+        if (value instanceof Iterator || value instanceof Stream) {
+            Iterator<?> elements = (value instanceof Stream ? ((Stream<?>) value).iterator() : (Iterator<?>) value);
+            List<Object> list = new ArrayList<>();
+            while (elements.hasNext()) {
+                list.add(toMarshallable(elements.next(), context, budget));
+            }
+            return list;
+        }
+        if (type.isArray()) {
+            int length = Array.getLength(value);
+            List<Object> list = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) {
+                list.add(toMarshallable(Array.get(value, i), context, budget));
+            }
+            return list;
+        }
+        MapClassMapping mapping = this.mappings.getMapping(type);
+        if (!context.hasMapClassDefinition(type.getName())) {
+            context.setMapClassDefinition(mapping.getDefinition());
+        }
+        return mapping.toMap(value, propertyValue -> toMarshallable(propertyValue, context, budget));
+    }
+
+
+    /**
+     * Count of the characters of the strings converted so far, a lower bound of
+     * the marshalled size, failing once it exceeds the maximum result size.
+     */
+    private static final class SizeBudget {
+
+        /**
+         * Characters the marshalled form adds to each string or null, e.g. "@SDT/$S:5:"
+         */
+        private static final int STRING_OVERHEAD = 10;
+
+        private final int maxResultSize;
+
+        private long size;
+
+        SizeBudget(int maxResultSize) {
+            this.maxResultSize = maxResultSize;
+        }
+
+        String charge(String value) throws ResultSizeExceededException {
+            charge(value.length());
+            return value;
+        }
+
+        void charge(int length) throws ResultSizeExceededException {
+            this.size += length + STRING_OVERHEAD;
+            if (this.maxResultSize > 0 && this.size > this.maxResultSize) {
+                throw new ResultSizeExceededException(this.maxResultSize);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package org.sunyuyangg.service.core.viewer;
+
+import java.io.Writer;
+
+/**
+ * A writer appending to a builder that is reset rather than reallocated, and
+ * failing with a {@link ResultSizeExceededException} as soon as the content would
+ * exceed its limit; {@link #close()} keeps it usable, as Jackson closes the
+ * target it writes to.
+ */
+class ResultBuffer extends Writer {
+
+    private final StringBuilder builder;
+
+    /**
+     * Maximum length of the content, 0 for none
+     */
+    private int limit;
+
+    /**
+     * Whether the buffer is being rendered into, for buffers reused by a thread
+     */
+    boolean inUse;
+
+    ResultBuffer(int initialCapacity, int limit) {
+        this.builder = new StringBuilder(initialCapacity);
+        this.limit = limit;
+    }
+
+    /**
+     * Clear the content and set a new limit.
+     */
+    void reset(int limit) {
+        this.builder.setLength(0);
+        this.limit = limit;
+    }
+
+    int capacity() {
+        return this.builder.capacity();
+    }
+
+    int length() {
+        return this.builder.length();
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws ResultSizeExceededException {
+        checkLimit(len);
+        this.builder.append(cbuf, off, len);
+    }
+
+    @Override
+    public void write(int c) throws ResultSizeExceededException {
+        checkLimit(1);
+        this.builder.append((char) c);
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws ResultSizeExceededException {
+        checkLimit(len);
+        this.builder.append(str, off, off + len);
+    }
+
+    @Override
+    public ResultBuffer append(CharSequence csq) throws ResultSizeExceededException {
+        checkLimit(csq.length());
+        this.builder.append(csq);
+        return this;
+    }
+
+    @Override
+    public ResultBuffer append(char c) throws ResultSizeExceededException {
+        write(c);
+        return this;
+    }
+
+    private void checkLimit(int len) throws ResultSizeExceededException {
+        if (this.limit > 0 && this.builder.length() + len > this.limit) {
+            throw new ResultSizeExceededException(this.limit);
+        }
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public String toString() {
+        return this.builder.toString();
+    }
+}
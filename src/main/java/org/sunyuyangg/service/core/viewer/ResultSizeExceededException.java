@@ -0,0 +1,19 @@
+package org.sunyuyangg.service.core.viewer;
+
+import org.sunyuyangg.service.core.ReservedOptions;
+
+import java.io.IOException;
+
+/**
+ * Thrown while rendering once the result exceeds the maximum size of the view;
+ * an {@link IOException} so that Jackson serializers pass it through unwrapped.
+ */
+class ResultSizeExceededException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    ResultSizeExceededException(int maxResultSize) {
+        super("The result exceeds the maximum size of " + maxResultSize + " characters, request it in pages with " +
+                ReservedOptions.PAGESIZE);
+    }
+}
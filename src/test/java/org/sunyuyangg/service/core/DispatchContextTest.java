@@ -0,0 +1,58 @@
+package org.sunyuyangg.service.core;
+
+import com.ibm.staf.service.STAFCommandParser;
+import com.ibm.staf.service.STAFServiceInterfaceLevel30.RequestInfo;
+import org.junit.Test;
+import org.sunyuyangg.service.core.handler.HandlerMethod;
+import org.sunyuyangg.service.core.method.OptionMappingInfo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DispatchContextTest {
+
+    private final OptionMappingInfo mapping = OptionMappingInfo.builder(0, false)
+            .option("DEVICE", 1, 1, STAFCommandParser.VALUENOTALLOWED)
+            .option("LIST", 1, 1, STAFCommandParser.VALUENOTALLOWED)
+            .option(ReservedOptions.WHERE, 1, 0, STAFCommandParser.VALUEREQUIRED)
+            .reservedOption(ReservedOptions.FORMAT)
+            .reservedOption(ReservedOptions.FIELDS)
+            .build();
+
+    @Test
+    public void reservedOptionTest() throws Exception {
+        DispatchContext context = new DispatchContext(createRequestInfo("device list format csv where x"));
+        assertNull(context.getReservedOption(ReservedOptions.FORMAT));
+
+        context.setServiceRequest(mapping.getMatching(context.getRequest()));
+        assertSame(mapping, context.getMapping());
+        assertEquals("csv", context.getReservedOption(ReservedOptions.FORMAT));
+        assertNull(context.getReservedOption(ReservedOptions.FIELDS));
+        // Declared by the mapping itself, so not reserved
+        assertNull(context.getReservedOption(ReservedOptions.WHERE));
+    }
+
+    @Test
+    public void timingTest() throws Exception {
+        DispatchContext context = new DispatchContext(createRequestInfo("device list"));
+        assertEquals(-1, context.getHandlerResolutionTime());
+        assertEquals(-1, context.getHandlerInvocationTime());
+        assertEquals(-1, context.getRenderTime());
+
+        context.setServiceRequest(mapping.getMatching(context.getRequest()));
+        context.setHandler(new HandlerMethod(this, DispatchContextTest.class.getMethod("timingTest")));
+        context.markHandlerInvoked();
+        context.markRendered();
+        assertTrue(context.getHandlerResolutionTime() >= 0);
+        assertTrue(context.getHandlerInvocationTime() >= 0);
+        assertTrue(context.getRenderTime() >= 0);
+        assertTrue(context.getElapsedTime() >= context.getHandlerResolutionTime() +
+                context.getHandlerInvocationTime() + context.getRenderTime());
+    }
+
+    private static RequestInfo createRequestInfo(String request) {
+        return new RequestInfo("12345678", "local", "sun", "12", 1, 6, false, 0, request, 0, "sun", "", "");
+    }
+}
@@ -0,0 +1,142 @@
+package org.sunyuyangg.service.core;
+
+import com.ibm.staf.STAFResult;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.sunyuyangg.service.core.adapter.ModelAndView;
+import org.sunyuyangg.service.core.handler.HandlerMethod;
+import org.sunyuyangg.service.core.method.MappingInfo;
+import org.sunyuyangg.service.core.method.annotation.OptionMappingHandlerMapping;
+import org.sunyuyangg.service.core.sample.SampleConfiguration;
+import org.sunyuyangg.service.core.sample.controller.DeviceController;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class HandlerResolutionTableTest {
+
+    @Test
+    public void handlerMappingsTest() throws Exception {
+        HandlerMapping list = new RoutedHandlerMapping("DEVICE#LIST");
+        HandlerMapping unrouted = context -> null;
+        HandlerMapping both = new RoutedHandlerMapping("DEVICE#LIST", "INSTANCE#NUMBER");
+        HandlerResolutionTable table = new HandlerResolutionTable(1, Arrays.asList(list, unrouted, both),
+                Collections.emptyList());
+
+        // Route owners and unrouted mappings keep their configured order
+        assertEquals(Arrays.asList(list, unrouted, both), table.getHandlerMappings("device list name foo"));
+        assertEquals(Arrays.asList(unrouted, both), table.getHandlerMappings("INSTANCE number"));
+        assertEquals(Collections.singletonList(unrouted), table.getHandlerMappings("device count"));
+        assertEquals(Collections.singletonList(unrouted), table.getHandlerMappings("device"));
+        // Looked up, not rebuilt per request
+        assertSame(table.getHandlerMappings("device list"), table.getHandlerMappings("Device List"));
+    }
+
+    @Test
+    public void handlerAdapterTest() throws Exception {
+        RecordingHandlerAdapter unsupported = new RecordingHandlerAdapter(false);
+        RecordingHandlerAdapter adapter = new RecordingHandlerAdapter(true);
+        HandlerResolutionTable table = new HandlerResolutionTable(1, Collections.emptyList(),
+                Arrays.asList(unsupported, adapter));
+        HandlerMethod handler = new HandlerMethod(new DeviceController(), DeviceController.class.getMethod("list"));
+
+        assertSame(adapter, table.getHandlerAdapter(handler));
+        assertSame(adapter, table.getHandlerAdapter(handler));
+        assertEquals(1, adapter.supported);
+        assertEquals(1, unsupported.supported);
+
+        HandlerResolutionTable none = new HandlerResolutionTable(1, Collections.emptyList(),
+                Collections.singletonList(unsupported));
+        assertNull(none.getHandlerAdapter(handler));
+    }
+
+    @Test
+    public void preparedHandlersTest() throws Exception {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(SampleConfiguration.class)) {
+            OptionMappingHandlerMapping handlerMapping = new OptionMappingHandlerMapping();
+            handlerMapping.setApplicationContext(context);
+            handlerMapping.afterPropertiesSet();
+            RecordingHandlerAdapter adapter = new RecordingHandlerAdapter(true);
+            HandlerResolutionTable table = new HandlerResolutionTable(handlerMapping.getRegistryVersion(),
+                    Collections.singletonList(handlerMapping), Collections.singletonList(adapter));
+
+            // Every handler method is prepared, and its adapter known, before the first request
+            assertEquals(handlerMapping.getHandlerMethods().size(), adapter.prepared.size());
+            assertEquals(handlerMapping.getHandlerMethods().size(), adapter.supported);
+            HandlerMethod list = new HandlerMethod(context.getBean(DeviceController.class), DeviceController.class.getMethod("list"));
+            assertSame(adapter, table.getHandlerAdapter(list));
+            assertEquals(handlerMapping.getHandlerMethods().size(), adapter.supported);
+            assertTrue(table.getReturnTypes().contains(DeviceController.class.getMethod("list").getGenericReturnType()));
+
+            // Handler methods missing from a newer table are released
+            table.releaseRemovedHandlers(new HandlerResolutionTable(handlerMapping.getRegistryVersion() + 1,
+                    Collections.emptyList(), Collections.singletonList(adapter)));
+            assertEquals(new HashSet<>(handlerMapping.getHandlerMethods().values()), new HashSet<>(adapter.released));
+        }
+    }
+
+
+    private static class RoutedHandlerMapping implements HandlerMapping {
+
+        private final Set<String> routes;
+
+        RoutedHandlerMapping(String... routes) {
+            this.routes = new HashSet<>(Arrays.asList(routes));
+        }
+
+        @Override
+        public HandlerMethod getHandler(DispatchContext context) {
+            return null;
+        }
+
+        @Override
+        public Set<String> getRoutes() {
+            return this.routes;
+        }
+    }
+
+    private static class RecordingHandlerAdapter implements HandlerAdapter {
+
+        private final boolean supports;
+
+        private int supported;
+
+        private final List<Object> prepared = new ArrayList<>();
+
+        private final List<Object> released = new ArrayList<>();
+
+        RecordingHandlerAdapter(boolean supports) {
+            this.supports = supports;
+        }
+
+        @Override
+        public boolean supports(Object handler) {
+            this.supported++;
+            return this.supports;
+        }
+
+        @Override
+        public ModelAndView handle(DispatchContext context, STAFResult response, Object handler) {
+            return new ModelAndView();
+        }
+
+        @Override
+        public void prepare(Object handler, MappingInfo mapping) {
+            this.prepared.add(handler);
+        }
+
+        @Override
+        public void release(Object handler) {
+            this.released.add(handler);
+        }
+    }
+}
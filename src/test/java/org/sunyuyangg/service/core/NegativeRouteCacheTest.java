@@ -0,0 +1,76 @@
+package org.sunyuyangg.service.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NegativeRouteCacheTest {
+
+    @Test
+    public void containsTest() {
+        NegativeRouteCache cache = new NegativeRouteCache(16);
+        cache.add("device remove name foo", 1);
+        assertTrue(cache.contains("device remove", 1));
+        assertTrue(cache.contains("  DEVICE\tRemove  name bar", 1));
+        assertFalse(cache.contains("device list", 1));
+        assertFalse(cache.contains("device", 1));
+        assertFalse(cache.contains("device removes", 1));
+    }
+
+    @Test
+    public void tokenBoundaryTest() {
+        NegativeRouteCache cache = new NegativeRouteCache(16);
+        cache.add("device#list", 1);
+        assertTrue(cache.contains("DEVICE#LIST", 1));
+        assertFalse(cache.contains("device list", 1));
+        assertFalse(cache.contains("device #list", 1));
+
+        cache.add("devicel ist", 1);
+        assertFalse(cache.contains("device list", 1));
+        assertFalse(cache.contains("devicelist", 1));
+    }
+
+    @Test
+    public void singleTokenTest() {
+        NegativeRouteCache cache = new NegativeRouteCache(16);
+        cache.add("device", 1);
+        assertTrue(cache.contains(" device ", 1));
+        assertFalse(cache.contains("device list", 1));
+        assertFalse(cache.contains("devic", 1));
+
+        cache.add("", 1);
+        assertTrue(cache.contains("  ", 1));
+        assertFalse(cache.contains("instance", 1));
+    }
+
+    @Test
+    public void versionTest() {
+        NegativeRouteCache cache = new NegativeRouteCache(16);
+        cache.add("device remove", 1);
+        assertFalse(cache.contains("device remove", 2));
+
+        // A route of an older registry version does not replace a newer one
+        cache.add("device remove", 2);
+        cache.add("device remove", 1);
+        assertTrue(cache.contains("device remove", 2));
+    }
+
+    @Test
+    public void evictionTest() {
+        NegativeRouteCache cache = new NegativeRouteCache(1);
+        cache.add("device remove", 1);
+        cache.add("device rename", 1);
+        assertFalse(cache.contains("device remove", 1));
+        assertTrue(cache.contains("device rename", 1));
+    }
+
+    @Test
+    public void tokensTest() {
+        assertEquals(2, NegativeRouteCache.tokens("device list name foo").length);
+        assertEquals("LIST", NegativeRouteCache.tokens(" device\tlist")[1]);
+        assertEquals(1, NegativeRouteCache.tokens("device#list").length);
+        assertEquals(0, NegativeRouteCache.tokens(" ").length);
+    }
+}
@@ -0,0 +1,70 @@
+package org.sunyuyangg.service.core;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.Test;
+import org.sunyuyangg.service.core.ObjectMapperRegistry.Profile;
+import org.sunyuyangg.service.core.sample.model.Device;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ObjectMapperRegistryTest {
+
+    @Test
+    public void profileNameTest() {
+        assertEquals(Profile.DEFAULT, Profile.forName(null));
+        assertEquals(Profile.PERFORMANCE, Profile.forName(" performance "));
+        assertEquals(Profile.DEFAULT, Profile.forName("Default"));
+        // Unknown profiles fall back to the default one instead of failing the shared registry
+        assertEquals(Profile.DEFAULT, Profile.forName("fastest"));
+        assertEquals(Profile.DEFAULT, Profile.forName(""));
+    }
+
+    @Test
+    public void objectMapperTest() {
+        for (Profile profile : Profile.values()) {
+            ObjectMapper objectMapper = new ObjectMapperRegistry(profile).getObjectMapper();
+            assertFalse(objectMapper.isEnabled(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES));
+            assertFalse(objectMapper.isEnabled(SerializationFeature.FAIL_ON_EMPTY_BEANS));
+            assertTrue(objectMapper.isEnabled(SerializationFeature.INDENT_OUTPUT));
+        }
+    }
+
+    @Test
+    public void setProfileTest() {
+        ObjectMapperRegistry registry = new ObjectMapperRegistry(Profile.DEFAULT);
+        ObjectMapper objectMapper = registry.getObjectMapper();
+        assertSame(objectMapper, registry.getObjectMapper());
+
+        registry.setProfile(Profile.PERFORMANCE);
+        assertEquals(Profile.PERFORMANCE, registry.getProfile());
+        assertNotSame(objectMapper, registry.getObjectMapper());
+
+        ObjectMapper custom = new ObjectMapper();
+        registry.setObjectMapper(custom);
+        assertSame(custom, registry.getObjectMapper());
+    }
+
+    @Test
+    public void prewarmTest() throws Exception {
+        ObjectMapperRegistry registry = new ObjectMapperRegistry(Profile.PERFORMANCE);
+        registry.prewarm(Arrays.asList(Device.class, int.class, Void.class,
+                ObjectMapperRegistryTest.class.getDeclaredMethod("devices").getGenericReturnType()));
+        assertEquals("{\"name\":\"dev0\",\"size\":0}",
+                registry.getObjectMapper().writer().without(SerializationFeature.INDENT_OUTPUT)
+                        .writeValueAsString(new Device("dev0", 0)));
+    }
+
+    private static Map<String, List<Device>> devices() {
+        return null;
+    }
+}
@@ -0,0 +1,79 @@
+package org.sunyuyangg.service.core.adapter;
+
+import com.ibm.staf.service.STAFCommandParser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.sunyuyangg.service.core.handler.HandlerMethod;
+import org.sunyuyangg.service.core.handler.ServiceInvocableHandlerMethod;
+import org.sunyuyangg.service.core.method.MappingInfo;
+import org.sunyuyangg.service.core.method.OptionMappingInfo;
+import org.sunyuyangg.service.core.sample.SampleConfiguration;
+import org.sunyuyangg.service.core.sample.controller.DeviceController;
+import org.sunyuyangg.service.core.sample.controller.InstanceController;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class RequestMappingHandlerAdapterTest {
+
+    private AnnotationConfigApplicationContext context;
+
+    private RequestMappingHandlerAdapter handlerAdapter;
+
+    @Before
+    public void setUp() throws Exception {
+        context = new AnnotationConfigApplicationContext(SampleConfiguration.class);
+        handlerAdapter = new RequestMappingHandlerAdapter();
+        handlerAdapter.setBeanFactory(context.getBeanFactory());
+        handlerAdapter.afterPropertiesSet();
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+    }
+
+    @Test
+    public void singletonInvocableTest() throws Exception {
+        HandlerMethod registered = new HandlerMethod("deviceController", context.getBeanFactory(),
+                DeviceController.class.getMethod("list"));
+        MappingInfo mapping = mapping("LIST");
+        ServiceInvocableHandlerMethod invocable = handlerAdapter.getInvocableHandlerMethod(registered.createWithResolvedBean(), mapping);
+        assertSame(invocable, handlerAdapter.getInvocableHandlerMethod(registered.createWithResolvedBean(), mapping));
+        assertSame(context.getBean(DeviceController.class), invocable.getBean());
+
+        // Registered again with a new mapping
+        MappingInfo newMapping = mapping("LIST");
+        ServiceInvocableHandlerMethod rebound = handlerAdapter.getInvocableHandlerMethod(registered.createWithResolvedBean(), newMapping);
+        assertNotSame(invocable, rebound);
+        assertSame(newMapping, rebound.getArgumentBindingPlan().getMapping());
+        assertSame(rebound, handlerAdapter.getInvocableHandlerMethod(registered.createWithResolvedBean(), newMapping));
+
+        handlerAdapter.release(registered);
+        assertNotSame(rebound, handlerAdapter.getInvocableHandlerMethod(registered.createWithResolvedBean(), newMapping));
+    }
+
+    @Test
+    public void prototypeInvocableTest() throws Exception {
+        HandlerMethod registered = new HandlerMethod("instanceController", context.getBeanFactory(),
+                InstanceController.class.getMethod("number"));
+        MappingInfo mapping = mapping("NUMBER");
+        HandlerMethod first = registered.createWithResolvedBean();
+        HandlerMethod second = registered.createWithResolvedBean();
+        ServiceInvocableHandlerMethod firstInvocable = handlerAdapter.getInvocableHandlerMethod(first, mapping);
+        ServiceInvocableHandlerMethod secondInvocable = handlerAdapter.getInvocableHandlerMethod(second, mapping);
+        assertNotSame(firstInvocable, secondInvocable);
+        assertSame(first.getBean(), firstInvocable.getBean());
+        assertSame(second.getBean(), secondInvocable.getBean());
+        // The binding plan is still shared
+        assertSame(firstInvocable.getArgumentBindingPlan(), secondInvocable.getArgumentBindingPlan());
+    }
+
+    private static MappingInfo mapping(String option) {
+        return OptionMappingInfo.builder(0, false)
+                .option(option, 1, 1, STAFCommandParser.VALUENOTALLOWED)
+                .build();
+    }
+}
@@ -0,0 +1,188 @@
+package org.sunyuyangg.service.core.handler;
+
+import com.ibm.staf.service.STAFServiceInterfaceLevel30;
+import org.junit.Test;
+import org.sunyuyangg.service.core.handler.AbstractHandlerMethodMapping.RegistrySnapshot;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AbstractHandlerMethodMappingTest {
+
+    private final PathHandlerMethodMapping handlerMapping = new PathHandlerMethodMapping();
+
+    private final Handler handler = new Handler();
+
+    private final Method handle = method("handle");
+
+    @Test
+    public void snapshotTest() {
+        AbstractHandlerMethodMapping<String>.MappingRegistry registry = handlerMapping.getMappingRegistry();
+        RegistrySnapshot<String> empty = registry.getSnapshot();
+        registry.register("DEVICE#LIST", handler, handle);
+        RegistrySnapshot<String> snapshot = registry.getSnapshot();
+
+        // Published snapshots never change
+        assertEquals(0, empty.getVersion());
+        assertTrue(empty.getMappings().isEmpty());
+        assertNull(empty.getRouteByRequest("device list"));
+
+        assertEquals(1, snapshot.getVersion());
+        assertEquals(handle, snapshot.getMappings().get("DEVICE#LIST").getMethod());
+        assertEquals(1, snapshot.getMappingsByRequest("Device LIST name foo").size());
+        assertSame(snapshot, registry.getSnapshot());
+        try {
+            snapshot.getMappings().clear();
+            fail();
+        } catch (UnsupportedOperationException ex) {
+            // Read-only
+        }
+    }
+
+    @Test
+    public void unregisterTest() {
+        AbstractHandlerMethodMapping<String>.MappingRegistry registry = handlerMapping.getMappingRegistry();
+        registry.register("DEVICE#LIST", handler, handle);
+        registry.register("DEVICE#COUNT", handler, method("count"));
+        RegistrySnapshot<String> registered = registry.getSnapshot();
+
+        registry.unregister("DEVICE#LIST");
+        assertEquals(3, handlerMapping.getRegistryVersion());
+        assertNull(registry.getMappingsByRequest("device list"));
+        assertNotNull(registry.getMappingsByRequest("device count"));
+        assertNotNull(registered.getMappingsByRequest("device list"));
+
+        // Unknown mappings leave the registry unchanged
+        RegistrySnapshot<String> current = registry.getSnapshot();
+        registry.unregister("DEVICE#LIST");
+        assertSame(current, registry.getSnapshot());
+    }
+
+    @Test
+    public void ambiguousMappingTest() {
+        AbstractHandlerMethodMapping<String>.MappingRegistry registry = handlerMapping.getMappingRegistry();
+        registry.register("DEVICE#LIST", handler, handle);
+        RegistrySnapshot<String> snapshot = registry.getSnapshot();
+        try {
+            registry.register("DEVICE#LIST", handler, method("count"));
+            fail();
+        } catch (IllegalStateException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("Ambiguous mapping."));
+        }
+        assertSame(snapshot, registry.getSnapshot());
+    }
+
+    @Test
+    public void concurrentRegistrationTest() throws Exception {
+        AbstractHandlerMethodMapping<String>.MappingRegistry registry = handlerMapping.getMappingRegistry();
+        int writers = 4;
+        int mappingsPerWriter = 250;
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 1);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                int writer = w;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < mappingsPerWriter; i++) {
+                        registry.register("DEVICE" + writer + "#OPTION" + i, handler, handle);
+                    }
+                    return null;
+                }));
+            }
+            Future<?> reader = executor.submit(() -> {
+                start.await();
+                long version = 0;
+                while (version < writers * mappingsPerWriter) {
+                    RegistrySnapshot<String> snapshot = registry.getSnapshot();
+                    // Every snapshot is consistent: one route and one mapping per registration
+                    assertTrue(snapshot.getVersion() >= version);
+                    assertEquals(snapshot.getVersion(), snapshot.getMappings().size());
+                    assertEquals(snapshot.getVersion(), snapshot.getPaths().size());
+                    version = snapshot.getVersion();
+                }
+                return null;
+            });
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            reader.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(writers * mappingsPerWriter, registry.getMappings().size());
+        for (int w = 0; w < writers; w++) {
+            assertNotNull(registry.getMappingsByRequest("device" + w + " option" + (mappingsPerWriter - 1)));
+        }
+    }
+
+    private static Method method(String name) {
+        try {
+            return Handler.class.getMethod(name);
+        } catch (NoSuchMethodException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+
+    /**
+     * Mapping of its route path, e.g. {@code DEVICE#LIST}.
+     */
+    private static class PathHandlerMethodMapping extends AbstractHandlerMethodMapping<String> {
+
+        @Override
+        protected ServiceRequest getMatchingMapping(String mapping, STAFServiceInterfaceLevel30.RequestInfo request) {
+            return null;
+        }
+
+        @Override
+        protected String getMappingForMethod(Method method, Class<?> handlerType) {
+            return null;
+        }
+
+        @Override
+        protected boolean isHandler(Class<?> beanType) {
+            return false;
+        }
+
+        @Override
+        protected String getMappingPath(String mapping) {
+            return mapping;
+        }
+
+        @Override
+        protected HandlerMethod createHandlerMethod(String mapping, Object handler, Method method) {
+            return new HandlerMethod(handler, method);
+        }
+
+        @Override
+        protected void registerHelp(String mapping) {
+        }
+    }
+
+    public static class Handler {
+
+        public String handle() {
+            return "handle";
+        }
+
+        public String count() {
+            return "count";
+        }
+    }
+}
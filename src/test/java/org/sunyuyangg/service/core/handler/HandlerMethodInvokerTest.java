@@ -0,0 +1,120 @@
+package org.sunyuyangg.service.core.handler;
+
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class HandlerMethodInvokerTest {
+
+    private final Target target = new Target();
+
+    @Test
+    public void invokeTest() throws Exception {
+        HandlerMethodInvoker invoker = HandlerMethodInvoker.forMethod(method("describe"));
+        assertEquals("MethodHandleInvoker", invoker.getClass().getSimpleName());
+        assertEquals("foo:3:7", invoker.invoke(target, new Object[] {"foo", 3, 7L}));
+        assertEquals("null:0:null", invoker.invoke(target, new Object[] {null, 0, null}));
+
+        HandlerMethodInvoker staticInvoker = HandlerMethodInvoker.forMethod(method("twice"));
+        assertEquals(8, staticInvoker.invoke(null, new Object[] {4}));
+
+        HandlerMethodInvoker voidInvoker = HandlerMethodInvoker.forMethod(method("run"));
+        assertEquals(null, voidInvoker.invoke(target, new Object[0]));
+    }
+
+    @Test
+    public void wideningArgumentTest() throws Exception {
+        HandlerMethodInvoker invoker = HandlerMethodInvoker.forMethod(method("describe"));
+        // Widened like Method#invoke does: short to int, int to long
+        assertEquals("foo:3:7", invoker.invoke(target, new Object[] {"foo", (short) 3, 7L}));
+        HandlerMethodInvoker sum = HandlerMethodInvoker.forMethod(method("sum"));
+        assertEquals(10L, sum.invoke(target, new Object[] {3, (byte) 7}));
+        assertEquals(10L, sum.invoke(target, new Object[] {3L, 7L}));
+    }
+
+    @Test
+    public void mismatchedArgumentTest() throws Exception {
+        Method method = method("describe");
+        HandlerMethodInvoker invoker = HandlerMethodInvoker.forMethod(method);
+        Object[][] arguments = {
+                {"foo", 3L, 7L},
+                {"foo", null, 7L},
+                {3, 3, 7L},
+                {"foo", 3},
+                {"foo", 3, 7L, 1},
+        };
+        for (Object[] args : arguments) {
+            assertRejected(method, target, args);
+            assertRejected(invoker, target, args);
+        }
+        assertRejected(method, new Object(), new Object[] {"foo", 3, 7L});
+        assertRejected(invoker, new Object(), new Object[] {"foo", 3, 7L});
+    }
+
+    @Test
+    public void exceptionTest() throws Exception {
+        HandlerMethodInvoker invoker = HandlerMethodInvoker.forMethod(method("fail"));
+        IllegalStateException failure = new IllegalStateException("failed");
+        try {
+            invoker.invoke(target, new Object[] {failure});
+            fail();
+        } catch (InvocationTargetException ex) {
+            assertSame(failure, ex.getTargetException());
+        }
+    }
+
+    private static void assertRejected(Method method, Object bean, Object[] args) throws Exception {
+        try {
+            method.invoke(bean, args);
+            fail("Method accepted " + args.length + " arguments");
+        } catch (IllegalArgumentException ex) {
+            // Expected
+        }
+    }
+
+    private static void assertRejected(HandlerMethodInvoker invoker, Object bean, Object[] args) throws Exception {
+        try {
+            invoker.invoke(bean, args);
+            fail("Invoker accepted " + args.length + " arguments");
+        } catch (IllegalArgumentException ex) {
+            // Like Method#invoke
+        }
+    }
+
+    private static Method method(String name) {
+        for (Method method : Target.class.getDeclaredMethods()) {
+            if (method.getName().equals(name)) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+
+    private static class Target {
+
+        String describe(String name, int times, Long limit) {
+            return name + ":" + times + ":" + limit;
+        }
+
+        long sum(long first, long second) {
+            return first + second;
+        }
+
+        static int twice(int value) {
+            return 2 * value;
+        }
+
+        void run() {
+        }
+
+        void fail(RuntimeException ex) {
+            throw ex;
+        }
+    }
+}
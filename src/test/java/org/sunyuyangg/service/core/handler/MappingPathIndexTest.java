@@ -0,0 +1,63 @@
+package org.sunyuyangg.service.core.handler;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MappingPathIndexTest {
+
+    private final MappingPathIndex<String> index = new MappingPathIndex<>(paths());
+
+    @Test
+    public void lookupTest() {
+        assertEquals(Arrays.asList("list", "listAll"), index.lookup("DEVICE LIST"));
+        assertEquals(Collections.singletonList("count"), index.lookup("device count name foo"));
+        assertEquals(Collections.singletonList("count"), index.lookup("  Device\tCount  "));
+        assertEquals(Collections.singletonList("memory"), index.lookup("query memory"));
+    }
+
+    @Test
+    public void noRouteTest() {
+        assertNull(index.lookup("device remove"));
+        assertNull(index.lookup("query list"));
+        assertNull(index.lookup("device"));
+        assertNull(index.lookup(""));
+        // The route tokens are compared with their boundaries
+        assertNull(index.lookup("device#list"));
+        assertNull(index.lookup("devicelist"));
+        assertNull(index.lookup("device listing"));
+        assertNull(MappingPathIndex.<String>empty().lookup("device list"));
+    }
+
+    @Test
+    public void pathsTest() {
+        assertEquals(paths().keySet(), index.getPaths());
+        assertEquals(Collections.singletonList("memory"), index.get("QUERY#MEMORY"));
+    }
+
+    @Test
+    public void candidateSelectorTest() {
+        MappingPathIndex<String> index = new MappingPathIndex<>(paths(),
+                mappings -> request -> Collections.singletonList(mappings.get(mappings.size() - 1)));
+        MappingPathIndex.Route<String> route = index.getRoute("device list all");
+        assertEquals(Arrays.asList("list", "listAll"), route.getMappings());
+        assertEquals(Collections.singletonList("listAll"), route.getCandidates("device list all"));
+        assertTrue(new MappingPathIndex<>(paths()).getRoute("device list").getCandidates("device list").size() == 2);
+    }
+
+    private static Map<String, List<String>> paths() {
+        Map<String, List<String>> paths = new LinkedHashMap<>();
+        paths.put("DEVICE#LIST", Arrays.asList("list", "listAll"));
+        paths.put("DEVICE#COUNT", Collections.singletonList("count"));
+        paths.put("QUERY#MEMORY", Collections.singletonList("memory"));
+        return paths;
+    }
+}
@@ -0,0 +1,68 @@
+package org.sunyuyangg.service.core.method;
+
+import com.ibm.staf.service.STAFCommandParser;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class OptionMappingCandidateSelectorTest {
+
+    private OptionMappingInfo name;
+
+    private OptionMappingInfo size;
+
+    private OptionMappingCandidateSelector selector;
+
+    @Before
+    public void setUp() {
+        name = createMapping("NAME", STAFCommandParser.VALUEREQUIRED);
+        size = createMapping("SIZE", STAFCommandParser.VALUENOTALLOWED);
+        selector = OptionMappingCandidateSelector.compile(Arrays.asList(name, size));
+    }
+
+    @Test
+    public void selectByOptionTest() {
+        assertEquals(Collections.singletonList(size), selector.select("query usb size"));
+        assertEquals(Collections.singletonList(name), selector.select("query usb NAME foo"));
+    }
+
+    @Test
+    public void skipOptionValueTest() {
+        assertEquals(Collections.singletonList(name), selector.select("query usb name size"));
+        assertEquals(Collections.singletonList(name), selector.select("query usb name \"size\""));
+    }
+
+    @Test
+    public void skipLengthDelimitedValueTest() {
+        assertEquals(Collections.singletonList(name), selector.select("query usb name :4:size"));
+        assertEquals(Collections.singletonList(name), selector.select("query usb name :9:size size"));
+    }
+
+    @Test
+    public void allowedValueTest() {
+        OptionMappingInfo label = createMapping("LABEL", STAFCommandParser.VALUEALLOWED);
+        OptionMappingCandidateSelector selector = OptionMappingCandidateSelector.compile(Arrays.asList(label, size));
+        assertEquals(Collections.singletonList(label), selector.select("query usb label foo"));
+        List<OptionMappingInfo> candidates = selector.select("query usb label size");
+        assertEquals(Arrays.asList(label, size), candidates);
+    }
+
+    @Test
+    public void noViableCandidateTest() {
+        List<OptionMappingInfo> candidates = selector.select("query usb name foo size");
+        assertEquals(Arrays.asList(name, size), candidates);
+    }
+
+    private static OptionMappingInfo createMapping(String option, int valueRequirement) {
+        return OptionMappingInfo.builder(0, false)
+                .option("QUERY", 1, 1, STAFCommandParser.VALUENOTALLOWED)
+                .option("USB", 1, 1, STAFCommandParser.VALUENOTALLOWED)
+                .option(option, 1, 1, valueRequirement)
+                .build();
+    }
+}
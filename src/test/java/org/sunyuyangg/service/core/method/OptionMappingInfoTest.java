@@ -0,0 +1,105 @@
+package org.sunyuyangg.service.core.method;
+
+import com.ibm.staf.service.STAFCommandParser;
+import com.ibm.staf.service.STAFServiceInterfaceLevel30.RequestInfo;
+import org.junit.Test;
+import org.sunyuyangg.service.core.method.parser.CommandParseResult;
+import org.sunyuyangg.service.core.method.parser.CompiledCommandParser;
+import org.sunyuyangg.service.core.method.parser.STAFCommandParserAdapter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class OptionMappingInfoTest {
+
+    @Test
+    public void sharedParserTest() throws Exception {
+        AtomicInteger parsers = new AtomicInteger();
+        OptionMappingInfo mapping = deviceMapping()
+                .commandParserFactory(info -> {
+                    parsers.incrementAndGet();
+                    return new STAFCommandParserAdapter(info);
+                })
+                .build();
+        OptionMappingServiceRequest first = mapping.getMatching(createRequestInfo("device count name foo"));
+        OptionMappingServiceRequest second = mapping.getMatching(createRequestInfo("device count name bar times 2"));
+        assertEquals(1, parsers.get());
+
+        // The mapping is shared, the parse result belongs to the request
+        assertSame(mapping, first.getMapping());
+        assertSame(mapping, second.getMapping());
+        assertNotSame(first.getParseResult(), second.getParseResult());
+        assertEquals("foo", first.getParseResult().optionValue("NAME"));
+        assertEquals(0, first.getParseResult().optionTimes("TIMES"));
+        assertEquals("bar", second.getParseResult().optionValue("NAME"));
+        assertEquals("2", second.getParseResult().optionValue("TIMES"));
+    }
+
+    @Test
+    public void rejectedRequestTest() throws Exception {
+        OptionMappingInfo mapping = deviceMapping().build();
+        try {
+            mapping.getMatching(createRequestInfo("device count name"));
+            fail();
+        } catch (Exception ex) {
+            assertEquals(new STAFCommandParserAdapter(mapping).parse("device count name").getErrorBuffer(), ex.getMessage());
+        }
+        // A rejected request leaves the shared parser usable
+        assertEquals("foo", mapping.getMatching(createRequestInfo("device count name foo")).getParseResult().optionValue("NAME"));
+    }
+
+    @Test
+    public void concurrentMatchingTest() throws Exception {
+        for (OptionMappingInfo mapping : new OptionMappingInfo[] {
+                deviceMapping().build(), deviceMapping().commandParserFactory(CompiledCommandParser::new).build()}) {
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < 4; t++) {
+                    int thread = t;
+                    futures.add(executor.submit(() -> {
+                        for (int i = 0; i < 500; i++) {
+                            CommandParseResult parseResult = mapping.getMatching(
+                                    createRequestInfo("device count name dev" + thread + " times " + i)).getParseResult();
+                            assertEquals("dev" + thread, parseResult.optionValue("NAME"));
+                            assertEquals(String.valueOf(i), parseResult.optionValue("TIMES"));
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get(30, TimeUnit.SECONDS);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void immutableOptionsTest() {
+        deviceMapping().build().getOptions().clear();
+    }
+
+    private static OptionMappingInfo.Builder deviceMapping() {
+        return OptionMappingInfo.builder(0, false)
+                .option("DEVICE", 1, 1, STAFCommandParser.VALUENOTALLOWED)
+                .option("COUNT", 1, 1, STAFCommandParser.VALUENOTALLOWED)
+                .option("NAME", 1, 1, STAFCommandParser.VALUEREQUIRED)
+                .option("TIMES", 1, 0, STAFCommandParser.VALUEREQUIRED);
+    }
+
+    private static RequestInfo createRequestInfo(String request) {
+        return new RequestInfo("12345678", "local", "sun", "12", 1, 6, false, 0, request, 0, "sun", "", "");
+    }
+}
@@ -0,0 +1,55 @@
+package org.sunyuyangg.service.core.method.annotation;
+
+import com.ibm.staf.service.STAFCommandParser;
+import org.junit.Test;
+import org.sunyuyangg.service.core.annotation.Option;
+import org.sunyuyangg.service.core.annotation.OptionMapping;
+import org.sunyuyangg.service.core.method.OptionMappingInfo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OptionMappingHandlerMappingTest {
+
+    private final OptionMappingHandlerMapping handlerMapping = new OptionMappingHandlerMapping();
+
+    @Test
+    public void mappingPathTest() throws Exception {
+        OptionMappingInfo mapping = handlerMapping.getMappingForMethod(
+                RouteController.class.getMethod("list"), RouteController.class);
+        assertEquals("ROUTE#LIST", mapping.getMappingPath());
+        assertTrue(mapping.isReservedOption("FORMAT"));
+    }
+
+    @Test
+    public void mappingWithoutOptionTest() throws Exception {
+        try {
+            handlerMapping.getMappingForMethod(RouteController.class.getMethod("unroutable"), RouteController.class);
+            fail();
+        } catch (IllegalStateException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().endsWith("declares no option to route requests by"));
+        }
+    }
+
+
+    public static class RouteController {
+
+        @OptionMapping(
+                options = {
+                        @Option(name = "list", maxAllowed = 1, valueRequirement = STAFCommandParser.VALUENOTALLOWED),
+                        @Option(name = "name", maxAllowed = 1, valueRequirement = STAFCommandParser.VALUEREQUIRED)
+                },
+                optionNeeds = {},
+                optionGroup = {}
+        )
+        public String list() {
+            return "list";
+        }
+
+        @OptionMapping(options = {}, optionNeeds = {}, optionGroup = {})
+        public String unroutable() {
+            return "unroutable";
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package org.sunyuyangg.service.core.method.parser;
+
+import com.ibm.staf.STAFResult;
+import com.ibm.staf.service.STAFCommandParser;
+import org.junit.Test;
+import org.sunyuyangg.service.core.method.OptionMappingInfo;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that {@link CompiledCommandParser} returns the same results and error
+ * messages as the {@link STAFCommandParser} it replaces, by parsing each request
+ * with both, so it runs against the STAF parser of the test classpath.
+ */
+public class CompiledCommandParserTest {
+
+    private static final String[] NAMES = {"QUERY", "DEVICE", "NAME", "LABEL", "SIZE", "TAG", "ALL", "SORT"};
+
+    private static final String[] VALUES = {"foo", "x", "Name", "a:b", "1", "size7", "-"};
+
+    private static final String[] WHITESPACE = {" ", " ", "  ", "\t", " \n "};
+
+    private final OptionMappingInfo mapping = OptionMappingInfo.builder(1, false)
+            .option("QUERY", 1, 1, STAFCommandParser.VALUENOTALLOWED)
+            .option("DEVICE", 1, 1, STAFCommandParser.VALUENOTALLOWED)
+            .option("NAME", 1, 0, STAFCommandParser.VALUEREQUIRED)
+            .option("LABEL", 1, 0, STAFCommandParser.VALUEALLOWED)
+            .option("SIZE", 1, 0, STAFCommandParser.VALUENOTALLOWED)
+            .option("TAG", 0, 0, STAFCommandParser.VALUEREQUIRED)
+            .option("ALL", 1, 0, STAFCommandParser.VALUENOTALLOWED)
+            .option("SORT", 1, 0, STAFCommandParser.VALUEREQUIRED)
+            .optionGroup("NAME ALL", 0, 1)
+            .optionNeed("SORT", "ALL")
+            .build();
+
+    @Test
+    public void optionTest() {
+        assertParity("query device");
+        assertParity("QUERY Device name foo size");
+        assertParity("query device label");
+        assertParity("query device label bar size");
+    }
+
+    @Test
+    public void repeatedOptionTest() {
+        assertParity("query device tag a tag b tag c");
+        assertParity("query device size size");
+        assertParity("query device query");
+    }
+
+    @Test
+    public void valueRequiredTest() {
+        assertParity("query device name");
+        assertParity("query device name size");
+        assertParity("query device tag a tag");
+    }
+
+    @Test
+    public void quotedValueTest() {
+        assertParity("query device name \"foo bar\"");
+        assertParity("query device name \"size\" \"all\"");
+        assertParity("query device name \"a \\\"quoted\\\" \\\\ value\"");
+        assertParity("query device name \"unterminated value");
+    }
+
+    @Test
+    public void lengthDelimitedValueTest() {
+        assertParity("query device name :7:foo bar size");
+        assertParity("query device name :4:size");
+        assertParity("query device name :99:too short");
+        assertParity("query device name :x:foo");
+        assertParity("query device :3:all");
+    }
+
+    @Test
+    public void groupTest() {
+        assertParity("query device all");
+        assertParity("query device name foo all");
+    }
+
+    @Test
+    public void needTest() {
+        assertParity("query device sort name");
+        assertParity("query device sort name all");
+    }
+
+    @Test
+    public void maxArgsTest() {
+        assertParity("query device first");
+        assertParity("query device first second");
+        assertParity("query device first name foo second third");
+    }
+
+    @Test
+    public void unknownOptionTest() {
+        assertParity("query device unknown");
+        assertParity("query unknown device");
+    }
+
+    @Test
+    public void caseSensitiveTest() {
+        OptionMappingInfo mapping = OptionMappingInfo.builder(2, true)
+                .option("QUERY", 1, 1, STAFCommandParser.VALUENOTALLOWED)
+                .option("NAME", 1, 0, STAFCommandParser.VALUEREQUIRED)
+                .build();
+        assertParity(mapping, "QUERY NAME foo", "QUERY", "NAME");
+        assertParity(mapping, "query name foo", "QUERY", "NAME");
+    }
+
+    /**
+     * Compare both parsers on random requests mixing option names, values,
+     * quoted and length delimited tokens and arguments.
+     */
+    @Test
+    public void generatedRequestTest() {
+        Random random = new Random(20181203);
+        OptionMappingInfo caseSensitive = OptionMappingInfo.builder(2, true)
+                .option("QUERY", 1, 1, STAFCommandParser.VALUENOTALLOWED)
+                .option("NAME", 2, 0, STAFCommandParser.VALUEREQUIRED)
+                .option("LABEL", 1, 0, STAFCommandParser.VALUEALLOWED)
+                .optionNeed("LABEL", "NAME")
+                .build();
+        for (int i = 0; i < 5000; i++) {
+            assertParity(generateRequest(random));
+            assertParity(caseSensitive, generateRequest(random), "QUERY", "NAME", "LABEL");
+        }
+    }
+
+    private static String generateRequest(Random random) {
+        StringBuilder request = new StringBuilder();
+        int tokens = random.nextInt(8);
+        for (int i = 0; i < tokens; i++) {
+            request.append(WHITESPACE[random.nextInt(WHITESPACE.length)]);
+            switch (random.nextInt(6)) {
+                case 0:
+                case 1:
+                    String name = NAMES[random.nextInt(NAMES.length)];
+                    request.append(random.nextBoolean() ? name : name.toLowerCase());
+                    break;
+                case 2:
+                    request.append(VALUES[random.nextInt(VALUES.length)]);
+                    break;
+                case 3:
+                    request.append('"').append(VALUES[random.nextInt(VALUES.length)]).append(random.nextBoolean() ? " \\\"x\"" : "\"");
+                    break;
+                case 4:
+                    String value = VALUES[random.nextInt(VALUES.length)] + " " + NAMES[random.nextInt(NAMES.length)];
+                    int length = value.length() + random.nextInt(3) - 1;
+                    request.append(':').append(length).append(':').append(value);
+                    break;
+                default:
+                    request.append(random.nextBoolean() ? ":" : ":1").append(VALUES[random.nextInt(VALUES.length)]);
+                    break;
+            }
+        }
+        if (random.nextInt(4) == 0) {
+            request.append(WHITESPACE[random.nextInt(WHITESPACE.length)]);
+        }
+        return request.toString();
+    }
+
+    private void assertParity(String request) {
+        assertParity(this.mapping, request, NAMES);
+    }
+
+    private static void assertParity(OptionMappingInfo mapping, String request, String... names) {
+        CommandParseResult expected = new STAFCommandParserAdapter(mapping).parse(request);
+        CommandParseResult actual = new CompiledCommandParser(mapping).parse(request);
+        assertEquals(request, expected.getRc(), actual.getRc());
+        assertEquals(request, expected.getErrorBuffer(), actual.getErrorBuffer());
+        if (expected.getRc() != STAFResult.Ok) {
+            return;
+        }
+        for (String name : names) {
+            assertEquals(request, expected.optionTimes(name), actual.optionTimes(name));
+            assertEquals(request, expected.optionValue(name), actual.optionValue(name));
+            for (int i = 1; i <= expected.optionTimes(name); i++) {
+                assertEquals(request, expected.optionValue(name, i), actual.optionValue(name, i));
+            }
+        }
+        assertEquals(request, expected.numInstances(), actual.numInstances());
+        for (int i = 1; i <= expected.numInstances(); i++) {
+            assertEquals(request, expected.instanceName(i), actual.instanceName(i));
+            assertEquals(request, expected.instanceValue(i), actual.instanceValue(i));
+        }
+        assertEquals(request, expected.numArgs(), actual.numArgs());
+        for (int i = 1; i <= expected.numArgs(); i++) {
+            assertEquals(request, expected.arg(i), actual.arg(i));
+        }
+    }
+}
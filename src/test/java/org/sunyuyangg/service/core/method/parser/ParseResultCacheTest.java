@@ -0,0 +1,101 @@
+package org.sunyuyangg.service.core.method.parser;
+
+import com.ibm.staf.service.STAFCommandParser;
+import org.junit.Before;
+import org.junit.Test;
+import org.sunyuyangg.service.core.method.OptionMappingInfo;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ParseResultCacheTest {
+
+    /**
+     * The estimated size of an entry with a one character request
+     */
+    private static final long ENTRY_SIZE = 164;
+
+    private final AtomicInteger parses = new AtomicInteger();
+
+    private CommandParser parser;
+
+    @Before
+    public void setUp() {
+        CommandParser delegate = new CompiledCommandParser(OptionMappingInfo.builder(1, false)
+                .option("QUERY", 1, 1, STAFCommandParser.VALUENOTALLOWED)
+                .build());
+        parser = request -> {
+            parses.incrementAndGet();
+            return delegate.parse(request);
+        };
+    }
+
+    @Test
+    public void maxEntriesTest() {
+        ParseResultCache cache = new ParseResultCache(2, Long.MAX_VALUE);
+        cache.put(parser, "a", parser.parse("a"));
+        cache.put(parser, "b", parser.parse("b"));
+        assertNotNull(cache.get(parser, "a"));
+        cache.put(parser, "c", parser.parse("c"));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNotNull(cache.get(parser, "a"));
+        assertNull(cache.get(parser, "b"));
+        assertNotNull(cache.get(parser, "c"));
+    }
+
+    @Test
+    public void maxBytesTest() {
+        ParseResultCache cache = new ParseResultCache(100, 2 * ENTRY_SIZE);
+        cache.put(parser, "a", parser.parse("a"));
+        cache.put(parser, "b", parser.parse("b"));
+        assertEquals(2 * ENTRY_SIZE, cache.getEstimatedBytes());
+        cache.put(parser, "c", parser.parse("c"));
+        assertEquals(2, cache.size());
+        assertEquals(2 * ENTRY_SIZE, cache.getEstimatedBytes());
+        assertNull(cache.get(parser, "a"));
+
+        // Larger than the cache on its own, neither cached nor evicting
+        String large = "query " + String.join("", Collections.nCopies(100, "x"));
+        cache.put(parser, large, parser.parse(large));
+        assertNull(cache.get(parser, large));
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(parser, "b"));
+    }
+
+    @Test
+    public void clearTest() {
+        ParseResultCache cache = new ParseResultCache(10, Long.MAX_VALUE);
+        cache.put(parser, "a", parser.parse("a"));
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getEstimatedBytes());
+        assertNull(cache.get(parser, "a"));
+    }
+
+    @Test
+    public void cachingCommandParserTest() {
+        ParseResultCache cache = new ParseResultCache(10, Long.MAX_VALUE);
+        CachingCommandParser cachingParser = new CachingCommandParser(parser, cache);
+        CommandParseResult first = cachingParser.parse("query x");
+        assertSame(first, cachingParser.parse("query x"));
+        assertEquals(1, parses.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        // Failed parses are cached too
+        CommandParseResult failed = cachingParser.parse("query x y");
+        assertSame(failed, cachingParser.parse("query x y"));
+        assertEquals(2, parses.get());
+
+        // Entries are not shared between parsers
+        CachingCommandParser otherParser = new CachingCommandParser(request -> parser.parse(request), cache);
+        otherParser.parse("query x");
+        assertEquals(3, parses.get());
+    }
+}
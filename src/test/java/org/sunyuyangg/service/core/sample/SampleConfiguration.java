@@ -0,0 +1,8 @@
+package org.sunyuyangg.service.core.sample;
+
+import org.springframework.context.annotation.ComponentScan;
+
+@org.springframework.context.annotation.Configuration
+@ComponentScan(basePackages = "org.sunyuyangg.service.core.sample.controller")
+public class SampleConfiguration {
+}
@@ -0,0 +1,20 @@
+package org.sunyuyangg.service.core.sample;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.sunyuyangg.service.core.DispatcherService;
+
+public class SampleService extends DispatcherService {
+
+    private static int serviceInvalidSerialNumber = 5001;
+    private static String version = "1.0.0";
+
+    public SampleService() {
+        this(new AnnotationConfigApplicationContext(SampleConfiguration.class));
+    }
+
+    public SampleService(ApplicationContext applicationContext) {
+        super(serviceInvalidSerialNumber, version, applicationContext);
+    }
+
+}
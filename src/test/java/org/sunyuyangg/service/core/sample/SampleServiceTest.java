@@ -0,0 +1,583 @@
+package org.sunyuyangg.service.core.sample;
+
+import com.ibm.staf.STAFResult;
+import com.ibm.staf.service.STAFServiceInterfaceLevel30.InitInfo;
+import com.ibm.staf.service.STAFServiceInterfaceLevel30.RequestInfo;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.sunyuyangg.service.core.DispatcherService;
+import org.sunyuyangg.service.core.adapter.RequestMappingHandlerAdapter;
+import org.sunyuyangg.service.core.result.PaginationProcessor;
+import org.sunyuyangg.service.core.sample.controller.DeviceController;
+import org.sunyuyangg.service.core.viewer.DefaultViewer;
+import org.sunyuyangg.service.core.sample.model.Device;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SampleServiceTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private SampleService sampleService;
+
+    /**
+     * The context of the service last created by {@link #createService}
+     */
+    private AnnotationConfigApplicationContext serviceContext;
+
+    @Before
+    public void setUp() {
+        InitInfo initInfo = new InitInfo(
+                "SampleService",
+                "",
+                null,
+                0,
+                "");
+        sampleService = new SampleService();
+        sampleService.init(initInfo);
+    }
+
+    @Test
+    public void absentPrimitiveOptionTest() {
+        STAFResult result = sampleService.acceptRequest(createRequestInfo("device count name foo"));
+        assertEquals(STAFResult.Ok, result.rc);
+        assertEquals("foo:0:null", result.result);
+    }
+
+    @Test
+    public void presentPrimitiveOptionTest() {
+        STAFResult result = sampleService.acceptRequest(createRequestInfo("device count name foo times 3 limit 7"));
+        assertEquals(STAFResult.Ok, result.rc);
+        assertEquals("foo:3:7", result.result);
+    }
+
+    @Test
+    public void invalidPrimitiveOptionTest() {
+        STAFResult result = sampleService.acceptRequest(createRequestInfo("device count name foo times x"));
+        assertEquals(STAFResult.UnknownError, result.rc);
+        assertEquals("can not convert option 'times' [x] to int: For input string: \"x\"", result.result);
+    }
+
+    @Test
+    public void unknownCommandTest() {
+        STAFResult result = sampleService.acceptRequest(createRequestInfo("device remove name foo"));
+        assertEquals(STAFResult.DoesNotExist, result.rc);
+    }
+
+    @Test
+    public void unknownRouteTokenTest() {
+        assertEquals(STAFResult.Ok, sampleService.acceptRequest(createRequestInfo("device list")).rc);
+        // A single token naming the route path is unknown, and does not hide the route
+        assertEquals(STAFResult.DoesNotExist, sampleService.acceptRequest(createRequestInfo("device#list")).rc);
+        assertEquals(STAFResult.Ok, sampleService.acceptRequest(createRequestInfo("device list")).rc);
+    }
+
+    @Test
+    public void optionOrderTest() {
+        // Options after the route may come in any order
+        STAFResult result = sampleService.acceptRequest(createRequestInfo("device count limit 7 times 3 name foo"));
+        assertEquals(STAFResult.Ok, result.rc);
+        assertEquals("foo:3:7", result.result);
+
+        // The first option routes the request, so it must come second
+        STAFResult reordered = sampleService.acceptRequest(createRequestInfo("device name foo count"));
+        assertEquals(STAFResult.DoesNotExist, reordered.rc);
+    }
+
+    @Test
+    public void concurrentDispatchTest() throws Exception {
+        int threads = 8;
+        int requests = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < requests; i++) {
+                        // Each request carries its own parse result and reserved options
+                        String name = "dev" + thread;
+                        STAFResult count = sampleService.acceptRequest(createRequestInfo(
+                                "device count name " + name + " times " + i, thread + 1));
+                        assertEquals(STAFResult.Ok, count.rc);
+                        assertEquals(name + ":" + i + ":null", count.result);
+                        STAFResult list = sampleService.acceptRequest(createRequestInfo(
+                                "device list where \"size = " + (i % 5) + "\" fields name format csv", thread + 1));
+                        assertEquals("name\ndev" + (i % 5) + "\n", list.result);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void prototypeHandlerTest() {
+        STAFResult first = sampleService.acceptRequest(createRequestInfo("instance number"));
+        STAFResult second = sampleService.acceptRequest(createRequestInfo("instance number"));
+        assertEquals(STAFResult.Ok, first.rc);
+        assertEquals(STAFResult.Ok, second.rc);
+        assertNotEquals(first.result, second.result);
+    }
+
+    @Test
+    public void defaultFormatTest() {
+        STAFResult result = sampleService.acceptRequest(createRequestInfo("device list"));
+        assertEquals(STAFResult.Ok, result.rc);
+        assertEquals("[{\"name\":\"dev0\",\"size\":0},{\"name\":\"dev1\",\"size\":1},{\"name\":\"dev2\",\"size\":2}," +
+                "{\"name\":\"dev3\",\"size\":3},{\"name\":\"dev4\",\"size\":4}]", result.result);
+    }
+
+    @Test
+    public void csvFormatTest() {
+        STAFResult result = sampleService.acceptRequest(createRequestInfo("device list format csv"));
+        assertEquals(STAFResult.Ok, result.rc);
+        assertEquals("name,size\ndev0,0\ndev1,1\ndev2,2\ndev3,3\ndev4,4\n", result.result);
+    }
+
+    @Test
+    public void stafFormatTest() {
+        STAFResult result = sampleService.acceptRequest(createRequestInfo("device list FORMAT STAF"));
+        assertEquals(STAFResult.Ok, result.rc);
+        assertTrue(result.result.startsWith("@SDT/"));
+    }
+
+    @Test
+    public void handlerFormatTest() {
+        STAFResult result = sampleService.acceptRequest(createRequestInfo("device details"));
+        assertEquals(STAFResult.Ok, result.rc);
+        assertTrue(result.result.startsWith("@SDT/"));
+        // The requested format takes precedence
+        STAFResult json = sampleService.acceptRequest(createRequestInfo("device details format json"));
+        assertEquals("{\"name\":\"dev0\",\"size\":0}", json.result);
+    }
+
+    @Test
+    public void prettyFormatTest() {
+        STAFResult compact = sampleService.acceptRequest(createRequestInfo("device list format compact"));
+        STAFResult pretty = sampleService.acceptRequest(createRequestInfo("device list format pretty"));
+        assertEquals(STAFResult.Ok, pretty.rc);
+        assertNotEquals(compact.result, pretty.result);
+        assertEquals(compact.result, pretty.result.replaceAll("\\s", ""));
+    }
+
+    @Test
+    public void unknownFormatTest() {
+        STAFResult result = sampleService.acceptRequest(createRequestInfo("device list format xml"));
+        assertEquals(STAFResult.UnknownError, result.rc);
+        assertTrue(result.result.startsWith("Unknown FORMAT 'XML', expected one of "));
+    }
+
+    @Test
+    public void fieldsTest() {
+        STAFResult result = sampleService.acceptRequest(createRequestInfo("device list fields name"));
+        assertEquals(STAFResult.Ok, result.rc);
+        assertEquals("[{\"name\":\"dev0\"},{\"name\":\"dev1\"},{\"name\":\"dev2\"},{\"name\":\"dev3\"},{\"name\":\"dev4\"}]",
+                result.result);
+    }
+
+    @Test
+    public void nestedFieldsTest() {
+        STAFResult result = sampleService.acceptRequest(createRequestInfo("device summary fields largest.size,count"));
+        assertEquals(STAFResult.Ok, result.rc);
+        assertEquals("{\"largest\":{\"size\":4},\"count\":5}", result.result);
+    }
+
+    @Test
+    public void csvFieldsTest() {
+        STAFResult result = sampleService.acceptRequest(createRequestInfo("device list fields size format csv"));
+        assertEquals(STAFResult.Ok, result.rc);
+        assertEquals("size\n0\n1\n2\n3\n4\n", result.result);
+    }
+
+    @Test
+    public void unknownFieldTest() {
+        STAFResult result = sampleService.acceptRequest(createRequestInfo("device list fields label"));
+        assertEquals(STAFResult.UnknownError, result.rc);
+        assertEquals("Unknown field 'label' of " + Device.class.getName() + ", expected one of [name, size]", result.result);
+    }
+
+    @Test
+    public void whereTest() {
+        STAFResult result = sampleService.acceptRequest(createRequestInfo("device list where \"size >= 1 and name != 'dev2'\" fields name"));
+        assertEquals(STAFResult.Ok, result.rc);
+        assertEquals("[{\"name\":\"dev1\"},{\"name\":\"dev3\"},{\"name\":\"dev4\"}]", result.result);
+    }
+
+    @Test
+    public void lengthDelimitedWhereTest() {
+        String where = "size > 2 or name = 'dev0'";
+        STAFResult result = sampleService.acceptRequest(createRequestInfo("device list where :" + where.length() + ":" + where + " format csv"));
+        assertEquals(STAFResult.Ok, result.rc);
+        assertEquals("name,size\ndev0,0\ndev3,3\ndev4,4\n", result.result);
+    }
+
+    @Test
+    public void unquotedWhereTest() {
+        // The expression is one option value, the tokens after the first one are excess arguments
+        STAFResult result = sampleService.acceptRequest(createRequestInfo("device list where size > 2"));
+        assertEquals(STAFResult.UnknownError, result.rc);
+        assertEquals("You may have no more than 0 argument(s).  You specified 1 argument(s).  " +
+                "The first excess argument is, >.", result.result);
+    }
+
+    @Test
+    public void invalidWhereTest() {
+        STAFResult result = sampleService.acceptRequest(createRequestInfo("device list where \"size >\""));
+        assertEquals(STAFResult.UnknownError, result.rc);
+        assertEquals("Invalid WHERE expression 'size >' at position 6: expected a value", result.result);
+    }
+
+    @Test
+    public void pageTest() {
+        STAFResult first = sampleService.acceptRequest(createRequestInfo("device list pagesize 2 fields name"));
+        assertEquals(STAFResult.Ok, first.rc);
+        String cursor = cursor(first.result);
+        assertEquals("{\"items\":[{\"name\":\"dev0\"},{\"name\":\"dev1\"}],\"cursor\":\"" + cursor + "\"}", first.result);
+
+        STAFResult second = sampleService.acceptRequest(createRequestInfo("device list cursor " + cursor + " pagesize 2 fields name"));
+        assertEquals(STAFResult.Ok, second.rc);
+        cursor = cursor(second.result);
+        assertEquals("{\"items\":[{\"name\":\"dev2\"},{\"name\":\"dev3\"}],\"cursor\":\"" + cursor + "\"}", second.result);
+
+        STAFResult last = sampleService.acceptRequest(createRequestInfo("device list cursor " + cursor + " fields name"));
+        assertEquals(STAFResult.Ok, last.rc);
+        assertEquals("{\"items\":[{\"name\":\"dev4\"}],\"cursor\":null}", last.result);
+
+        STAFResult expired = sampleService.acceptRequest(createRequestInfo("device list cursor " + cursor));
+        assertEquals(STAFResult.UnknownError, expired.rc);
+        assertEquals("Unknown or expired CURSOR '" + cursor + "'", expired.result);
+    }
+
+    @Test
+    public void csvPageTest() {
+        STAFResult first = sampleService.acceptRequest(createRequestInfo("device list pagesize 3 format csv"));
+        assertEquals(STAFResult.Ok, first.rc);
+        String cursor = first.result.substring(first.result.indexOf("# CURSOR ") + "# CURSOR ".length()).trim();
+        assertEquals("name,size\ndev0,0\ndev1,1\ndev2,2\n# CURSOR " + cursor + "\n", first.result);
+
+        STAFResult last = sampleService.acceptRequest(createRequestInfo("device list cursor " + cursor + " format csv"));
+        assertEquals(STAFResult.Ok, last.rc);
+        assertEquals("name,size\ndev3,3\ndev4,4\n", last.result);
+    }
+
+    @Test
+    public void cursorOfOtherRequesterTest() {
+        STAFResult first = sampleService.acceptRequest(createRequestInfo("device list pagesize 2"));
+        String cursor = cursor(first.result);
+        STAFResult other = sampleService.acceptRequest(createRequestInfo("device list cursor " + cursor, 2));
+        assertEquals(STAFResult.UnknownError, other.rc);
+        assertEquals("Unknown or expired CURSOR '" + cursor + "'", other.result);
+
+        STAFResult next = sampleService.acceptRequest(createRequestInfo("device list cursor " + cursor));
+        assertEquals(STAFResult.Ok, next.rc);
+    }
+
+    @Test
+    public void failedPageTest() {
+        PaginationProcessor paginationProcessor = new PaginationProcessor();
+        SampleService service = createService(context -> context.registerBean(PaginationProcessor.class, () -> paginationProcessor));
+        STAFResult failed = service.acceptRequest(createRequestInfo("device list pagesize 3 fields nope"));
+        assertEquals(STAFResult.UnknownError, failed.rc);
+        assertEquals(0, paginationProcessor.getCursorCount());
+
+        // The next page fails too, neither cursor is kept
+        STAFResult first = service.acceptRequest(createRequestInfo("device list pagesize 1"));
+        assertEquals(1, paginationProcessor.getCursorCount());
+        STAFResult next = service.acceptRequest(createRequestInfo("device list cursor " + cursor(first.result) + " fields nope"));
+        assertEquals(STAFResult.UnknownError, next.rc);
+        assertEquals(0, paginationProcessor.getCursorCount());
+    }
+
+    @Test
+    public void failedStreamPageTest() {
+        PaginationProcessor paginationProcessor = new PaginationProcessor();
+        SampleService service = createService(context -> {
+            context.registerBean(PaginationProcessor.class, () -> paginationProcessor);
+            context.registerBean(DispatcherService.HANDLER_VIEW_BEAN_NAME, DefaultViewer.class, () -> {
+                DefaultViewer view = new DefaultViewer();
+                view.setMaxResultSize(20);
+                return view;
+            });
+        });
+        DeviceController controller = serviceContext.getBean(DeviceController.class);
+
+        STAFResult tooLarge = service.acceptRequest(createRequestInfo("device stream pagesize 2"));
+        assertEquals(STAFResult.MaximumSizeExceeded, tooLarge.rc);
+        assertEquals(0, paginationProcessor.getCursorCount());
+        assertEquals(1, controller.getClosedStreams());
+
+        STAFResult failed = service.acceptRequest(createRequestInfo("device stream pagesize 2 fields nope"));
+        assertEquals(STAFResult.UnknownError, failed.rc);
+        assertEquals(0, paginationProcessor.getCursorCount());
+        assertEquals(2, controller.getClosedStreams());
+    }
+
+    @Test
+    public void streamTest() {
+        SampleService service = createService(context -> {
+        });
+        DeviceController controller = serviceContext.getBean(DeviceController.class);
+        STAFResult result = service.acceptRequest(createRequestInfo("device stream size 3"));
+        assertEquals(STAFResult.Ok, result.rc);
+        assertEquals("[{\"name\":\"dev0\",\"size\":0},{\"name\":\"dev1\",\"size\":1},{\"name\":\"dev2\",\"size\":2}]",
+                result.result);
+        assertEquals(1, controller.getClosedStreams());
+
+        STAFResult csv = service.acceptRequest(createRequestInfo("device stream size 2 format csv"));
+        assertEquals("name,size\ndev0,0\ndev1,1\n", csv.result);
+        assertEquals(2, controller.getClosedStreams());
+    }
+
+    @Test
+    public void streamPagesTest() {
+        SampleService service = createService(context -> {
+        });
+        DeviceController controller = serviceContext.getBean(DeviceController.class);
+        STAFResult first = service.acceptRequest(createRequestInfo("device stream pagesize 3"));
+        assertEquals(STAFResult.Ok, first.rc);
+        // Kept open for the next page
+        assertEquals(0, controller.getClosedStreams());
+
+        STAFResult last = service.acceptRequest(createRequestInfo("device stream cursor " + cursor(first.result)));
+        assertEquals("{\"items\":[{\"name\":\"dev3\",\"size\":3},{\"name\":\"dev4\",\"size\":4}],\"cursor\":null}",
+                last.result);
+        assertEquals(1, controller.getClosedStreams());
+    }
+
+    @Test
+    public void maxStreamResultSizeTest() {
+        SampleService service = createService(context ->
+                context.registerBean(DispatcherService.HANDLER_VIEW_BEAN_NAME, DefaultViewer.class, () -> {
+                    DefaultViewer view = new DefaultViewer();
+                    view.setMaxStreamResultSize(40);
+                    return view;
+                }));
+        DeviceController controller = serviceContext.getBean(DeviceController.class);
+        for (String format : new String[] {"json", "staf", "csv"}) {
+            STAFResult result = service.acceptRequest(createRequestInfo("device stream size 1000000 format " + format));
+            assertEquals(format, STAFResult.MaximumSizeExceeded, result.rc);
+            assertTrue(result.result, result.result.startsWith("The result exceeds the maximum size of 40 characters"));
+        }
+        assertEquals(3, controller.getClosedStreams());
+
+        // Results built in full are not limited by default
+        for (String format : new String[] {"json", "staf", "csv"}) {
+            STAFResult result = service.acceptRequest(createRequestInfo("device list format " + format));
+            assertEquals(format, STAFResult.Ok, result.rc);
+            assertTrue(format, result.result.length() > 40);
+        }
+    }
+
+    @Test
+    public void maxResultSizeTest() {
+        SampleService service = createService(context ->
+                context.registerBean(DispatcherService.HANDLER_VIEW_BEAN_NAME, DefaultViewer.class, () -> {
+                    DefaultViewer view = new DefaultViewer();
+                    view.setMaxResultSize(50);
+                    view.setMaxStreamResultSize(0);
+                    return view;
+                }));
+        STAFResult list = service.acceptRequest(createRequestInfo("device list"));
+        assertEquals(STAFResult.MaximumSizeExceeded, list.rc);
+        STAFResult stream = service.acceptRequest(createRequestInfo("device stream size 1000"));
+        assertEquals(STAFResult.MaximumSizeExceeded, stream.rc);
+        STAFResult small = service.acceptRequest(createRequestInfo("device stream size 1"));
+        assertEquals(STAFResult.Ok, small.rc);
+    }
+
+    @Test
+    public void invalidPageSizeTest() {
+        STAFResult result = sampleService.acceptRequest(createRequestInfo("device list pagesize 0"));
+        assertEquals(STAFResult.UnknownError, result.rc);
+        assertEquals("Invalid PAGESIZE '0', expected a positive number", result.result);
+    }
+
+    @Test
+    public void jsonOptionTest() {
+        STAFResult result = sampleService.acceptRequest(createRequestInfo(
+                "binding json device \"{\\\"name\\\":\\\"dev1\\\",\\\"size\\\":3}\" ids [1,2]"));
+        assertEquals(STAFResult.Ok, result.rc);
+        assertEquals("dev1=3/[1, 2]", result.result);
+    }
+
+    @Test
+    public void absentJsonOptionTest() {
+        STAFResult result = sampleService.acceptRequest(createRequestInfo("binding json"));
+        assertEquals(STAFResult.Ok, result.rc);
+        assertEquals("null/null", result.result);
+    }
+
+    @Test
+    public void invalidJsonOptionTest() {
+        STAFResult result = sampleService.acceptRequest(createRequestInfo("binding json ids [1,x]"));
+        assertEquals(STAFResult.UnknownError, result.rc);
+        assertTrue(result.result, result.result.startsWith(
+                "can not read option 'ids' as JSON java.util.List<java.lang.Integer> at line 1, column "));
+    }
+
+    @Test
+    public void optionTimesTest() {
+        STAFResult result = sampleService.acceptRequest(createRequestInfo(
+                "binding times id 1 id 2 tag b tag a tag b property x=1 property y=2 weight 3 weight -4"));
+        assertEquals(STAFResult.Ok, result.rc);
+        assertEquals("[1, 2]/[b, a]/{x=1, y=2}/[3, -4]", result.result);
+    }
+
+    @Test
+    public void absentOptionTimesTest() {
+        STAFResult result = sampleService.acceptRequest(createRequestInfo("binding times"));
+        assertEquals(STAFResult.Ok, result.rc);
+        assertEquals("[]/[]/{}/[]", result.result);
+    }
+
+    @Test
+    public void invalidOptionTimesTest() {
+        STAFResult element = sampleService.acceptRequest(createRequestInfo("binding times id 1 id x"));
+        assertEquals(STAFResult.UnknownError, element.rc);
+        assertEquals("can not convert option 'id' [x] to java.lang.Integer: For input string: \"x\"", element.result);
+
+        STAFResult entry = sampleService.acceptRequest(createRequestInfo("binding times property x"));
+        assertEquals(STAFResult.UnknownError, entry.rc);
+        assertEquals("can not read option 'property' as map entry: expected KEY=VALUE but was \"x\"", entry.result);
+    }
+
+    @Test
+    public void fileOptionTest() throws Exception {
+        Files.write(temporaryFolder.newFile("data.bin").toPath(), new byte[] {1, 2, 3, 4, 5});
+        Files.write(temporaryFolder.newFile("text.txt").toPath(), "hello\nworld".getBytes(StandardCharsets.UTF_8));
+        Files.write(temporaryFolder.newFile("device.json").toPath(), "{\"name\":\"dev1\",\"size\":3}".getBytes(StandardCharsets.UTF_8));
+        SampleService fileService = createFileService();
+
+        STAFResult result = fileService.acceptRequest(createRequestInfo(
+                "binding file data data.bin text FILE:text.txt device device.json", 1, true));
+        assertEquals(STAFResult.Ok, result.rc);
+        assertEquals("5/hello/dev1", result.result);
+
+        STAFResult absent = fileService.acceptRequest(createRequestInfo("binding file", 1, true));
+        assertEquals(STAFResult.Ok, absent.rc);
+        assertEquals("null/null/null", absent.result);
+    }
+
+    @Test
+    public void fileOptionOutsideRootTest() throws Exception {
+        Path root = temporaryFolder.newFolder("root").toPath();
+        Path outside = Files.write(temporaryFolder.newFile("outside.bin").toPath(), new byte[] {1});
+        Files.createSymbolicLink(root.resolve("link.bin"), outside);
+        SampleService fileService = createFileService(root);
+
+        STAFResult result = fileService.acceptRequest(createRequestInfo("binding file data ../outside.bin", 1, true));
+        assertEquals(STAFResult.UnknownError, result.rc);
+        assertEquals("can not map the file of option 'data' [../outside.bin]: java.lang.IllegalArgumentException: " +
+                "the file is outside of the root directory " + root.toAbsolutePath().normalize(), result.result);
+
+        STAFResult link = fileService.acceptRequest(createRequestInfo("binding file data link.bin", 1, true));
+        assertEquals(STAFResult.UnknownError, link.rc);
+        assertEquals("can not map the file of option 'data' [link.bin]: java.lang.IllegalArgumentException: " +
+                "the file is outside of the root directory " + root.toAbsolutePath().normalize(), link.result);
+    }
+
+    @Test
+    public void remoteFileOptionTest() throws Exception {
+        Files.write(temporaryFolder.newFile("data.bin").toPath(), new byte[] {1});
+        STAFResult result = createFileService().acceptRequest(createRequestInfo("binding file data data.bin", 1, false));
+        assertEquals(STAFResult.UnknownError, result.rc);
+        assertEquals("Options bound from files are only accepted from the local machine", result.result);
+    }
+
+    @Test
+    public void fileOptionWithoutRootTest() {
+        STAFResult result = sampleService.acceptRequest(createRequestInfo("binding file data data.bin", 1, true));
+        assertEquals(STAFResult.UnknownError, result.rc);
+        assertEquals("can not map the file of option 'data' [data.bin]: java.lang.IllegalArgumentException: " +
+                "file options are disabled, no root directory is configured", result.result);
+    }
+
+    @Test
+    public void marshalledOptionTest() {
+        STAFResult result = sampleService.acceptRequest(createRequestInfo("binding marshalled count 5"));
+        assertEquals(STAFResult.Ok, result.rc);
+        assertEquals("5/null", result.result);
+
+        STAFResult invalid = sampleService.acceptRequest(createRequestInfo("binding marshalled device dev1"));
+        assertEquals(STAFResult.UnknownError, invalid.rc);
+        assertEquals("can not bind the marshalled option 'device' to " + Device.class.getName() +
+                ": Expected a marshalled map but was [dev1]", invalid.result);
+    }
+
+    private SampleService createFileService() {
+        return createFileService(temporaryFolder.getRoot().toPath());
+    }
+
+    private SampleService createFileService(Path root) {
+        return createService(context -> context.registerBean(DispatcherService.HANDLER_ADAPTER_BEAN_NAME,
+                RequestMappingHandlerAdapter.class, () -> {
+                    RequestMappingHandlerAdapter handlerAdapter = new RequestMappingHandlerAdapter();
+                    handlerAdapter.setFileOptionRootDirectory(root);
+                    return handlerAdapter;
+                }));
+    }
+
+    private SampleService createService(Consumer<AnnotationConfigApplicationContext> beans) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.register(SampleConfiguration.class);
+        beans.accept(context);
+        context.refresh();
+        serviceContext = context;
+        SampleService service = new SampleService(context);
+        service.init(new InitInfo("SampleService", "", null, 0, ""));
+        return service;
+    }
+
+    private static String cursor(String page) {
+        int start = page.indexOf("\"cursor\":\"") + "\"cursor\":\"".length();
+        return page.substring(start, page.indexOf('"', start));
+    }
+
+    private RequestInfo createRequestInfo(String request) {
+        return createRequestInfo(request, 1);
+    }
+
+    private RequestInfo createRequestInfo(String request, int handle) {
+        return createRequestInfo(request, handle, false);
+    }
+
+    private RequestInfo createRequestInfo(String request, int handle, boolean localRequest) {
+        return new RequestInfo(
+                "12345678",
+                "local",
+                "sun",
+                "12",
+                handle,
+                6,
+                localRequest,
+                0,
+                request,
+                0,
+                "sun",
+                "",
+                "");
+    }
+}
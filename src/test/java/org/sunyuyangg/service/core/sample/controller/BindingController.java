@@ -0,0 +1,82 @@
+package org.sunyuyangg.service.core.sample.controller;
+
+import com.ibm.staf.service.STAFCommandParser;
+import org.springframework.stereotype.Controller;
+import org.sunyuyangg.service.core.annotation.FileOption;
+import org.sunyuyangg.service.core.annotation.JsonOption;
+import org.sunyuyangg.service.core.annotation.MarshalledOption;
+import org.sunyuyangg.service.core.annotation.Option;
+import org.sunyuyangg.service.core.annotation.OptionMapping;
+import org.sunyuyangg.service.core.annotation.OptionTimes;
+import org.sunyuyangg.service.core.sample.model.Device;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Controller
+public class BindingController {
+
+    @OptionMapping(
+            options = {
+                    @Option(name = "json", maxAllowed = 1, minAllowed = 1, valueRequirement = STAFCommandParser.VALUENOTALLOWED),
+                    @Option(name = "device", maxAllowed = 1, valueRequirement = STAFCommandParser.VALUEREQUIRED),
+                    @Option(name = "ids", maxAllowed = 1, valueRequirement = STAFCommandParser.VALUEREQUIRED)
+            },
+            optionNeeds = {},
+            optionGroup = {}
+    )
+    public String json(Device device, @JsonOption List<Integer> ids) {
+        return (device != null ? device.getName() + "=" + device.getSize() : null) + "/" + ids;
+    }
+
+    @OptionMapping(
+            options = {
+                    @Option(name = "times", maxAllowed = 1, minAllowed = 1, valueRequirement = STAFCommandParser.VALUENOTALLOWED),
+                    @Option(name = "id", maxAllowed = 0, valueRequirement = STAFCommandParser.VALUEREQUIRED),
+                    @Option(name = "tag", maxAllowed = 0, valueRequirement = STAFCommandParser.VALUEREQUIRED),
+                    @Option(name = "property", maxAllowed = 0, valueRequirement = STAFCommandParser.VALUEREQUIRED),
+                    @Option(name = "weight", maxAllowed = 0, valueRequirement = STAFCommandParser.VALUEREQUIRED)
+            },
+            optionNeeds = {},
+            optionGroup = {}
+    )
+    public String times(List<Integer> id, @OptionTimes Set<String> tag, @OptionTimes Map<String, Integer> property,
+                        @OptionTimes long[] weight) {
+        return id + "/" + tag + "/" + property + "/" + Arrays.toString(weight);
+    }
+
+    @OptionMapping(
+            options = {
+                    @Option(name = "file", maxAllowed = 1, minAllowed = 1, valueRequirement = STAFCommandParser.VALUENOTALLOWED),
+                    @Option(name = "data", maxAllowed = 1, valueRequirement = STAFCommandParser.VALUEREQUIRED),
+                    @Option(name = "text", maxAllowed = 1, valueRequirement = STAFCommandParser.VALUEREQUIRED),
+                    @Option(name = "device", maxAllowed = 1, valueRequirement = STAFCommandParser.VALUEREQUIRED)
+            },
+            optionNeeds = {},
+            optionGroup = {}
+    )
+    public String file(@FileOption ByteBuffer data, @FileOption Reader text, @FileOption Device device) throws IOException {
+        return (data != null ? data.remaining() : null) + "/" +
+                (text != null ? new BufferedReader(text).readLine() : null) + "/" +
+                (device != null ? device.getName() : null);
+    }
+
+    @OptionMapping(
+            options = {
+                    @Option(name = "marshalled", maxAllowed = 1, minAllowed = 1, valueRequirement = STAFCommandParser.VALUENOTALLOWED),
+                    @Option(name = "count", maxAllowed = 1, valueRequirement = STAFCommandParser.VALUEREQUIRED),
+                    @Option(name = "device", maxAllowed = 1, valueRequirement = STAFCommandParser.VALUEREQUIRED)
+            },
+            optionNeeds = {},
+            optionGroup = {}
+    )
+    public String marshalled(@MarshalledOption Integer count, @MarshalledOption Device device) {
+        return count + "/" + (device != null ? device.getName() : null);
+    }
+}
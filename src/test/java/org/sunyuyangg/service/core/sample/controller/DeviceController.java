@@ -0,0 +1,92 @@
+package org.sunyuyangg.service.core.sample.controller;
+
+import com.ibm.staf.service.STAFCommandParser;
+import org.springframework.stereotype.Controller;
+import org.sunyuyangg.service.core.annotation.Option;
+import org.sunyuyangg.service.core.annotation.OptionMapping;
+import org.sunyuyangg.service.core.annotation.ResponseFormat;
+import org.sunyuyangg.service.core.sample.model.Device;
+import org.sunyuyangg.service.core.sample.model.DeviceSummary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+@Controller
+public class DeviceController {
+
+    private final AtomicInteger closedStreams = new AtomicInteger();
+
+    @OptionMapping(
+            options = {
+                    @Option(name = "count", maxAllowed = 1, minAllowed = 1, valueRequirement = STAFCommandParser.VALUENOTALLOWED),
+                    @Option(name = "name", maxAllowed = 1, minAllowed = 1, valueRequirement = STAFCommandParser.VALUEREQUIRED),
+                    @Option(name = "times", maxAllowed = 1, valueRequirement = STAFCommandParser.VALUEREQUIRED),
+                    @Option(name = "limit", maxAllowed = 1, valueRequirement = STAFCommandParser.VALUEREQUIRED)
+            },
+            optionNeeds = {},
+            optionGroup = {}
+    )
+    public String count(String name, int times, Long limit) {
+        return name + ":" + times + ":" + limit;
+    }
+
+    @OptionMapping(
+            options = {
+                    @Option(name = "list", maxAllowed = 1, minAllowed = 1, valueRequirement = STAFCommandParser.VALUENOTALLOWED)
+            },
+            optionNeeds = {},
+            optionGroup = {}
+    )
+    public List<Device> list() {
+        List<Device> devices = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            devices.add(new Device("dev" + i, i));
+        }
+        return devices;
+    }
+
+    @OptionMapping(
+            options = {
+                    @Option(name = "summary", maxAllowed = 1, minAllowed = 1, valueRequirement = STAFCommandParser.VALUENOTALLOWED)
+            },
+            optionNeeds = {},
+            optionGroup = {}
+    )
+    public DeviceSummary summary() {
+        List<Device> devices = list();
+        return new DeviceSummary(devices.size(), devices.get(devices.size() - 1));
+    }
+
+    @ResponseFormat(ResponseFormat.STAF)
+    @OptionMapping(
+            options = {
+                    @Option(name = "details", maxAllowed = 1, minAllowed = 1, valueRequirement = STAFCommandParser.VALUENOTALLOWED)
+            },
+            optionNeeds = {},
+            optionGroup = {}
+    )
+    public Device details() {
+        return new Device("dev0", 0);
+    }
+
+    @OptionMapping(
+            options = {
+                    @Option(name = "stream", maxAllowed = 1, minAllowed = 1, valueRequirement = STAFCommandParser.VALUENOTALLOWED),
+                    @Option(name = "size", maxAllowed = 1, valueRequirement = STAFCommandParser.VALUEREQUIRED)
+            },
+            optionNeeds = {},
+            optionGroup = {}
+    )
+    public Stream<Device> stream(Integer size) {
+        return IntStream.range(0, (size != null ? size : 5))
+                .mapToObj(i -> new Device("dev" + i, i))
+                .onClose(closedStreams::incrementAndGet);
+    }
+
+    public int getClosedStreams() {
+        return closedStreams.get();
+    }
+}
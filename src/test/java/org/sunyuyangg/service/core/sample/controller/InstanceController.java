@@ -0,0 +1,29 @@
+package org.sunyuyangg.service.core.sample.controller;
+
+import com.ibm.staf.service.STAFCommandParser;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Controller;
+import org.sunyuyangg.service.core.annotation.Option;
+import org.sunyuyangg.service.core.annotation.OptionMapping;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Controller
+@Scope("prototype")
+public class InstanceController {
+
+    private static final AtomicInteger instances = new AtomicInteger();
+
+    private final int number = instances.incrementAndGet();
+
+    @OptionMapping(
+            options = {
+                    @Option(name = "number", maxAllowed = 1, minAllowed = 1, valueRequirement = STAFCommandParser.VALUENOTALLOWED)
+            },
+            optionNeeds = {},
+            optionGroup = {}
+    )
+    public int number() {
+        return number;
+    }
+}
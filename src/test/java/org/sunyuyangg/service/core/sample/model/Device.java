@@ -0,0 +1,30 @@
+package org.sunyuyangg.service.core.sample.model;
+
+public class Device {
+    private String name;
+    private int size;
+
+    public Device() {
+    }
+
+    public Device(String name, int size) {
+        this.name = name;
+        this.size = size;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+}
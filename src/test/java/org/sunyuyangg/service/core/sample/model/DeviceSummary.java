@@ -0,0 +1,30 @@
+package org.sunyuyangg.service.core.sample.model;
+
+public class DeviceSummary {
+    private int count;
+    private Device largest;
+
+    public DeviceSummary() {
+    }
+
+    public DeviceSummary(int count, Device largest) {
+        this.count = count;
+        this.largest = largest;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public Device getLargest() {
+        return largest;
+    }
+
+    public void setLargest(Device largest) {
+        this.largest = largest;
+    }
+}
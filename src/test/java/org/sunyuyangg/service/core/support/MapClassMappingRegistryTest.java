@@ -0,0 +1,89 @@
+package org.sunyuyangg.service.core.support;
+
+import org.junit.Test;
+import org.springframework.core.ResolvableType;
+import org.sunyuyangg.service.core.sample.model.Device;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Binds the object graphs STAF unmarshalls, i.e. maps, lists and strings, as
+ * {@link MarshalledHandlerMethodArgumentResolver} does.
+ */
+public class MapClassMappingRegistryTest {
+
+    private final MapClassMappingRegistry registry = new MapClassMappingRegistry();
+
+    @Test
+    public void beanTest() throws Exception {
+        Device device = (Device) registry.getBinder(ResolvableType.forClass(Device.class)).bind(device("dev1", "3"));
+        assertEquals("dev1", device.getName());
+        assertEquals(3, device.getSize());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void collectionTest() throws Exception {
+        List<Device> devices = (List<Device>) registry.getBinder(ResolvableType.forClassWithGenerics(List.class, Device.class))
+                .bind(Arrays.asList(device("dev1", "1"), device("dev2", "2")));
+        assertEquals(2, devices.size());
+        assertEquals("dev2", devices.get(1).getName());
+
+        int[] sizes = (int[]) registry.getBinder(ResolvableType.forClass(int[].class)).bind(Arrays.asList("1", "2"));
+        assertArrayEquals(new int[] {1, 2}, sizes);
+
+        Map<String, Object> source = new HashMap<>();
+        source.put(MapClassMapping.MAP_CLASS_NAME_KEY, "sizes");
+        source.put("dev1", "1");
+        Map<String, Integer> map = (Map<String, Integer>) registry.getBinder(
+                ResolvableType.forClassWithGenerics(Map.class, String.class, Integer.class)).bind(source);
+        assertEquals(Collections.singletonMap("dev1", 1), map);
+    }
+
+    @Test
+    public void nullTest() throws Exception {
+        assertNull(registry.getBinder(ResolvableType.forClass(Device.class)).bind(null));
+        assertNull(registry.getBinder(ResolvableType.forClass(int[].class)).bind(null));
+    }
+
+    @Test
+    public void invalidValueTest() throws Exception {
+        try {
+            registry.getBinder(ResolvableType.forClass(Device.class)).bind("dev1");
+            fail();
+        } catch (IllegalArgumentException ex) {
+            assertEquals("Expected a marshalled map but was [dev1]", ex.getMessage());
+        }
+        try {
+            registry.getBinder(ResolvableType.forClass(int[].class)).bind(device("dev1", "1"));
+            fail();
+        } catch (IllegalArgumentException ex) {
+            assertEquals("Expected a marshalled list but was [" + device("dev1", "1") + "]", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void mappingTest() {
+        MapClassMapping mapping = registry.getMapping(Device.class);
+        assertSame(mapping, registry.getMapping(Device.class));
+        assertEquals(Arrays.asList("name", "size"), mapping.getKeys());
+    }
+
+    private static Map<String, Object> device(String name, String size) {
+        Map<String, Object> device = new HashMap<>();
+        device.put(MapClassMapping.MAP_CLASS_NAME_KEY, Device.class.getName());
+        device.put("name", name);
+        device.put("size", size);
+        return device;
+    }
+}
@@ -0,0 +1,104 @@
+package org.sunyuyangg.service.core.support;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ValueConverterRegistryTest {
+
+    private static final String[] NUMBERS = {"0", "42", "+7", "-7", "007", "2147483647", "2147483648", "-2147483648",
+            "-2147483649", "9223372036854775807", "9223372036854775808", "-9223372036854775808", "", "-", "+", "1a", " 1", "1.0"};
+
+    private final ValueConverterRegistry registry = new ValueConverterRegistry();
+
+    @Test
+    public void intParityTest() throws Exception {
+        for (String number : NUMBERS) {
+            assertParity(number, Integer.class, value -> Integer.parseInt(value.toString()));
+            assertParity(number, int.class, value -> Integer.parseInt(value.toString()));
+        }
+    }
+
+    @Test
+    public void longParityTest() throws Exception {
+        for (String number : NUMBERS) {
+            assertParity(number, long.class, value -> Long.parseLong(value.toString()));
+        }
+    }
+
+    @Test
+    public void shortAndByteParityTest() throws Exception {
+        for (String number : new String[] {"127", "128", "-128", "-129", "32767", "32768", "x"}) {
+            assertParity(number, byte.class, value -> Byte.parseByte(value.toString()));
+            assertParity(number, short.class, value -> Short.parseShort(value.toString()));
+        }
+    }
+
+    @Test
+    public void otherTypesTest() throws Exception {
+        assertEquals(true, registry.getConverter(boolean.class).convert("TRUE"));
+        assertEquals(false, registry.getConverter(Boolean.class).convert("yes"));
+        assertEquals('x', registry.getConverter(char.class).convert("x"));
+        assertEquals(1.5d, registry.getConverter(double.class).convert("1.5"));
+        assertEquals(1.5f, registry.getConverter(Float.class).convert("1.5"));
+        assertEquals("value", registry.getConverter(String.class).convert(new StringBuilder("value")));
+        try {
+            registry.getConverter(char.class).convert("xy");
+            fail();
+        } catch (IllegalArgumentException ex) {
+            assertEquals("Cannot convert \"xy\" to a char: expected a single character", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void enumTest() throws Exception {
+        assertTrue(registry.canConvert(TimeUnit.class));
+        ValueConverter<?> converter = registry.getConverter(TimeUnit.class);
+        assertSame(converter, registry.getConverter(TimeUnit.class));
+        assertEquals(TimeUnit.SECONDS, converter.convert("SECONDS"));
+        assertNull(converter.convert("FORTNIGHTS"));
+    }
+
+    @Test
+    public void registerTest() throws Exception {
+        assertFalse(registry.canConvert(StringBuilder.class));
+        assertNull(registry.getConverter(StringBuilder.class));
+        registry.register(StringBuilder.class, value -> new StringBuilder(value).reverse());
+        assertTrue(registry.canConvert(StringBuilder.class));
+        assertEquals("cba", registry.getConverter(StringBuilder.class).convert("abc").toString());
+
+        registry.register(int.class, value -> -1);
+        assertEquals(-1, registry.getConverter(int.class).convert("1"));
+        assertEquals(1, registry.getConverter(Integer.class).convert("1"));
+    }
+
+    @Test
+    public void conversionFailureTest() {
+        IllegalArgumentException ex = ValueConverterRegistry.conversionFailure("times", int.class, "x",
+                new NumberFormatException("For input string: \"x\""));
+        assertEquals("can not convert option 'times' [x] to int: For input string: \"x\"", ex.getMessage());
+    }
+
+    private void assertParity(String value, Class<?> type, ValueConverter<?> expected) throws Exception {
+        Object expectedValue;
+        try {
+            expectedValue = expected.convert(value);
+        } catch (NumberFormatException expectedEx) {
+            try {
+                registry.getConverter(type).convert(value);
+                fail("Expected " + expectedEx + " for " + type + " [" + value + "]");
+            } catch (NumberFormatException ex) {
+                assertEquals(expectedEx.getMessage(), ex.getMessage());
+            }
+            return;
+        }
+        assertEquals(type + " [" + value + "]", expectedValue, registry.getConverter(type).convert(value));
+    }
+}
@@ -0,0 +1,118 @@
+package org.sunyuyangg.service.core.viewer;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.ibm.staf.STAFResult;
+import com.ibm.staf.service.STAFServiceInterfaceLevel30.RequestInfo;
+import org.junit.Test;
+import org.sunyuyangg.service.core.DispatchContext;
+import org.sunyuyangg.service.core.adapter.ModelAndView;
+import org.sunyuyangg.service.core.sample.model.Device;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class DefaultViewerTest {
+
+    private final DefaultViewer viewer = new DefaultViewer();
+
+    @Test
+    public void compactTest() throws Exception {
+        // The shared mapper indents, the view writes compact output unless asked otherwise
+        assertEquals("{\"name\":\"dev0\",\"size\":0}", viewer.renderModel(new Device("dev0", 0), 0));
+        assertEquals("[{\"name\":\"dev0\",\"size\":0},{\"name\":\"dev1\",\"size\":1}]",
+                viewer.renderModel(Arrays.asList(new Device("dev0", 0), new Device("dev1", 1)), 0));
+        assertEquals("[{\"name\":\"dev0\",\"size\":0},null]",
+                viewer.renderModel(Arrays.asList(new Device("dev0", 0), null).iterator(), 0));
+    }
+
+    @Test
+    public void prettyPrintTest() throws Exception {
+        assertEquals("{\"name\":\"dev0\",\"size\":0}", viewer.renderModel(new Device("dev0", 0), 0));
+        viewer.setPrettyPrint(true);
+        assertEquals("{\n  \"name\" : \"dev0\",\n  \"size\" : 0\n}",
+                viewer.renderModel(new Device("dev0", 0), 0).replace(System.lineSeparator(), "\n"));
+        viewer.setPrettyPrint(false);
+        assertEquals("{\"name\":\"dev0\",\"size\":0}", viewer.renderModel(new Device("dev0", 0), 0));
+    }
+
+    @Test
+    public void objectMapperTest() throws Exception {
+        assertEquals("{\"name\":\"dev0\",\"size\":0}", viewer.renderModel(new Device("dev0", 0), 0));
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.setPropertyNamingStrategy(PropertyNamingStrategy.UPPER_CAMEL_CASE);
+        // Writers cached for the previous mapper are dropped
+        viewer.setObjectMapper(objectMapper);
+        assertEquals("{\"Name\":\"dev0\",\"Size\":0}", viewer.renderModel(new Device("dev0", 0), 0));
+    }
+
+    @Test
+    public void bufferReuseTest() throws Exception {
+        viewer.setMaxRetainedBufferSize(2048);
+        List<Device> devices = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            devices.add(new Device("dev" + i, i));
+        }
+        String large = viewer.renderModel(devices, 0);
+        assertEquals(viewer.getObjectMapper().writer().without(SerializationFeature.INDENT_OUTPUT)
+                .writeValueAsString(devices), large);
+        // Neither a dropped nor a reused buffer leaks earlier output
+        assertEquals("[]", viewer.renderModel(Collections.emptyList(), 0));
+        assertEquals("{\"name\":\"dev0\",\"size\":0}", viewer.renderModel(new Device("dev0", 0), 0));
+        assertEquals(large, viewer.renderModel(devices, 0));
+        assertEquals("[]", viewer.renderModel(Collections.emptyList(), 0));
+    }
+
+    @Test
+    public void reentrantTest() throws Exception {
+        Nested nested = new Nested(viewer, new Device("dev0", 0));
+        assertEquals("{\"inner\":\"{\\\"name\\\":\\\"dev0\\\",\\\"size\\\":0}\"}",
+                viewer.renderModel(Collections.singletonMap("inner", nested), 0));
+    }
+
+    @Test
+    public void renderTest() {
+        STAFResult response = render("text");
+        assertEquals(STAFResult.Ok, response.rc);
+        assertEquals("text", response.result);
+        assertEquals("", render(null).result);
+        assertEquals("[1,2]", render(Arrays.asList(1, 2)).result);
+    }
+
+    private STAFResult render(Object model) {
+        ModelAndView modelAndView = new ModelAndView();
+        modelAndView.setModel(model);
+        modelAndView.setRc(STAFResult.Ok);
+        STAFResult response = new STAFResult();
+        viewer.render(modelAndView, new DispatchContext(
+                new RequestInfo("12345678", "local", "sun", "12", 1, 6, false, 0, "device list", 0, "sun", "", "")), response);
+        return response;
+    }
+
+
+    /**
+     * Serialized by rendering its value with the view again.
+     */
+    public static class Nested {
+
+        private final DefaultViewer viewer;
+
+        private final Object value;
+
+        Nested(DefaultViewer viewer, Object value) {
+            this.viewer = viewer;
+            this.value = value;
+        }
+
+        @JsonValue
+        public String render() throws Exception {
+            return this.viewer.renderModel(this.value, 0);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.sunyuyangg.service.core.viewer;
+
+import com.ibm.staf.STAFMarshallingContext;
+import org.junit.Test;
+import org.sunyuyangg.service.core.sample.model.Device;
+import org.sunyuyangg.service.core.sample.model.DeviceSummary;
+import org.sunyuyangg.service.core.support.MapClassMapping;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MarshallingViewerTest {
+
+    private final MarshallingViewer viewer = new MarshallingViewer();
+
+    @Test
+    public void beanTest() throws Exception {
+        STAFMarshallingContext context = viewer.createMarshallingContext(new Device("dev0", 3), 0);
+        Map<?, ?> device = (Map<?, ?>) context.getRootObject();
+        assertEquals(Device.class.getName(), device.get(MapClassMapping.MAP_CLASS_NAME_KEY));
+        assertEquals("dev0", device.get("name"));
+        // Simple values become strings
+        assertEquals("3", device.get("size"));
+        assertTrue(context.hasMapClassDefinition(Device.class.getName()));
+    }
+
+    @Test
+    public void nestedBeanTest() throws Exception {
+        STAFMarshallingContext context = viewer.createMarshallingContext(new DeviceSummary(2, new Device("dev1", 1)), 0);
+        Map<?, ?> summary = (Map<?, ?>) context.getRootObject();
+        assertEquals("2", summary.get("count"));
+        assertEquals("dev1", ((Map<?, ?>) summary.get("largest")).get("name"));
+        assertTrue(context.hasMapClassDefinition(DeviceSummary.class.getName()));
+        assertTrue(context.hasMapClassDefinition(Device.class.getName()));
+    }
+
+    @Test
+    public void containerTest() throws Exception {
+        Map<Object, Object> map = new LinkedHashMap<>();
+        map.put(1, TimeUnit.SECONDS);
+        map.put("none", null);
+        map.put("ids", new int[] {1, 2});
+        map.put("devices", Collections.singleton(new Device("dev0", 0)));
+        Map<?, ?> root = (Map<?, ?>) viewer.createMarshallingContext(map, 0).getRootObject();
+        assertEquals(Arrays.asList("1", "none", "ids", "devices"), Arrays.asList(root.keySet().toArray()));
+        assertEquals("SECONDS", root.get("1"));
+        assertNull(root.get("none"));
+        assertEquals(Arrays.asList("1", "2"), root.get("ids"));
+        assertEquals("dev0", ((Map<?, ?>) ((List<?>) root.get("devices")).get(0)).get("name"));
+    }
+
+    @Test
+    public void streamTest() throws Exception {
+        Object stream = viewer.createMarshallingContext(IntStream.range(0, 3).boxed(), 0).getRootObject();
+        assertEquals(Arrays.asList("0", "1", "2"), stream);
+        Object iterator = viewer.createMarshallingContext(Arrays.asList("a", "b").iterator(), 0).getRootObject();
+        assertEquals(Arrays.asList("a", "b"), iterator);
+    }
+
+    @Test
+    public void maxResultSizeTest() throws Exception {
+        assertNotNull(viewer.createMarshallingContext(Arrays.asList("a", "b"), 22));
+        try {
+            // Stops converting an endless stream once the strings exceed the size
+            viewer.createMarshallingContext(IntStream.iterate(0, i -> i + 1).boxed(), 100);
+            fail();
+        } catch (ResultSizeExceededException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("The result exceeds the maximum size of 100 characters"));
+        }
+    }
+}